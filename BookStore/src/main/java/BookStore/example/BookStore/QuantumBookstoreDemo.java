@@ -30,9 +30,9 @@ public class QuantumBookstoreDemo {
         // Purchase books
         System.out.println("\n3. Purchasing books:");
         try {
-            double cost1 = bookStore.buyBook("ISBN-001", 3, "customer1@example.com", "123 Tech Street");
-            double cost2 = bookStore.buyBook("ISBN-002", 1, "customer2@example.com", "");
-            System.out.println("Quantum book store - Total spent: $" + (cost1 + cost2));
+            long cost1 = bookStore.buyBook("ISBN-001", 3, "customer1@example.com", "123 Tech Street");
+            long cost2 = bookStore.buyBook("ISBN-002", 1, "customer2@example.com", "");
+            System.out.println("Quantum book store - Total spent: $" + Money.format(cost1 + cost2));
         } catch (Exception e) {
             System.out.println("Quantum book store - Error: " + e.getMessage());
         }
@@ -105,8 +105,8 @@ public class QuantumBookstoreDemo {
         
         // Purchase the audio book
         try {
-            double audioCost = bookStore.buyBook("ISBN-AUDIO-001", 1, "audiobook@example.com", "");
-            System.out.println("Quantum book store - Audio book purchased for: $" + audioCost);
+            long audioCost = bookStore.buyBook("ISBN-AUDIO-001", 1, "audiobook@example.com", "");
+            System.out.println("Quantum book store - Audio book purchased for: $" + Money.format(audioCost));
         } catch (Exception e) {
             System.out.println("Quantum book store - Error: " + e.getMessage());
         }
@@ -0,0 +1,204 @@
+package BookStore.example.BookStore.config;
+
+import BookStore.example.BookStore.model.Book;
+import BookStore.example.BookStore.model.EBook;
+import BookStore.example.BookStore.model.PaperBook;
+import BookStore.example.BookStore.model.ShowcaseBook;
+import BookStore.example.BookStore.persistence.InventoryJournal;
+import BookStore.example.BookStore.persistence.InventoryPersistence;
+import BookStore.example.BookStore.service.BatchingMailService;
+import BookStore.example.BookStore.service.BookStore;
+import BookStore.example.BookStore.service.CatalogChangeFeed;
+import BookStore.example.BookStore.service.CatalogExporter;
+import BookStore.example.BookStore.service.CatalogImporter;
+import BookStore.example.BookStore.service.CatalogResponseCache;
+import BookStore.example.BookStore.service.ColumnarInventory;
+import BookStore.example.BookStore.service.FulfilmentPipeline;
+import BookStore.example.BookStore.service.PurchaseAdmission;
+import BookStore.example.BookStore.service.RevenueLedger;
+import BookStore.example.BookStore.service.ShardedBookStore;
+import BookStore.example.BookStore.service.ShipmentConsolidator;
+import BookStore.example.BookStore.service.StockReservations;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+@Configuration
+@EnableScheduling
+public class BookStoreConfiguration {
+
+    @Bean(destroyMethod = "close")
+    public BatchingMailService batchingMailService(@Value("${bookstore.mail.batch-window:PT0.2S}") Duration batchWindow,
+                                                  @Value("${bookstore.mail.max-batch-size:50}") int maxBatchSize) {
+        return new BatchingMailService(batchWindow, maxBatchSize);
+    }
+
+    @Bean(destroyMethod = "close")
+    public ShipmentConsolidator shipmentConsolidator(@Value("${bookstore.shipping.consolidation-window:PT0.5S}") Duration window,
+                                                     @Value("${bookstore.shipping.max-lines-per-shipment:100}") int maxLines) {
+        return new ShipmentConsolidator(window, maxLines);
+    }
+
+    // Closed before the batchers it feeds, so jobs it drains still get flushed. Follows the
+    // virtual-thread switch that Spring Boot also applies to request handling
+    @Bean(destroyMethod = "close")
+    public FulfilmentPipeline fulfilmentPipeline(ShipmentConsolidator shipmentConsolidator,
+                                                 BatchingMailService batchingMailService,
+                                                 @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                                                 @Value("${bookstore.fulfilment.workers:4}") int workers,
+                                                 @Value("${bookstore.fulfilment.virtual-workers:256}") int virtualWorkers,
+                                                 @Value("${bookstore.fulfilment.queue-capacity:10000}") int queueCapacity,
+                                                 @Value("${bookstore.fulfilment.max-attempts:5}") int maxAttempts,
+                                                 @Value("${bookstore.fulfilment.initial-backoff:PT0.1S}") Duration initialBackoff) {
+        return new FulfilmentPipeline(shipmentConsolidator, batchingMailService, virtualThreads ? virtualWorkers : workers,
+                                      queueCapacity, maxAttempts, initialBackoff, virtualThreads);
+    }
+
+    // heap keeps one object per book in a ConcurrentHashMap; columnar packs large catalogs into primitive columns.
+    // More than one shard splits the inventory into that many stores, each with its own map of that kind
+    @Bean
+    public BookStore bookStore(FulfilmentPipeline fulfilmentPipeline,
+                               @Value("${bookstore.inventory.storage:heap}") String storage,
+                               @Value("${bookstore.shards.count:1}") int shardCount,
+                               @Value("${bookstore.shards.virtual-nodes:512}") int virtualNodes) {
+        Supplier<ConcurrentMap<String, Book>> inventories = switch (storage.toLowerCase(Locale.ROOT)) {
+            case "heap" -> ConcurrentHashMap::new;
+            case "columnar" -> ColumnarInventory::new;
+            default -> throw new IllegalArgumentException("Quantum book store - Unknown inventory storage '" + storage
+                                                          + "', expected heap or columnar");
+        };
+        if (shardCount > 1) {
+            return new ShardedBookStore(fulfilmentPipeline, shardCount, virtualNodes, inventories);
+        }
+        return new BookStore(fulfilmentPipeline, inventories.get());
+    }
+
+    // Demo catalog for an empty store. Runs once every singleton exists and before the server
+    // takes requests, so an enabled InventoryPersistence has already recovered the inventory
+    @Bean
+    public SmartInitializingSingleton sampleBooks(BookStore bookStore) {
+        return () -> {
+            if (!bookStore.getAllBooks().isEmpty()) {
+                return;
+            }
+            bookStore.addBook(new PaperBook("ISBN-001", "Java: The Complete Reference",
+                                           "Herbert Schildt", 2022, 59.99, 25));
+            bookStore.addBook(new EBook("ISBN-002", "Spring Boot in Action",
+                                       "Craig Walls", 2021, 39.99, "PDF"));
+            bookStore.addBook(new ShowcaseBook("ISBN-003", "Future of AI Programming",
+                                              "Tech Innovator", 2024));
+            bookStore.addBook(new PaperBook("ISBN-004", "Clean Code",
+                                           "Robert C. Martin", 2020, 49.99, 15));
+            bookStore.addBook(new EBook("ISBN-005", "Design Patterns",
+                                       "Gang of Four", 2019, 44.99, "EPUB"));
+        };
+    }
+
+    @Bean
+    public RevenueLedger revenueLedger(BookStore bookStore) {
+        RevenueLedger revenueLedger = new RevenueLedger();
+        bookStore.addInventoryListener(revenueLedger);
+        return revenueLedger;
+    }
+
+    @Bean
+    public CatalogResponseCache catalogResponseCache(BookStore bookStore, ObjectMapper objectMapper,
+                                                     @Value("${bookstore.response-cache.max-books:100000}") int maxBooks,
+                                                     @Value("${bookstore.response-cache.max-listings:1000}") int maxListings) {
+        CatalogResponseCache responseCache = new CatalogResponseCache(bookStore, objectMapper, maxBooks, maxListings);
+        bookStore.addInventoryListener(responseCache);
+        return responseCache;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CatalogChangeFeed catalogChangeFeed(BookStore bookStore,
+                                               @Value("${bookstore.changes.interval:PT0.25S}") Duration interval,
+                                               @Value("${bookstore.changes.max-pending-per-subscriber:1000}") int maxPending,
+                                               @Value("${bookstore.changes.max-subscribers:10000}") int maxSubscribers,
+                                               @Value("${bookstore.changes.sender-threads:2}") int senderThreads,
+                                               @Value("${bookstore.changes.heartbeat:PT30S}") Duration heartbeat) {
+        CatalogChangeFeed changeFeed = new CatalogChangeFeed(bookStore, interval, maxPending, maxSubscribers, senderThreads, heartbeat);
+        bookStore.addInventoryListener(changeFeed);
+        return changeFeed;
+    }
+
+    @Bean(destroyMethod = "close")
+    public PurchaseAdmission purchaseAdmission(BookStore bookStore,
+                                               @Value("${bookstore.admission.isbn-rate:1000}") double isbnRate,
+                                               @Value("${bookstore.admission.isbn-burst:1000}") int isbnBurst,
+                                               @Value("${bookstore.admission.client-rate:20}") double clientRate,
+                                               @Value("${bookstore.admission.client-burst:40}") int clientBurst,
+                                               @Value("${bookstore.admission.last-copies:10}") int lastCopies,
+                                               @Value("${bookstore.admission.max-in-line:1000}") int maxInLine,
+                                               @Value("${bookstore.admission.line-timeout:PT2S}") Duration lineTimeout) {
+        PurchaseAdmission admission = new PurchaseAdmission(bookStore, isbnRate, isbnBurst, clientRate, clientBurst,
+                                                            lastCopies, maxInLine, lineTimeout);
+        bookStore.addInventoryListener(admission);
+        return admission;
+    }
+
+    @Bean
+    public MeterBinder purchaseAdmissionMetrics(PurchaseAdmission admission) {
+        return registry -> {
+            for (PurchaseAdmission.Decision decision : PurchaseAdmission.Decision.values()) {
+                FunctionCounter.builder("bookstore.purchase.admission", admission, a -> a.getDecisionCount(decision))
+                               .description("Purchase requests by admission decision")
+                               .tag("decision", decision.name().toLowerCase())
+                               .register(registry);
+            }
+        };
+    }
+
+    @Bean(destroyMethod = "close")
+    public StockReservations stockReservations(BookStore bookStore,
+                                               @Value("${bookstore.reservations.ttl:PT10M}") Duration ttl,
+                                               @Value("${bookstore.reservations.max-ttl:PT1H}") Duration maxTtl,
+                                               @Value("${bookstore.reservations.max-outstanding:5000000}") int maxOutstanding,
+                                               @Value("${bookstore.reservations.tick:PT1S}") Duration tick,
+                                               @Value("${bookstore.reservations.wheel-slots:1024}") int wheelSlots) {
+        return new StockReservations(bookStore, ttl, maxTtl, maxOutstanding, tick, wheelSlots);
+    }
+
+    @Bean
+    public CatalogImporter catalogImporter(BookStore bookStore,
+                                           @Value("${bookstore.import.batch-size:1000}") int batchSize,
+                                           @Value("${bookstore.import.max-reported-errors:1000}") int maxReportedErrors) {
+        return new CatalogImporter(bookStore, batchSize, maxReportedErrors);
+    }
+
+    @Bean
+    public CatalogExporter catalogExporter(BookStore bookStore,
+                                           @Value("${bookstore.export.page-size:1000}") int pageSize) {
+        return new CatalogExporter(bookStore, pageSize);
+    }
+
+    @Bean
+    public BookStoreMetrics bookStoreMetrics(BookStore bookStore) {
+        return new BookStoreMetrics(bookStore);
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "bookstore.persistence.enabled", havingValue = "true")
+    public InventoryPersistence inventoryPersistence(BookStore bookStore,
+                                                     @Value("${bookstore.persistence.directory:data}") Path directory,
+                                                     @Value("${bookstore.persistence.segment-bytes:67108864}") int segmentBytes,
+                                                     @Value("${bookstore.persistence.durability:ASYNC}") InventoryJournal.Durability durability,
+                                                     @Value("${bookstore.persistence.flush-interval:PT0.005S}") Duration flushInterval,
+                                                     @Value("${bookstore.persistence.snapshot-interval:PT10M}") Duration snapshotInterval) throws IOException {
+        return new InventoryPersistence(directory, bookStore, segmentBytes, durability, flushInterval, snapshotInterval);
+    }
+}
@@ -0,0 +1,133 @@
+package BookStore.example.BookStore.config;
+
+import BookStore.example.BookStore.model.Book;
+import BookStore.example.BookStore.model.PaperBook;
+import BookStore.example.BookStore.service.BookStore;
+import BookStore.example.BookStore.service.InventoryListener;
+import BookStore.example.BookStore.service.PurchaseFailure;
+import BookStore.example.BookStore.service.PurchaseMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Micrometer view of the store: buyBook phase timers, purchase failures by reason,
+ * books per type and total paper book stock. Per-type counts are kept up to date
+ * from inventory events, so the purchase path only pays for a few timer updates.
+ */
+public class BookStoreMetrics implements MeterBinder, PurchaseMetrics, InventoryListener {
+    private final BookStore bookStore;
+    private final ConcurrentMap<String, AtomicLong> booksByType = new ConcurrentHashMap<>();
+    private final Map<PurchaseFailure, Counter> failures = new EnumMap<>(PurchaseFailure.class);
+    private volatile MeterRegistry registry;
+    private Timer lookupTimer;
+    private Timer reservationTimer;
+    private Timer fulfilmentTimer;
+
+    public BookStoreMetrics(BookStore bookStore) {
+        this.bookStore = bookStore;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+        lookupTimer = phaseTimer(registry, "lookup");
+        reservationTimer = phaseTimer(registry, "reservation");
+        fulfilmentTimer = phaseTimer(registry, "fulfilment");
+        for (PurchaseFailure reason : PurchaseFailure.values()) {
+            failures.put(reason, Counter.builder("bookstore.purchase.failures")
+                                        .description("Purchases turned down, by reason")
+                                        .tag("reason", reason.name().toLowerCase())
+                                        .register(registry));
+        }
+        // Walks the inventory, but only when scraped
+        Gauge.builder("bookstore.inventory.paper.stock", bookStore, BookStoreMetrics::totalPaperStock)
+             .description("Copies on hand across all paper books")
+             .register(registry);
+
+        // Counted once here and tracked through events from then on; runs during startup before traffic arrives
+        for (Book book : bookStore.getAllBooks()) {
+            typeCount(book).incrementAndGet();
+        }
+        bookStore.addInventoryListener(this);
+        bookStore.setPurchaseMetrics(this);
+    }
+
+    @Override
+    public void purchaseCompleted(Book book, long lookupNanos, long reservationNanos, long fulfilmentNanos) {
+        lookupTimer.record(lookupNanos, TimeUnit.NANOSECONDS);
+        if (book instanceof PaperBook) {
+            reservationTimer.record(reservationNanos, TimeUnit.NANOSECONDS);
+        }
+        fulfilmentTimer.record(fulfilmentNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void purchaseFailed(PurchaseFailure reason) {
+        failures.get(reason).increment();
+    }
+
+    @Override
+    public void bookAdded(Book book) {
+        typeCount(book).incrementAndGet();
+    }
+
+    @Override
+    public void bookUpdated(Book oldBook, Book newBook) {
+        if (!oldBook.getBookType().equals(newBook.getBookType())) {
+            typeCount(oldBook).decrementAndGet();
+            typeCount(newBook).incrementAndGet();
+        }
+    }
+
+    @Override
+    public void bookRemoved(Book book) {
+        typeCount(book).decrementAndGet();
+    }
+
+    @Override
+    public void bookRestored(Book replaced, Book book) {
+        if (replaced != null) {
+            typeCount(replaced).decrementAndGet();
+        }
+        typeCount(book).incrementAndGet();
+    }
+
+    private AtomicLong typeCount(Book book) {
+        return booksByType.computeIfAbsent(book.getBookType(), type -> {
+            AtomicLong count = new AtomicLong();
+            Gauge.builder("bookstore.inventory.books", count, AtomicLong::get)
+                 .description("Books in the inventory, by type")
+                 .tag("type", type)
+                 .register(registry);
+            return count;
+        });
+    }
+
+    private static Timer phaseTimer(MeterRegistry registry, String phase) {
+        return Timer.builder("bookstore.purchase.phase")
+                    .description("Time spent in each phase of buyBook")
+                    .tag("phase", phase)
+                    .publishPercentileHistogram()
+                    .register(registry);
+    }
+
+    private static double totalPaperStock(BookStore bookStore) {
+        long stock = 0;
+        for (Book book : bookStore.getAllBooks()) {
+            if (book instanceof PaperBook paperBook) {
+                stock += paperBook.getStock();
+            }
+        }
+        return stock;
+    }
+}
@@ -0,0 +1,36 @@
+package BookStore.example.BookStore.config;
+
+import BookStore.example.BookStore.model.Book;
+import BookStore.example.BookStore.service.BookStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Background purge so outdated books leave the catalog in small, regular passes
+// instead of waiting for a manual DELETE /api/books/outdated/{years}
+@Component
+@ConditionalOnProperty(name = "bookstore.purge.enabled", havingValue = "true")
+public class OutdatedBookPurgeScheduler {
+    private static final Logger log = LoggerFactory.getLogger(OutdatedBookPurgeScheduler.class);
+
+    private final BookStore bookStore;
+    private final int thresholdYears;
+
+    public OutdatedBookPurgeScheduler(BookStore bookStore,
+                                      @Value("${bookstore.purge.threshold-years:10}") int thresholdYears) {
+        this.bookStore = bookStore;
+        this.thresholdYears = thresholdYears;
+    }
+
+    @Scheduled(fixedDelayString = "${bookstore.purge.interval:PT1H}",
+               initialDelayString = "${bookstore.purge.interval:PT1H}")
+    public void purgeOutdatedBooks() {
+        List<Book> removedBooks = bookStore.removeOutdatedBooks(thresholdYears);
+        log.info("Scheduled purge removed {} book(s) older than {} years", removedBooks.size(), thresholdYears);
+    }
+}
@@ -1,49 +1,196 @@
 package BookStore.example.BookStore.controller;
 
 import BookStore.example.BookStore.model.*;
+import BookStore.example.BookStore.service.BookProjection;
 import BookStore.example.BookStore.service.BookStore;
+import BookStore.example.BookStore.service.CachedResponse;
+import BookStore.example.BookStore.service.CatalogChangeFeed;
+import BookStore.example.BookStore.service.CatalogEvent;
+import BookStore.example.BookStore.service.CatalogEventSink;
+import BookStore.example.BookStore.service.CatalogExporter;
+import BookStore.example.BookStore.service.CatalogImporter;
+import BookStore.example.BookStore.service.CatalogResponseCache;
+import BookStore.example.BookStore.service.FulfilmentStageMetrics;
+import BookStore.example.BookStore.service.ImportReport;
+import BookStore.example.BookStore.service.OrderLine;
+import BookStore.example.BookStore.service.PurchaseAdmission;
+import BookStore.example.BookStore.service.PurchaseFailure;
+import BookStore.example.BookStore.service.PurchaseResult;
+import BookStore.example.BookStore.service.Reservation;
+import BookStore.example.BookStore.service.RevenueLedger;
+import BookStore.example.BookStore.service.RevenueReport;
+import BookStore.example.BookStore.service.SearchResults;
+import BookStore.example.BookStore.service.StockReservations;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.Collection;
-import java.util.List;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.*;
 
 @RestController
 @RequestMapping("/api/books")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = {BookStoreController.NEXT_CURSOR_HEADER, HttpHeaders.ETAG})
 public class BookStoreController {
 
+    private static final Logger log = LoggerFactory.getLogger(BookStoreController.class);
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int MAX_PAGE_SIZE = CatalogResponseCache.CATALOG_PAGE;
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv");
+    // Shed and failed purchases get one of these shared responses, so turning a request away builds nothing
+    private static final Map<PurchaseFailure, ResponseEntity<PurchaseResponse>> FAILURES = failures();
+    private static final Map<PurchaseAdmission.Decision, ResponseEntity<PurchaseResponse>> REJECTIONS = rejections();
+
     private final BookStore bookStore;
+    private final CatalogImporter catalogImporter;
+    private final CatalogExporter catalogExporter;
+    private final RevenueLedger revenueLedger;
+    private final CatalogResponseCache responseCache;
+    private final CatalogChangeFeed changeFeed;
+    private final PurchaseAdmission purchaseAdmission;
+    private final StockReservations reservations;
 
-    public BookStoreController() {
-        this.bookStore = new BookStore();
-        // Add some sample books for demo
-        initializeSampleBooks();
+    public BookStoreController(BookStore bookStore, CatalogImporter catalogImporter, CatalogExporter catalogExporter,
+                               RevenueLedger revenueLedger, CatalogResponseCache responseCache,
+                               CatalogChangeFeed changeFeed, PurchaseAdmission purchaseAdmission,
+                               StockReservations reservations) {
+        this.bookStore = bookStore;
+        this.catalogImporter = catalogImporter;
+        this.catalogExporter = catalogExporter;
+        this.revenueLedger = revenueLedger;
+        this.responseCache = responseCache;
+        this.changeFeed = changeFeed;
+        this.purchaseAdmission = purchaseAdmission;
+        this.reservations = reservations;
     }
 
-    private void initializeSampleBooks() {
-        bookStore.addBook(new PaperBook("ISBN-001", "Java: The Complete Reference", 
-                                       "Herbert Schildt", 2022, 59.99, 25));
-        bookStore.addBook(new EBook("ISBN-002", "Spring Boot in Action", 
-                                   "Craig Walls", 2021, 39.99, "PDF"));
-        bookStore.addBook(new ShowcaseBook("ISBN-003", "Future of AI Programming", 
-                                          "Tech Innovator", 2024));
-        bookStore.addBook(new PaperBook("ISBN-004", "Clean Code", 
-                                       "Robert C. Martin", 2020, 49.99, 15));
-        bookStore.addBook(new EBook("ISBN-005", "Design Patterns", 
-                                   "Gang of Four", 2019, 44.99, "EPUB"));
+    // Without limit or cursor this is the full catalog in ISBN order; with either it returns one
+    // page and puts the cursor for the next one in the X-Next-Cursor header. Answers 304 when
+    // If-None-Match still matches the catalog as it is now
+    @GetMapping
+    public ResponseEntity<byte[]> getAllBooks(@RequestParam(required = false) Integer limit,
+                                              @RequestParam(required = false) String cursor,
+                                              @RequestParam(required = false) String fields,
+                                              @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Set<String> projection;
+        String afterIsbn;
+        try {
+            projection = fields != null ? BookProjection.parseFields(fields) : null;
+            afterIsbn = cursor != null ? decodeCursor(cursor) : null;
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        if (limit == null && cursor == null) {
+            return cached(responseCache.getCatalog(projection), ifNoneMatch);
+        }
+
+        int pageSize = limit != null ? limit : MAX_PAGE_SIZE;
+        if (pageSize <= 0 || pageSize > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        return cached(responseCache.getPage(afterIsbn, pageSize, projection), ifNoneMatch);
     }
 
-    @GetMapping
-    public ResponseEntity<Collection<Book>> getAllBooks() {
-        return ResponseEntity.ok(bookStore.getAllBooks());
+    @GetMapping("/search")
+    public ResponseEntity<SearchResults> searchBooks(@RequestParam(required = false) String q,
+                                                     @RequestParam(required = false) String type,
+                                                     @RequestParam(required = false) Integer yearFrom,
+                                                     @RequestParam(required = false) Integer yearTo,
+                                                     @RequestParam(defaultValue = "0") int page,
+                                                     @RequestParam(defaultValue = "20") int size) {
+        if (page < 0 || size <= 0 || size > 100) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(bookStore.searchBooks(q, type, yearFrom, yearTo, page, size));
+    }
+
+    // The whole catalog as NDJSON in ISBN order, written while it is read instead of built up in memory
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportBooks() {
+        StreamingResponseBody body = catalogExporter::exportBooks;
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    // Revenue per book type and UTC day; both ends default to today
+    @GetMapping("/revenue")
+    public ResponseEntity<RevenueReport> getRevenue(@RequestParam(required = false) String from,
+                                                    @RequestParam(required = false) String to) {
+        try {
+            LocalDate today = LocalDate.now(ZoneOffset.UTC);
+            LocalDate first = from != null ? LocalDate.parse(from) : today;
+            LocalDate last = to != null ? LocalDate.parse(to) : today;
+            return ResponseEntity.ok(revenueLedger.revenueByTypeAndDay(first, last));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Server-sent events for books added, updated and removed and for stock changes, from the
+    // moment of subscribing; clients load the catalog once connected and apply these on top
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamChanges() {
+        // No timeout: dead connections are found by the feed's keep-alives failing to send
+        SseEmitter emitter = new SseEmitter(0L);
+        CatalogChangeFeed.Subscription subscription;
+        try {
+            subscription = changeFeed.subscribe(new CatalogEventSink() {
+                @Override
+                public void send(List<CatalogEvent> events) throws IOException {
+                    if (events.isEmpty()) {
+                        emitter.send(SseEmitter.event().comment("keep-alive"));
+                        return;
+                    }
+                    for (CatalogEvent event : events) {
+                        emitter.send(SseEmitter.event().name(event.getType().getName())
+                                               .data(event.getBook(), MediaType.APPLICATION_JSON));
+                    }
+                }
+
+                @Override
+                public void closed() {
+                    emitter.complete();
+                }
+            });
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(error -> subscription.close());
+        return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(emitter);
+    }
+
+    @GetMapping("/fulfilment")
+    public ResponseEntity<Map<String, FulfilmentStageMetrics>> getFulfilmentMetrics() {
+        return ResponseEntity.ok(bookStore.getFulfilmentMetrics());
     }
 
     @GetMapping("/{isbn}")
-    public ResponseEntity<Book> getBook(@PathVariable String isbn) {
-        Book book = bookStore.getBook(isbn);
+    public ResponseEntity<byte[]> getBook(@PathVariable String isbn,
+                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        CachedResponse book = responseCache.getBook(isbn);
         if (book != null) {
-            return ResponseEntity.ok(book);
+            return cached(book, ifNoneMatch);
         }
         return ResponseEntity.notFound().build();
     }
@@ -56,7 +203,7 @@ public class BookStoreController {
                                          request.price, request.stock);
             bookStore.addBook(book);
             return ResponseEntity.ok("Paper book added successfully");
-        } catch (Exception e) {
+        } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body("Error: " + e.getMessage());
         }
     }
@@ -69,7 +216,7 @@ public class BookStoreController {
                                  request.price, request.fileType);
             bookStore.addBook(book);
             return ResponseEntity.ok("EBook added successfully");
-        } catch (Exception e) {
+        } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body("Error: " + e.getMessage());
         }
     }
@@ -81,19 +228,158 @@ public class BookStoreController {
                                                request.author, request.yearPublished);
             bookStore.addBook(book);
             return ResponseEntity.ok("Showcase book added successfully");
-        } catch (Exception e) {
+        } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body("Error: " + e.getMessage());
         }
     }
 
+    // Bulk load of a catalog feed, read row by row from the request body
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv"})
+    public ResponseEntity<ImportReport> importBooks(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                    InputStream body) throws IOException {
+        CatalogImporter.Format format = CSV.isCompatibleWith(contentType) ? CatalogImporter.Format.CSV
+                                                                          : CatalogImporter.Format.NDJSON;
+        Charset charset = contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, charset), 1 << 16)) {
+            return ResponseEntity.ok(catalogImporter.importBooks(reader, format));
+        }
+    }
+
     @PostMapping("/buy")
-    public ResponseEntity<PurchaseResponse> buyBook(@RequestBody PurchaseRequest request) {
+    public ResponseEntity<PurchaseResponse> buyBook(@RequestBody PurchaseRequest request, HttpServletRequest http) {
+        PurchaseAdmission.Decision admission = purchaseAdmission.admit(request.isbn, http.getRemoteAddr());
+        if (!admission.isAdmitted()) {
+            return REJECTIONS.get(admission);
+        }
+        PurchaseResult result;
+        try {
+            result = bookStore.tryBuyBook(request.isbn, request.quantity, 
+                                          request.email, request.address);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new PurchaseResponse("Error: " + e.getMessage(), 0));
+        } catch (RuntimeException e) {
+            log.error("Purchase of {} failed in fulfilment", request.isbn, e);
+            return FAILURES.get(PurchaseFailure.FULFILMENT_FAILED);
+        } finally {
+            if (admission == PurchaseAdmission.Decision.ADMITTED_IN_LINE) {
+                purchaseAdmission.leave(request.isbn);
+            }
+        }
+        return purchased(result, request.quantity);
+    }
+
+    // Holds copies of a paper book for ttlSeconds (or the configured default) until confirmed or cancelled
+    @PostMapping("/reservations")
+    public ResponseEntity<?> reserve(@RequestBody ReservationRequest request, HttpServletRequest http) {
+        PurchaseAdmission.Decision admission = purchaseAdmission.admit(request.isbn, http.getRemoteAddr());
+        if (!admission.isAdmitted()) {
+            return REJECTIONS.get(admission);
+        }
+        try {
+            Reservation reservation = reservations.reserve(request.isbn, request.quantity,
+                                                           request.ttlSeconds != null ? Duration.ofSeconds(request.ttlSeconds) : null);
+            return ResponseEntity.status(HttpStatus.CREATED).body(reservation);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new PurchaseResponse("Error: " + e.getMessage(), 0));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new PurchaseResponse("Error: " + e.getMessage(), 0));
+        } finally {
+            if (admission == PurchaseAdmission.Decision.ADMITTED_IN_LINE) {
+                purchaseAdmission.leave(request.isbn);
+            }
+        }
+    }
+
+    @PostMapping("/reservations/{token}/confirm")
+    public ResponseEntity<PurchaseResponse> confirmReservation(@PathVariable String token,
+                                                               @RequestBody(required = false) ConfirmRequest request) {
+        int quantity = reservations.getQuantity(token);
+        PurchaseResult result;
         try {
-            double amount = bookStore.buyBook(request.isbn, request.quantity, 
-                                            request.email, request.address);
-            return ResponseEntity.ok(new PurchaseResponse("Purchase successful! Thank you for shopping with Quantum Book Store.", amount));
-        } catch (Exception e) {
+            result = reservations.confirm(token, request != null ? request.address : null);
+        } catch (RuntimeException e) {
+            // The hold stays in place, so the confirm can be retried until it expires
+            log.error("Confirming reservation {} failed in fulfilment", token, e);
+            return FAILURES.get(PurchaseFailure.FULFILMENT_FAILED);
+        }
+        return purchased(result, quantity);
+    }
+
+    @DeleteMapping("/reservations/{token}")
+    public ResponseEntity<Void> cancelReservation(@PathVariable String token) {
+        return reservations.cancel(token) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+
+    private static ResponseEntity<PurchaseResponse> purchased(PurchaseResult result, int requested) {
+        if (result.isCompleted()) {
+            return ResponseEntity.ok(new PurchaseResponse("Purchase successful! Thank you for shopping with Quantum Book Store.",
+                                                          result.getAmountCents(), stockOrNull(result)));
+        }
+        if (result.getFailure() == PurchaseFailure.INSUFFICIENT_STOCK && result.getRemainingStock() > 0) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                                 .body(new PurchaseResponse("Error: Quantum book store - Insufficient stock. Available: " +
+                                                            result.getRemainingStock() + ", Requested: " + requested,
+                                                            0, result.getRemainingStock()));
+        }
+        return FAILURES.get(result.getFailure());
+    }
+
+    private static Integer stockOrNull(PurchaseResult result) {
+        return result.getRemainingStock() == PurchaseResult.NO_STOCK ? null : result.getRemainingStock();
+    }
+
+    // Purchase failures without details share a prebuilt response
+    private static Map<PurchaseFailure, ResponseEntity<PurchaseResponse>> failures() {
+        Map<PurchaseFailure, ResponseEntity<PurchaseResponse>> failures = new EnumMap<>(PurchaseFailure.class);
+        failures.put(PurchaseFailure.INVALID_REQUEST, ResponseEntity.badRequest()
+                .body(new PurchaseResponse("Error: Quantum book store - Quantity must be positive", 0)));
+        failures.put(PurchaseFailure.NOT_FOUND, ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(new PurchaseResponse("Error: Quantum book store - Book not found", 0)));
+        failures.put(PurchaseFailure.NOT_FOR_SALE, ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(new PurchaseResponse("Error: Quantum book store - This book is not available for purchase", 0)));
+        failures.put(PurchaseFailure.INSUFFICIENT_STOCK, ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(new PurchaseResponse("Error: Quantum book store - Sold out", 0, 0)));
+        failures.put(PurchaseFailure.FULFILMENT_FAILED, ResponseEntity.status(HttpStatus.BAD_GATEWAY)
+                .body(new PurchaseResponse("Error: Quantum book store - Fulfilment failed, nothing was charged", 0)));
+        failures.put(PurchaseFailure.RESERVATION_NOT_FOUND, ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(new PurchaseResponse("Error: Quantum book store - Reservation not found or expired", 0)));
+        return Collections.unmodifiableMap(failures);
+    }
+
+    private static Map<PurchaseAdmission.Decision, ResponseEntity<PurchaseResponse>> rejections() {
+        Map<PurchaseAdmission.Decision, ResponseEntity<PurchaseResponse>> rejections = new EnumMap<>(PurchaseAdmission.Decision.class);
+        rejections.put(PurchaseAdmission.Decision.SOLD_OUT, FAILURES.get(PurchaseFailure.INSUFFICIENT_STOCK));
+        rejections.put(PurchaseAdmission.Decision.CLIENT_RATE_LIMITED, ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new PurchaseResponse("Error: Quantum book store - Too many purchases from this client, try again shortly", 0)));
+        rejections.put(PurchaseAdmission.Decision.ISBN_RATE_LIMITED, ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new PurchaseResponse("Error: Quantum book store - Too many purchases of this book, try again shortly", 0)));
+        rejections.put(PurchaseAdmission.Decision.LINE_FULL, ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new PurchaseResponse("Error: Quantum book store - Too many buyers waiting for the last copies, try again shortly", 0)));
+        rejections.put(PurchaseAdmission.Decision.LINE_TIMEOUT, ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new PurchaseResponse("Error: Quantum book store - Timed out waiting for the last copies, try again shortly", 0)));
+        return Collections.unmodifiableMap(rejections);
+    }
+
+    @PostMapping("/checkout")
+    public ResponseEntity<PurchaseResponse> checkout(@RequestBody CheckoutRequest request) {
+        try {
+            List<OrderLine> lines = new ArrayList<>();
+            if (request.items != null) {
+                for (CheckoutItem item : request.items) {
+                    lines.add(new OrderLine(item.isbn, item.quantity));
+                }
+            }
+            long amount = bookStore.checkout(lines, request.email, request.address);
+            return ResponseEntity.ok(new PurchaseResponse("Order successful! Thank you for shopping with Quantum Book Store.", amount));
+        } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(new PurchaseResponse("Error: " + e.getMessage(), 0));
+        } catch (RuntimeException e) {
+            log.error("Checkout failed in fulfilment", e);
+            return FAILURES.get(PurchaseFailure.FULFILMENT_FAILED);
         }
     }
 
@@ -103,6 +389,29 @@ public class BookStoreController {
         return ResponseEntity.ok(removedBooks);
     }
 
+    // no-cache lets clients keep the body but makes them revalidate it with If-None-Match every time
+    private static ResponseEntity<byte[]> cached(CachedResponse response, String ifNoneMatch) {
+        boolean notModified = response.matches(ifNoneMatch);
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(notModified ? HttpStatus.NOT_MODIFIED : HttpStatus.OK)
+                                                          .eTag(response.getEtag())
+                                                          .cacheControl(CacheControl.noCache());
+        if (response.getNextIsbn() != null) {
+            builder.header(NEXT_CURSOR_HEADER, encodeCursor(response.getNextIsbn()));
+        }
+        if (notModified) {
+            return builder.build();
+        }
+        return builder.contentType(MediaType.APPLICATION_JSON).body(response.getBody());
+    }
+
+    private static String encodeCursor(String isbn) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(isbn.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeCursor(String cursor) {
+        return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    }
+
     // DTOs
     public static class PaperBookRequest {
         public String isbn, title, author;
@@ -126,13 +435,44 @@ public class BookStoreController {
         public int quantity;
     }
 
+    public static class ReservationRequest {
+        public String isbn;
+        public int quantity;
+        public Long ttlSeconds;
+    }
+
+    public static class ConfirmRequest {
+        public String address;
+    }
+
+    public static class CheckoutItem {
+        public String isbn;
+        public int quantity;
+    }
+
+    public static class CheckoutRequest {
+        public List<CheckoutItem> items;
+        public String email, address;
+    }
+
+    // amountCents is exact; amount is the same value in currency units for display.
+    // remainingStock is left out except for single paper book purchases
     public static class PurchaseResponse {
         public String message;
+        public long amountCents;
         public double amount;
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        public Integer remainingStock;
+
+        public PurchaseResponse(String message, long amountCents) {
+            this(message, amountCents, null);
+        }
 
-        public PurchaseResponse(String message, double amount) {
+        public PurchaseResponse(String message, long amountCents, Integer remainingStock) {
             this.message = message;
-            this.amount = amount;
+            this.amountCents = amountCents;
+            this.amount = Money.toDecimal(amountCents);
+            this.remainingStock = remainingStock;
         }
     }
 } 
\ No newline at end of file
@@ -5,14 +5,15 @@ public abstract class Book {
     protected String title;
     protected String author;
     protected int yearPublished;
-    protected double price;
+    // Exact price in cents; the double accessors convert at the edge
+    protected long priceCents;
 
     public Book(String isbn, String title, String author, int yearPublished, double price) {
-        this.isbn = isbn;
+        this.isbn = Isbn.canonical(isbn);
         this.title = title;
         this.author = author;
         this.yearPublished = yearPublished;
-        this.price = price;
+        this.priceCents = Money.ofDecimal(price);
     }
 
     public String getIsbn() {
@@ -32,11 +33,15 @@ public abstract class Book {
     }
 
     public double getPrice() {
-        return price;
+        return Money.toDecimal(priceCents);
+    }
+
+    public long getPriceCents() {
+        return priceCents;
     }
 
     public void setPrice(double price) {
-        this.price = price;
+        this.priceCents = Money.ofDecimal(price);
     }
 
     public abstract boolean isAvailableForPurchase();
@@ -44,7 +49,7 @@ public abstract class Book {
 
     @Override
     public String toString() {
-        return String.format("Quantum book store - %s: %s by %s (%d) - $%.2f", 
-                           getBookType(), title, author, yearPublished, price);
+        return String.format("Quantum book store - %s: %s by %s (%d) - $%s", 
+                           getBookType(), title, author, yearPublished, Money.format(priceCents));
     }
 } 
\ No newline at end of file
@@ -0,0 +1,106 @@
+package BookStore.example.BookStore.model;
+
+/**
+ * Canonical book keys. A valid ISBN-10 or ISBN-13, with or without hyphens and spaces, packs
+ * into one long holding its 13 digits, so "0-13-468599-7", "978-0-13-468599-1" and
+ * "9780134685991" are the same key. Anything else, such as catalog ids like "ISBN-001", is
+ * kept as its trimmed text. The canonical text form is what books carry and the inventory
+ * is keyed by.
+ */
+public final class Isbn {
+    // Marks keys that are not a valid ISBN and fall back to their text
+    public static final long NOT_AN_ISBN = -1;
+
+    private Isbn() {
+    }
+
+    // The canonical text of a key: 13 digits for an ISBN, the trimmed value otherwise
+    public static String canonical(String value) {
+        if (value == null) {
+            return null;
+        }
+        return canonical(value, pack(value));
+    }
+
+    // Canonical text for a value whose pack() result is already known; reuses the given
+    // string when it already is the 13-digit form
+    public static String canonical(String value, long packed) {
+        if (packed == NOT_AN_ISBN) {
+            return value.strip();
+        }
+        return value.length() == 13 && value.indexOf('-') < 0 && value.indexOf(' ') < 0
+               ? value : Long.toString(packed);
+    }
+
+    // The 13 digits of a valid ISBN-10 or ISBN-13 as a number, or NOT_AN_ISBN; allocates nothing
+    public static long pack(String value) {
+        if (value == null) {
+            return NOT_AN_ISBN;
+        }
+        long digits = 0;
+        int count = 0;
+        int isbn10Sum = 0;
+        int isbn13Sum = 0;
+        boolean tenCheck = false;
+        int start = 0;
+        int end = value.length();
+        while (start < end && value.charAt(start) == ' ') {
+            start++;
+        }
+        while (end > start && value.charAt(end - 1) == ' ') {
+            end--;
+        }
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c == '-' || c == ' ') {
+                if (i == start || i == end - 1) {
+                    return NOT_AN_ISBN;
+                }
+                continue;
+            }
+            int digit;
+            if (c >= '0' && c <= '9') {
+                digit = c - '0';
+            } else if ((c == 'X' || c == 'x') && count == 9 && i == end - 1) {
+                // X is only valid as the ISBN-10 check digit
+                digit = 10;
+                tenCheck = true;
+            } else {
+                return NOT_AN_ISBN;
+            }
+            if (count == 13) {
+                return NOT_AN_ISBN;
+            }
+            isbn10Sum += (10 - count) * digit;
+            isbn13Sum += (count & 1) == 0 ? digit : 3 * digit;
+            digits = digits * 10 + digit;
+            count++;
+        }
+
+        if (count == 10) {
+            if (isbn10Sum % 11 != 0) {
+                return NOT_AN_ISBN;
+            }
+            // Same book as ISBN-13: 978 prefix, the first nine digits, and a new check digit
+            long body = 978_000_000_000L + (tenCheck ? (digits - 10) / 10 : digits / 10);
+            return body * 10 + isbn13CheckDigit(body);
+        }
+        if (count == 13 && !tenCheck) {
+            long prefix = digits / 10_000_000_000L;
+            if ((prefix == 978 || prefix == 979) && isbn13Sum % 10 == 0) {
+                return digits;
+            }
+        }
+        return NOT_AN_ISBN;
+    }
+
+    private static int isbn13CheckDigit(long twelveDigits) {
+        int sum = 0;
+        for (int position = 11; position >= 0; position--) {
+            int digit = (int) (twelveDigits % 10);
+            twelveDigits /= 10;
+            sum += (position & 1) == 0 ? digit : 3 * digit;
+        }
+        return (10 - sum % 10) % 10;
+    }
+}
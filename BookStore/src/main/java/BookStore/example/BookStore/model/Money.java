@@ -0,0 +1,53 @@
+package BookStore.example.BookStore.model;
+
+/**
+ * Money as a long count of cents. Prices, totals and revenue are kept in cents so sums are
+ * exact and need no objects; decimal amounts only appear at the edges (JSON, CSV, logs).
+ */
+public final class Money {
+    // Largest amount whose cents still convert exactly to and from a double
+    private static final double MAX_DECIMAL = (1L << 53) / 100.0;
+
+    private Money() {
+    }
+
+    // Whether ofDecimal accepts the amount
+    public static boolean isInRange(double amount) {
+        return Double.isFinite(amount) && Math.abs(amount) <= MAX_DECIMAL;
+    }
+
+    // Rounds to the nearest cent, which is exact for any decimal with up to two places
+    public static long ofDecimal(double amount) {
+        if (!isInRange(amount)) {
+            throw new IllegalArgumentException("Quantum book store - Amount out of range: " + amount);
+        }
+        return Math.round(amount * 100);
+    }
+
+    public static double toDecimal(long cents) {
+        return cents / 100.0;
+    }
+
+    public static long times(long cents, int quantity) {
+        return Math.multiplyExact(cents, quantity);
+    }
+
+    public static long plus(long cents, long moreCents) {
+        return Math.addExact(cents, moreCents);
+    }
+
+    // "1234.50" style, with no grouping and always two decimals
+    public static String format(long cents) {
+        StringBuilder text = new StringBuilder(24);
+        if (cents < 0) {
+            text.append('-');
+        }
+        long units = Math.abs(cents / 100);
+        int fraction = (int) Math.abs(cents % 100);
+        text.append(units).append('.');
+        if (fraction < 10) {
+            text.append('0');
+        }
+        return text.append(fraction).toString();
+    }
+}
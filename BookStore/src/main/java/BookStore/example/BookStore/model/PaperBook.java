@@ -1,31 +1,124 @@
 package BookStore.example.BookStore.model;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 public class PaperBook extends Book {
-    private int stock;
+    // On-hand copies in the high 32 bits, reserved copies in the low 32 bits,
+    // so both move together in a single CAS
+    private final AtomicLong stockState;
 
     public PaperBook(String isbn, String title, String author, int yearPublished, double price, int stock) {
         super(isbn, title, author, yearPublished, price);
-        this.stock = stock;
+        this.stockState = new AtomicLong(pack(stock, 0));
+    }
+
+    // For subclasses that keep the stock elsewhere and override the stock-state hooks below
+    protected PaperBook(String isbn, String title, String author, int yearPublished, double price) {
+        super(isbn, title, author, yearPublished, price);
+        this.stockState = null;
     }
 
     public int getStock() {
-        return stock;
+        return onHand(loadStockState());
+    }
+
+    // Copies that can still be reserved: on hand minus outstanding reservations
+    public int getAvailableStock() {
+        long state = loadStockState();
+        return onHand(state) - reserved(state);
     }
 
     public void setStock(int stock) {
-        this.stock = stock;
+        while (true) {
+            long current = loadStockState();
+            if (compareAndSetStockState(current, pack(stock, reserved(current)))) {
+                return;
+            }
+        }
     }
 
     public void reduceStock(int quantity) {
-        if (quantity > stock) {
-            throw new IllegalArgumentException("Quantum book store - Insufficient stock. Available: " + stock + ", Requested: " + quantity);
+        if (!tryReserve(quantity)) {
+            throw new IllegalArgumentException("Quantum book store - Insufficient stock. Available: " + getAvailableStock() + ", Requested: " + quantity);
         }
-        this.stock -= quantity;
+        commit(quantity);
+    }
+
+    public boolean tryReserve(int quantity) {
+        requirePositive(quantity);
+        while (true) {
+            long current = loadStockState();
+            int reserved = reserved(current);
+            if (quantity > onHand(current) - reserved) {
+                return false;
+            }
+            if (compareAndSetStockState(current, pack(onHand(current), reserved + quantity))) {
+                return true;
+            }
+        }
+    }
+
+    public void release(int quantity) {
+        requirePositive(quantity);
+        while (true) {
+            long current = loadStockState();
+            int reserved = reserved(current);
+            if (quantity > reserved) {
+                throw new IllegalStateException("Quantum book store - Cannot release " + quantity + " copies, only " + reserved + " reserved");
+            }
+            if (compareAndSetStockState(current, pack(onHand(current), reserved - quantity))) {
+                return;
+            }
+        }
+    }
+
+    // Turns a reservation into a sale: the copies leave both the reserved and on-hand counts.
+    // Returns the on-hand count right after this commit.
+    public int commit(int quantity) {
+        requirePositive(quantity);
+        while (true) {
+            long current = loadStockState();
+            int reserved = reserved(current);
+            if (quantity > reserved) {
+                throw new IllegalStateException("Quantum book store - Cannot commit " + quantity + " copies, only " + reserved + " reserved");
+            }
+            if (compareAndSetStockState(current, pack(onHand(current) - quantity, reserved - quantity))) {
+                return onHand(current) - quantity;
+            }
+        }
+    }
+
+    // A zero or negative quantity would move the counts the wrong way, e.g. reserve by releasing
+    private static void requirePositive(int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantum book store - Quantity must be positive. Requested: " + quantity);
+        }
+    }
+
+    // Stock-state hooks: every stock operation is a CAS loop over this packed value
+    protected long loadStockState() {
+        return stockState.get();
+    }
+
+    protected boolean compareAndSetStockState(long expected, long updated) {
+        return stockState.compareAndSet(expected, updated);
+    }
+
+    protected static long pack(int onHand, int reserved) {
+        return ((long) onHand << 32) | (reserved & 0xFFFFFFFFL);
+    }
+
+    protected static int onHand(long state) {
+        return (int) (state >>> 32);
+    }
+
+    protected static int reserved(long state) {
+        return (int) state;
     }
 
     @Override
     public boolean isAvailableForPurchase() {
-        return stock > 0;
+        return getAvailableStock() > 0;
     }
 
     @Override
@@ -35,6 +128,6 @@ public class PaperBook extends Book {
 
     @Override
     public String toString() {
-        return super.toString() + " - Stock: " + stock;
+        return super.toString() + " - Stock: " + getStock();
     }
-} 
\ No newline at end of file
+} 
@@ -1,7 +1,11 @@
 package BookStore.example.BookStore.model;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 public class ShowcaseBook extends Book {
-    
+    private static final Logger log = LoggerFactory.getLogger(ShowcaseBook.class);
+
     public ShowcaseBook(String isbn, String title, String author, int yearPublished) {
         super(isbn, title, author, yearPublished, 0.0); // Price is 0 for showcase books
     }
@@ -18,7 +22,7 @@ public class ShowcaseBook extends Book {
 
     @Override
     public void setPrice(double price) {
-        System.out.println("Quantum book store - Warning: Cannot set price for showcase books");
+        log.warn("Cannot set price for showcase books");
     }
 
     @Override
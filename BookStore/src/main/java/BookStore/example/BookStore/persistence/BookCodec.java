@@ -0,0 +1,104 @@
+package BookStore.example.BookStore.persistence;
+
+import BookStore.example.BookStore.model.Book;
+import BookStore.example.BookStore.model.EBook;
+import BookStore.example.BookStore.model.Money;
+import BookStore.example.BookStore.model.PaperBook;
+import BookStore.example.BookStore.model.ShowcaseBook;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+// Compact binary form of a book shared by the journal and snapshots. The type tag also fixes
+// the layout: books are written with the price in cents, and the tags of the first format,
+// which held the price as a double, are still read
+final class BookCodec {
+    static final byte PAPER_BOOK = 4;
+    static final byte E_BOOK = 5;
+    static final byte SHOWCASE_BOOK = 6;
+    private static final byte DOUBLE_PRICE_PAPER_BOOK = 1;
+    private static final byte DOUBLE_PRICE_E_BOOK = 2;
+    private static final byte DOUBLE_PRICE_SHOWCASE_BOOK = 3;
+
+    private BookCodec() {
+    }
+
+    static boolean isSupported(Book book) {
+        return book instanceof PaperBook || book instanceof EBook || book instanceof ShowcaseBook;
+    }
+
+    static void write(Book book, DataOutput out) throws IOException {
+        if (book instanceof PaperBook paperBook) {
+            out.writeByte(PAPER_BOOK);
+            writeCommon(book, out);
+            out.writeInt(paperBook.getStock());
+        } else if (book instanceof EBook eBook) {
+            out.writeByte(E_BOOK);
+            writeCommon(book, out);
+            writeString(eBook.getFileType(), out);
+        } else if (book instanceof ShowcaseBook) {
+            out.writeByte(SHOWCASE_BOOK);
+            writeCommon(book, out);
+        } else {
+            throw new IllegalArgumentException("Quantum book store - Cannot persist book type " + book.getBookType());
+        }
+    }
+
+    static Book read(DataInput in) throws IOException {
+        byte type = in.readByte();
+        String isbn = readString(in);
+        String title = readString(in);
+        String author = readString(in);
+        int yearPublished = in.readInt();
+        double price;
+        switch (type) {
+            case PAPER_BOOK, E_BOOK, SHOWCASE_BOOK -> price = cents(in.readLong());
+            case DOUBLE_PRICE_PAPER_BOOK, DOUBLE_PRICE_E_BOOK, DOUBLE_PRICE_SHOWCASE_BOOK -> price = in.readDouble();
+            default -> throw new IOException("Quantum book store - Unknown book type tag " + type);
+        }
+        return switch (type) {
+            case PAPER_BOOK, DOUBLE_PRICE_PAPER_BOOK -> new PaperBook(isbn, title, author, yearPublished, price, in.readInt());
+            case E_BOOK, DOUBLE_PRICE_E_BOOK -> new EBook(isbn, title, author, yearPublished, price, readString(in));
+            default -> new ShowcaseBook(isbn, title, author, yearPublished);
+        };
+    }
+
+    static void writeString(String value, DataOutput out) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeCommon(Book book, DataOutput out) throws IOException {
+        writeString(book.getIsbn(), out);
+        writeString(book.getTitle(), out);
+        writeString(book.getAuthor(), out);
+        out.writeInt(book.getYearPublished());
+        out.writeLong(book.getPriceCents());
+    }
+
+    // Any amount a book can hold converts back to the same cents
+    private static double cents(long priceCents) throws IOException {
+        double price = Money.toDecimal(priceCents);
+        if (!Money.isInRange(price)) {
+            throw new IOException("Quantum book store - Price out of range: " + priceCents + " cents");
+        }
+        return price;
+    }
+}
@@ -0,0 +1,384 @@
+package BookStore.example.BookStore.persistence;
+
+import BookStore.example.BookStore.model.Book;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only inventory log written into pre-sized memory-mapped segment files.
+ * An append is a copy into the mapping under a short lock; a background flusher
+ * forces the dirty range to disk, so one fsync covers every append since the last
+ * (group commit). Appends never wait for the disk. In SYNC mode each append wakes the
+ * flusher and the appender then waits in {@link #awaitDurable} for the flush that covers
+ * it, which it can do after releasing its own locks; in ASYNC mode the flusher runs every
+ * flush interval.
+ *
+ * Record layout: payload length (int), CRC32 of type and payload (int), sequence
+ * number (long), type (byte), payload. A zero length marks the end of a segment.
+ */
+public class InventoryJournal implements AutoCloseable {
+    public enum Durability { ASYNC, SYNC }
+
+    static final byte ADDED = 1;
+    static final byte UPDATED = 2;
+    static final byte REMOVED = 3;
+    static final byte SOLD = 4;
+
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 1;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final Durability durability;
+    private final long flushIntervalNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushWanted = lock.newCondition();
+    private final Condition flushDone = lock.newCondition();
+    private final Thread flusher;
+
+    // Guarded by lock
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private Path segmentPath;
+    private long lastSeq;
+    private long durableSeq;
+    private int flushedPosition;
+    private boolean closed;
+
+    // Starts a fresh segment after lastSeq; earlier segments stay read-only until compacted.
+    // A segment starting past lastSeq is discarded only when it holds no valid record, e.g. one
+    // rolled just before a crash; one that does means recovery stopped short, so opening fails
+    public InventoryJournal(Path directory, long lastSeq, int segmentBytes,
+                            Durability durability, Duration flushInterval) throws IOException {
+        if (segmentBytes <= HEADER_BYTES) {
+            throw new IllegalArgumentException("Quantum book store - Journal segment size too small: " + segmentBytes);
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.durability = durability;
+        this.flushIntervalNanos = Math.max(1, flushInterval.toNanos());
+        this.lastSeq = lastSeq;
+        this.durableSeq = lastSeq;
+        for (Path stale : listSegments(directory)) {
+            if (firstSeq(stale) > lastSeq) {
+                if (holdsRecords(stale)) {
+                    throw new IOException("Quantum book store - Journal segment " + stale.getFileName() +
+                                          " holds entries after " + lastSeq + " that recovery did not reach");
+                }
+                Files.delete(stale);
+            }
+        }
+        openSegment(lastSeq + 1);
+        this.flusher = new Thread(this::flushLoop, "inventory-journal-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    public long appendAdded(Book book) throws IOException {
+        return append(ADDED, encodeBook(book));
+    }
+
+    public long appendUpdated(Book book) throws IOException {
+        return append(UPDATED, encodeBook(book));
+    }
+
+    public long appendRemoved(String isbn) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        BookCodec.writeString(isbn, new DataOutputStream(bytes));
+        return append(REMOVED, bytes.toByteArray());
+    }
+
+    public long appendSold(String isbn, int quantity, int remainingStock) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(40);
+        DataOutputStream out = new DataOutputStream(bytes);
+        BookCodec.writeString(isbn, out);
+        out.writeInt(quantity);
+        out.writeInt(remainingStock);
+        return append(SOLD, bytes.toByteArray());
+    }
+
+    public long getLastSeq() {
+        lock.lock();
+        try {
+            return lastSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Blocks until the record with this sequence number is on disk or the journal is closed.
+    // Waits on a lock condition, so a virtual thread waiting here leaves its carrier free
+    public void awaitDurable(long seq) {
+        lock.lock();
+        try {
+            if (durableSeq < seq) {
+                flushWanted.signal();
+            }
+            while (durableSeq < seq && !closed) {
+                flushDone.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    public long getDurableSeq() {
+        lock.lock();
+        try {
+            return durableSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Drops closed segments whose every record is at or below seq, i.e. already in a snapshot
+    public void deleteSegmentsCoveredBy(long seq) throws IOException {
+        Path active;
+        lock.lock();
+        try {
+            active = segmentPath;
+        } finally {
+            lock.unlock();
+        }
+        List<Path> segments = listSegments(directory);
+        for (int i = 0; i + 1 < segments.size(); i++) {
+            Path current = segments.get(i);
+            if (current.equals(active) || firstSeq(segments.get(i + 1)) > seq + 1) {
+                break;
+            }
+            Files.deleteIfExists(current);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            closed = true;
+            flushWanted.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        lock.lock();
+        try {
+            segment.force();
+            durableSeq = lastSeq;
+            flushDone.signalAll();
+            channel.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads every valid record with a sequence number above afterSeq, oldest first,
+     * and returns the highest sequence number found. A torn or corrupt record ends its
+     * segment only: it is the tail of an interrupted write, and the journal reopened
+     * after it continued in a new segment from the last good record. Reading stops
+     * altogether at a gap in the sequence, since records in between were lost.
+     */
+    static long replay(Path directory, long afterSeq, Consumer<JournalRecord> handler) throws IOException {
+        long lastSeq = afterSeq;
+        for (Path path : listSegments(directory)) {
+            try (FileChannel readChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, readChannel.size());
+                while (buffer.remaining() >= HEADER_BYTES) {
+                    int length = buffer.getInt();
+                    if (length <= 0 || length > buffer.remaining() - (HEADER_BYTES - 4)) {
+                        break;
+                    }
+                    int crc = buffer.getInt();
+                    long seq = buffer.getLong();
+                    byte type = buffer.get();
+                    byte[] payload = new byte[length];
+                    buffer.get(payload);
+                    if (crc != checksum(type, payload)) {
+                        break;
+                    }
+                    if (seq > lastSeq + 1) {
+                        return lastSeq;
+                    }
+                    if (seq > lastSeq) {
+                        handler.accept(decode(seq, type, payload));
+                        lastSeq = seq;
+                    }
+                }
+            }
+        }
+        return lastSeq;
+    }
+
+    private long append(byte type, byte[] payload) throws IOException {
+        int recordBytes = HEADER_BYTES + payload.length;
+        if (recordBytes > segmentBytes) {
+            throw new IllegalArgumentException("Quantum book store - Journal record of " + recordBytes +
+                                               " bytes exceeds segment size " + segmentBytes);
+        }
+        int crc = checksum(type, payload);
+
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Quantum book store - Journal is closed");
+            }
+            if (segment.remaining() < recordBytes) {
+                rollSegment();
+            }
+            long seq = ++lastSeq;
+            segment.putInt(payload.length).putInt(crc).putLong(seq).put(type).put(payload);
+            if (durability == Durability.SYNC) {
+                flushWanted.signal();
+            }
+            return seq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            MappedByteBuffer target;
+            int from;
+            int to;
+            long seq;
+            lock.lock();
+            try {
+                if (!closed && durableSeq == lastSeq) {
+                    flushWanted.awaitNanos(flushIntervalNanos);
+                }
+                if (closed) {
+                    return;
+                }
+                if (durableSeq == lastSeq) {
+                    continue;
+                }
+                target = segment;
+                from = flushedPosition;
+                to = segment.position();
+                seq = lastSeq;
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            // The expensive part runs outside the lock so appends keep flowing
+            target.force(from, to - from);
+
+            lock.lock();
+            try {
+                if (target == segment) {
+                    flushedPosition = Math.max(flushedPosition, to);
+                }
+                durableSeq = Math.max(durableSeq, seq);
+                flushDone.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Called with the lock held
+    private void rollSegment() throws IOException {
+        segment.force();
+        durableSeq = lastSeq;
+        flushDone.signalAll();
+        channel.close();
+        openSegment(lastSeq + 1);
+    }
+
+    private void openSegment(long firstSeq) throws IOException {
+        segmentPath = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSeq, SEGMENT_SUFFIX));
+        channel = FileChannel.open(segmentPath, StandardOpenOption.CREATE_NEW,
+                                   StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        flushedPosition = 0;
+    }
+
+    private static List<Path> listSegments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> segments = new ArrayList<>();
+            files.filter(path -> {
+                     String name = path.getFileName().toString();
+                     return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                 })
+                 .sorted()
+                 .forEach(segments::add);
+            return segments;
+        }
+    }
+
+    // Whether the segment starts with a record that passes its checksum
+    private static boolean holdsRecords(Path segment) throws IOException {
+        try (FileChannel readChannel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, readChannel.size());
+            if (buffer.remaining() < HEADER_BYTES) {
+                return false;
+            }
+            int length = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining() - (HEADER_BYTES - 4)) {
+                return false;
+            }
+            int crc = buffer.getInt();
+            buffer.getLong();
+            byte type = buffer.get();
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            return crc == checksum(type, payload);
+        }
+    }
+
+    private static long firstSeq(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static byte[] encodeBook(Book book) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        BookCodec.write(book, new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+
+    private static JournalRecord decode(long seq, byte type, byte[] payload) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+            return switch (type) {
+                case ADDED, UPDATED -> new JournalRecord(seq, type, BookCodec.read(in), null, 0, 0);
+                case REMOVED -> new JournalRecord(seq, type, null, BookCodec.readString(in), 0, 0);
+                case SOLD -> new JournalRecord(seq, type, null, BookCodec.readString(in), in.readInt(), in.readInt());
+                default -> throw new IOException("Quantum book store - Unknown journal record type " + type);
+            };
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int checksum(byte type, byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,229 @@
+package BookStore.example.BookStore.persistence;
+
+import BookStore.example.BookStore.model.Book;
+import BookStore.example.BookStore.model.PaperBook;
+import BookStore.example.BookStore.service.BookStore;
+import BookStore.example.BookStore.service.InventoryListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Makes a BookStore's inventory survive restarts. On start the latest snapshot is
+ * loaded and the journal tail replayed into the store; from then on every add,
+ * update, removal and sale is journaled, and a periodic snapshot lets old journal
+ * segments be deleted.
+ *
+ * Snapshots are taken without pausing the store, so one may already contain sales
+ * that the journal replays again on top of it. Sale records therefore carry the
+ * stock left afterwards rather than a delta, and replay only ever lowers stock to
+ * that value, which makes replaying them idempotent. The store only reports a sale while
+ * the sold book is still stored, so a sale of a book that was replaced is never journaled
+ * after its replacement and cannot lower the new book's stock. A journaled change only becomes
+ * visible when the store's compute call returns, so the snapshot's sequence number is
+ * the last entry before any change still in flight; later entries are kept and replayed.
+ *
+ * Changes are journaled while the store holds the ISBN's map entry, which keeps the journal
+ * in the same order as the map. In SYNC mode the wait for the disk comes afterwards, in
+ * bookChanged, once that entry is released: an fsync inside the map's lock would hold up
+ * every writer hashing to the same bin, and on JDKs before 24 pin a virtual thread to its
+ * carrier. Other threads may read a change before it is durable, but any change that builds
+ * on it is journaled later and its writer waits for a later flush.
+ */
+public class InventoryPersistence implements InventoryListener, AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(InventoryPersistence.class);
+
+    private final Path directory;
+    private final BookStore bookStore;
+    private final InventoryJournal journal;
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+    // Last record this thread journaled and has not yet waited for, in SYNC mode
+    private final ThreadLocal<long[]> unsyncedSeq = ThreadLocal.withInitial(() -> new long[1]);
+    // Journal position each writer saw before appending, until its change is visible in bookChanged
+    private final ConcurrentMap<Thread, Long> inFlight = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService snapshotScheduler;
+
+    public InventoryPersistence(Path directory, BookStore bookStore, int segmentBytes,
+                                InventoryJournal.Durability durability, Duration flushInterval,
+                                Duration snapshotInterval) throws IOException {
+        this.directory = directory;
+        this.bookStore = bookStore;
+        Files.createDirectories(directory);
+
+        long started = System.nanoTime();
+        Map<String, Book> books = new LinkedHashMap<>();
+        long lastSeq = recover(directory, books);
+        bookStore.restoreInventory(new ArrayList<>(books.values()));
+        log.info("Recovered inventory up to journal entry {} in {} ms", lastSeq,
+                 TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+
+        this.journal = new InventoryJournal(directory, lastSeq, segmentBytes, durability, flushInterval);
+        bookStore.addInventoryListener(this);
+
+        if (snapshotInterval.isZero() || snapshotInterval.isNegative()) {
+            this.snapshotScheduler = null;
+        } else {
+            this.snapshotScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "inventory-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long periodMillis = snapshotInterval.toMillis();
+            snapshotScheduler.scheduleWithFixedDelay(this::scheduledSnapshot, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Rebuilds the inventory from the newest snapshot plus the journal entries after it
+    static long recover(Path directory, Map<String, Book> books) throws IOException {
+        SnapshotStore.Snapshot snapshot = SnapshotStore.readLatest(directory);
+        long snapshotSeq = 0;
+        if (snapshot != null) {
+            snapshotSeq = snapshot.seq;
+            for (Book book : snapshot.books) {
+                books.put(book.getIsbn(), book);
+            }
+        }
+        return InventoryJournal.replay(directory, snapshotSeq, record -> {
+            switch (record.type) {
+                case InventoryJournal.ADDED, InventoryJournal.UPDATED -> books.put(record.book.getIsbn(), record.book);
+                case InventoryJournal.REMOVED -> books.remove(record.isbn);
+                case InventoryJournal.SOLD -> {
+                    if (books.get(record.isbn) instanceof PaperBook paperBook) {
+                        paperBook.setStock(Math.min(paperBook.getStock(), record.remainingStock));
+                    }
+                }
+                default -> { }
+            }
+        });
+    }
+
+    // Writes a snapshot of the live inventory and drops the files it supersedes
+    public int snapshot() throws IOException {
+        snapshotLock.lock();
+        try {
+            // Every entry up to seq is visible in the books copied below. A writer registers before it
+            // appends, so one still in flight has a sequence number above its registered position
+            long seq = journal.getLastSeq();
+            for (long position : inFlight.values()) {
+                seq = Math.min(seq, position);
+            }
+            int written = SnapshotStore.write(directory, seq, bookStore.getAllBooks());
+            SnapshotStore.deleteOlderThan(directory, seq);
+            journal.deleteSegmentsCoveredBy(seq);
+            return written;
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    public long getLastSeq() {
+        return journal.getLastSeq();
+    }
+
+    public long getDurableSeq() {
+        return journal.getDurableSeq();
+    }
+
+    @Override
+    public void bookAdded(Book book) {
+        if (isPersistable(book)) {
+            journal(() -> journal.appendAdded(book));
+        }
+    }
+
+    @Override
+    public void bookUpdated(Book oldBook, Book newBook) {
+        if (isPersistable(newBook)) {
+            journal(() -> journal.appendUpdated(newBook));
+        } else if (BookCodec.isSupported(oldBook)) {
+            journal(() -> journal.appendRemoved(oldBook.getIsbn()));
+        }
+    }
+
+    @Override
+    public void bookRemoved(Book book) {
+        if (BookCodec.isSupported(book)) {
+            journal(() -> journal.appendRemoved(book.getIsbn()));
+        }
+    }
+
+    @Override
+    public void stockSold(PaperBook book, int quantity, int remainingStock) {
+        journal(() -> journal.appendSold(book.getIsbn(), quantity, remainingStock));
+    }
+
+    @Override
+    public void bookChanged(String isbn) {
+        inFlight.remove(Thread.currentThread());
+        long[] pending = unsyncedSeq.get();
+        if (pending[0] != 0) {
+            long seq = pending[0];
+            pending[0] = 0;
+            journal.awaitDurable(seq);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        bookStore.removeInventoryListener(this);
+        if (snapshotScheduler != null) {
+            snapshotScheduler.shutdownNow();
+        }
+        journal.close();
+    }
+
+    private void scheduledSnapshot() {
+        try {
+            int written = snapshot();
+            log.info("Inventory snapshot written with {} book(s)", written);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Inventory snapshot failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private static boolean isPersistable(Book book) {
+        if (BookCodec.isSupported(book)) {
+            return true;
+        }
+        log.warn("Book type {} is not persisted: {}", book.getBookType(), book.getIsbn());
+        return false;
+    }
+
+    private interface JournalWrite {
+        long run() throws IOException;
+    }
+
+    // A failed write propagates out of the store's compute call, so the change is not applied.
+    // A thread makes one change at a time, so its next write replaces a registration that an
+    // aborted change left behind
+    private void journal(JournalWrite write) {
+        Thread writer = Thread.currentThread();
+        inFlight.put(writer, journal.getLastSeq());
+        try {
+            long seq = write.run();
+            if (journal.getDurability() == InventoryJournal.Durability.SYNC) {
+                unsyncedSeq.get()[0] = seq;
+            }
+        } catch (IOException e) {
+            inFlight.remove(writer);
+            throw new UncheckedIOException("Quantum book store - Could not journal inventory change", e);
+        } catch (RuntimeException e) {
+            inFlight.remove(writer);
+            throw e;
+        }
+    }
+}
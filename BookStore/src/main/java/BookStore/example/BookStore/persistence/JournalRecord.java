@@ -0,0 +1,22 @@
+package BookStore.example.BookStore.persistence;
+
+import BookStore.example.BookStore.model.Book;
+
+// One decoded journal entry; which fields are set depends on the type
+final class JournalRecord {
+    final long seq;
+    final byte type;
+    final Book book;
+    final String isbn;
+    final int quantity;
+    final int remainingStock;
+
+    JournalRecord(long seq, byte type, Book book, String isbn, int quantity, int remainingStock) {
+        this.seq = seq;
+        this.type = type;
+        this.book = book;
+        this.isbn = isbn;
+        this.quantity = quantity;
+        this.remainingStock = remainingStock;
+    }
+}
@@ -0,0 +1,150 @@
+package BookStore.example.BookStore.persistence;
+
+import BookStore.example.BookStore.model.Book;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Point-in-time copies of the inventory, named after the last journal sequence
+ * number they include. A snapshot is written to a temporary file, fsynced and
+ * atomically renamed, so a crash never leaves a half-written snapshot visible.
+ */
+final class SnapshotStore {
+    private static final Logger log = LoggerFactory.getLogger(SnapshotStore.class);
+    private static final int MAGIC = 0x51425354;
+    // Version 2 writes prices in cents; version 1 snapshots are still read
+    private static final int VERSION = 2;
+    private static final int FIRST_VERSION = 1;
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+
+    static final class Snapshot {
+        final long seq;
+        final List<Book> books;
+
+        Snapshot(long seq, List<Book> books) {
+            this.seq = seq;
+            this.books = books;
+        }
+    }
+
+    private SnapshotStore() {
+    }
+
+    static int write(Path directory, long seq, Collection<Book> books) throws IOException {
+        Path target = directory.resolve(String.format("%s%020d%s", PREFIX, seq, SUFFIX));
+        Path temporary = directory.resolve(target.getFileName() + ".tmp");
+        int written = 0;
+        try (FileOutputStream file = new FileOutputStream(temporary.toFile())) {
+            CRC32 crc = new CRC32();
+            DataOutputStream out = new DataOutputStream(
+                    new CheckedOutputStream(new BufferedOutputStream(file, 1 << 16), crc));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(seq);
+            for (Book book : books) {
+                if (BookCodec.isSupported(book)) {
+                    out.writeBoolean(true);
+                    BookCodec.write(book, out);
+                    written++;
+                }
+            }
+            out.writeBoolean(false);
+            out.writeInt(written);
+            out.flush();
+            new DataOutputStream(file).writeInt((int) crc.getValue());
+            file.getFD().sync();
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return written;
+    }
+
+    // Newest snapshot that passes its checksum, or null when there is none
+    static Snapshot readLatest(Path directory) throws IOException {
+        List<Path> snapshots = list(directory);
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            Snapshot snapshot = read(snapshots.get(i));
+            if (snapshot != null) {
+                return snapshot;
+            }
+            log.warn("Skipping corrupt snapshot {}", snapshots.get(i).getFileName());
+        }
+        return null;
+    }
+
+    static void deleteOlderThan(Path directory, long seq) throws IOException {
+        for (Path snapshot : list(directory)) {
+            if (seqOf(snapshot) < seq) {
+                Files.deleteIfExists(snapshot);
+            }
+        }
+    }
+
+    // The checksum is verified before decoding, so a damaged file is never half-trusted
+    private static Snapshot read(Path path) throws IOException {
+        long size = Files.size(path);
+        if (size < 4 + 4 + 8 + 1 + 4 + 4 || !checksumMatches(path, size - 4)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            if (in.readInt() != MAGIC) {
+                return null;
+            }
+            int version = in.readInt();
+            if (version != VERSION && version != FIRST_VERSION) {
+                return null;
+            }
+            long seq = in.readLong();
+            List<Book> books = new ArrayList<>();
+            while (in.readBoolean()) {
+                books.add(BookCodec.read(in));
+            }
+            return in.readInt() == books.size() ? new Snapshot(seq, books) : null;
+        }
+    }
+
+    private static boolean checksumMatches(Path path, long contentBytes) throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream file = new BufferedInputStream(Files.newInputStream(path), 1 << 16)) {
+            CheckedInputStream content = new CheckedInputStream(file, crc);
+            byte[] buffer = new byte[1 << 16];
+            long remaining = contentBytes;
+            while (remaining > 0) {
+                int read = content.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) {
+                    return false;
+                }
+                remaining -= read;
+            }
+            return new DataInputStream(file).readInt() == (int) crc.getValue();
+        }
+    }
+
+    private static List<Path> list(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> snapshots = new ArrayList<>();
+            files.filter(path -> {
+                     String name = path.getFileName().toString();
+                     return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                 })
+                 .sorted()
+                 .forEach(snapshots::add);
+            return snapshots;
+        }
+    }
+
+    private static long seqOf(Path snapshot) {
+        String name = snapshot.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+}
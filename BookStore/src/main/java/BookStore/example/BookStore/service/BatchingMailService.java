@@ -0,0 +1,126 @@
+package BookStore.example.BookStore.service;
+
+import BookStore.example.BookStore.model.EBook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * MailService decorator that coalesces deliveries per recipient. E-books for the
+ * same address are held for up to {@code window} or until {@code maxBatchSize}
+ * lines are pending, then go out as one {@link MailService#sendEBooks} message.
+ * A line carries its copy count, so a large quantity is one pending entry.
+ *
+ * {@link #sendEBooks} returns once the lines are queued. {@link #sendEBooksAsync} returns a
+ * future that completes when their batch has been sent, or fails with the delegate's error,
+ * so a caller such as {@link FulfilmentPipeline} can retry a failed send.
+ */
+public class BatchingMailService implements MailService, AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(BatchingMailService.class);
+    private final MailService delegate;
+    private final CoalescingBuffer<PendingMail> buffer;
+    private final LongAdder messagesSent = new LongAdder();
+    private final LongAdder booksSent = new LongAdder();
+    private final LongAdder failedMessages = new LongAdder();
+
+    public BatchingMailService(Duration window, int maxBatchSize) {
+        this(new MailServiceImpl(), window, maxBatchSize);
+    }
+
+    public BatchingMailService(MailService delegate, Duration window, int maxBatchSize) {
+        this.delegate = delegate;
+        this.buffer = new CoalescingBuffer<>("mail-batch", window, maxBatchSize, this::deliver);
+    }
+
+    @Override
+    public void sendEBook(EBook book, String email) {
+        sendEBooks(List.of(new DeliveryLine(book, 1)), email);
+    }
+
+    @Override
+    public void sendEBooks(List<DeliveryLine> lines, String email) {
+        enqueue(lines, email, null);
+    }
+
+    @Override
+    public CompletableFuture<Void> sendEBooksAsync(List<DeliveryLine> lines, String email) {
+        CompletableFuture<Void> sent = new CompletableFuture<>();
+        enqueue(lines, email, sent);
+        return sent;
+    }
+
+    // Sends whatever is still pending, e.g. on shutdown
+    public void flush() {
+        buffer.flush();
+    }
+
+    public long getMessagesSent() {
+        return messagesSent.sum();
+    }
+
+    public long getBooksSent() {
+        return booksSent.sum();
+    }
+
+    public long getFailedMessages() {
+        return failedMessages.sum();
+    }
+
+    @Override
+    public void close() {
+        buffer.close();
+    }
+
+    // Every line of one call shares its future, which is null when nobody waits for the outcome
+    private void enqueue(List<DeliveryLine> lines, String email, CompletableFuture<Void> sent) {
+        List<PendingMail> pending = new ArrayList<>(lines.size());
+        for (DeliveryLine line : lines) {
+            pending.add(new PendingMail(line, sent));
+        }
+        buffer.add(email, pending);
+    }
+
+    private void deliver(String email, List<PendingMail> pending) {
+        List<DeliveryLine> lines = new ArrayList<>(pending.size());
+        long copies = 0;
+        for (PendingMail mail : pending) {
+            lines.add(mail.line);
+            copies += mail.line.getQuantity();
+        }
+        RuntimeException failure = null;
+        try {
+            delegate.sendEBooks(lines, email);
+            messagesSent.increment();
+            booksSent.add(copies);
+        } catch (RuntimeException e) {
+            failure = e;
+            failedMessages.increment();
+            log.warn("Failed to send {} ebook(s) to {}: {}", copies, email, e.getMessage());
+        }
+        for (PendingMail mail : pending) {
+            if (mail.sent == null) {
+                continue;
+            }
+            if (failure == null) {
+                mail.sent.complete(null);
+            } else {
+                mail.sent.completeExceptionally(failure);
+            }
+        }
+    }
+
+    private static final class PendingMail {
+        private final DeliveryLine line;
+        private final CompletableFuture<Void> sent;
+
+        PendingMail(DeliveryLine line, CompletableFuture<Void> sent) {
+            this.line = line;
+            this.sent = sent;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package BookStore.example.BookStore.service;
+
+import BookStore.example.BookStore.model.Book;
+import BookStore.example.BookStore.model.EBook;
+import BookStore.example.BookStore.model.PaperBook;
+
+import java.util.*;
+
+/**
+ * Builds sparse views of books for the {@code fields=} listing parameter,
+ * reading only the requested getters. Fields that do not apply to a book
+ * type (stock on an EBook, for example) are left out of that book's view.
+ */
+public final class BookProjection {
+    public static final Set<String> FIELDS = Set.of(
+            "isbn", "title", "author", "yearPublished", "price", "priceCents", "bookType",
+            "availableForPurchase", "stock", "availableStock", "fileType");
+
+    private BookProjection() {
+    }
+
+    public static Set<String> parseFields(String fields) {
+        Set<String> parsed = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!FIELDS.contains(name)) {
+                throw new IllegalArgumentException("Quantum book store - Unknown field: " + name);
+            }
+            parsed.add(name);
+        }
+        return parsed;
+    }
+
+    public static Map<String, Object> project(Book book, Set<String> fields) {
+        Map<String, Object> view = new LinkedHashMap<>();
+        for (String field : fields) {
+            switch (field) {
+                case "isbn" -> view.put(field, book.getIsbn());
+                case "title" -> view.put(field, book.getTitle());
+                case "author" -> view.put(field, book.getAuthor());
+                case "yearPublished" -> view.put(field, book.getYearPublished());
+                case "price" -> view.put(field, book.getPrice());
+                case "priceCents" -> view.put(field, book.getPriceCents());
+                case "bookType" -> view.put(field, book.getBookType());
+                case "availableForPurchase" -> view.put(field, book.isAvailableForPurchase());
+                case "stock" -> {
+                    if (book instanceof PaperBook paperBook) {
+                        view.put(field, paperBook.getStock());
+                    }
+                }
+                case "availableStock" -> {
+                    if (book instanceof PaperBook paperBook) {
+                        view.put(field, paperBook.getAvailableStock());
+                    }
+                }
+                case "fileType" -> {
+                    if (book instanceof EBook eBook) {
+                        view.put(field, eBook.getFileType());
+                    }
+                }
+                default -> throw new IllegalArgumentException("Quantum book store - Unknown field: " + field);
+            }
+        }
+        return view;
+    }
+}
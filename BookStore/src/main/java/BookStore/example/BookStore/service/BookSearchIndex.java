@@ -0,0 +1,237 @@
+package BookStore.example.BookStore.service;
+
+import BookStore.example.BookStore.model.Book;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over book titles, authors and ISBNs, with secondary
+ * indexes by book type and publication year. Query tokens match indexed tokens
+ * by prefix, so "clea co" finds "Clean Code".
+ */
+public class BookSearchIndex {
+    private static final int TITLE_EXACT = 8;
+    private static final int TITLE_PREFIX = 4;
+    private static final int AUTHOR_EXACT = 3;
+    private static final int AUTHOR_PREFIX = 2;
+    private static final int ISBN_PREFIX = 1;
+    private static final Pattern TOKEN_SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final Map<String, Book> inventory;
+    // The book each ISBN was last indexed as, so updates can unindex the old tokens
+    private final ConcurrentMap<String, Book> indexed = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<String, Set<String>> titleTokens = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<String, Set<String>> authorTokens = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<String, Set<String>> isbnTokens = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<String, Set<String>> byType = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Integer, Set<String>> byYear = new ConcurrentSkipListMap<>();
+
+    public BookSearchIndex(Map<String, Book> inventory) {
+        this.inventory = inventory;
+    }
+
+    // Re-reads the live entry so the last refresh for an ISBN always wins, whatever order writers race in
+    public void refresh(String isbn) {
+        indexed.compute(isbn, (key, old) -> {
+            Book current = inventory.get(key);
+            if (Objects.equals(old, current)) {
+                return old;
+            }
+            if (old != null) {
+                unindex(old);
+            }
+            if (current == null) {
+                return null;
+            }
+            for (String token : tokenize(current.getTitle())) {
+                add(titleTokens, token, key);
+            }
+            for (String token : tokenize(current.getAuthor())) {
+                add(authorTokens, token, key);
+            }
+            for (String token : isbnTokens(key)) {
+                add(isbnTokens, token, key);
+            }
+            add(byType, current.getBookType(), key);
+            add(byYear, current.getYearPublished(), key);
+            return current;
+        });
+    }
+
+    // One ranked match; ShardedBookStore merges shard rankings in ORDER
+    record Hit(Book book, int score) {
+    }
+
+    // The best matches, up to the requested limit, and how many matched in all
+    record Ranking(List<Hit> top, int total) {
+    }
+
+    static final Comparator<Hit> ORDER = Comparator.comparingInt(Hit::score).reversed()
+                                                   .thenComparing(hit -> hit.book().getTitle(), String.CASE_INSENSITIVE_ORDER)
+                                                   .thenComparing(hit -> hit.book().getIsbn());
+
+    public SearchResults search(String query, String bookType, Integer yearFrom, Integer yearTo, int page, int size) {
+        if (page < 0 || size <= 0) {
+            throw new IllegalArgumentException("Quantum book store - Invalid page request: page " + page + ", size " + size);
+        }
+        Ranking ranking = rank(query, bookType, yearFrom, yearTo, (int) Math.min((long) (page + 1) * size, Integer.MAX_VALUE));
+        return page(ranking.top(), ranking.total(), page, size);
+    }
+
+    static SearchResults page(List<Hit> ranked, int total, int page, int size) {
+        int from = (int) Math.min((long) page * size, ranked.size());
+        int to = Math.min(from + size, ranked.size());
+        List<Book> results = new ArrayList<>(to - from);
+        for (Hit hit : ranked.subList(from, to)) {
+            results.add(hit.book());
+        }
+        return new SearchResults(results, total, page, size);
+    }
+
+    // A query without terms matches every indexed book with score 0. Only the best limit hits
+    // are kept, in a heap headed by the worst of them, so a large match set is never sorted
+    Ranking rank(String query, String bookType, Integer yearFrom, Integer yearTo, int limit) {
+        List<String> queryTokens = tokenize(query);
+        Map<String, Integer> scores = queryTokens.isEmpty() ? null : new HashMap<>();
+
+        if (scores != null) {
+            for (int i = 0; i < queryTokens.size(); i++) {
+                Map<String, Integer> tokenScores = scoreToken(queryTokens.get(i));
+                if (i == 0) {
+                    scores.putAll(tokenScores);
+                } else {
+                    // Every query token has to match somewhere
+                    scores.keySet().retainAll(tokenScores.keySet());
+                    tokenScores.forEach((isbn, score) -> scores.computeIfPresent(isbn, (k, total) -> total + score));
+                }
+                if (scores.isEmpty()) {
+                    break;
+                }
+            }
+        }
+
+        // Filters test the book as indexed, as the type and year indexes would
+        String type = bookType != null && !bookType.isBlank() ? bookType : null;
+        int from = yearFrom != null ? yearFrom : Integer.MIN_VALUE;
+        int to = yearTo != null ? yearTo : Integer.MAX_VALUE;
+        Set<String> candidates = scores != null ? scores.keySet()
+                                 : type != null ? byType.getOrDefault(type, Collections.emptySet())
+                                 : indexed.keySet();
+        PriorityQueue<Hit> top = new PriorityQueue<>(ORDER.reversed());
+        int total = 0;
+        for (String isbn : candidates) {
+            Book indexedAs = indexed.get(isbn);
+            if (indexedAs == null || (type != null && !type.equals(indexedAs.getBookType()))
+                || indexedAs.getYearPublished() < from || indexedAs.getYearPublished() > to) {
+                continue;
+            }
+            Book book = inventory.get(isbn);
+            if (book == null) {
+                continue;
+            }
+            total++;
+            Hit hit = new Hit(book, scores != null ? scores.get(isbn) : 0);
+            if (top.size() < limit) {
+                top.add(hit);
+            } else if (ORDER.compare(hit, top.peek()) < 0) {
+                top.poll();
+                top.add(hit);
+            }
+        }
+        List<Hit> ranked = new ArrayList<>(top);
+        ranked.sort(ORDER);
+        return new Ranking(ranked, total);
+    }
+
+    // Candidates for an outdated purge; callers re-check the live book since the index may lag a writer
+    public List<String> isbnsPublishedBefore(int year) {
+        List<String> isbns = new ArrayList<>();
+        for (Set<String> bucket : byYear.headMap(year, false).values()) {
+            isbns.addAll(bucket);
+        }
+        return isbns;
+    }
+
+    private Map<String, Integer> scoreToken(String token) {
+        Map<String, Integer> scores = new HashMap<>();
+        scorePrefix(titleTokens, token, TITLE_EXACT, TITLE_PREFIX, scores);
+        scorePrefix(authorTokens, token, AUTHOR_EXACT, AUTHOR_PREFIX, scores);
+        scorePrefix(isbnTokens, token, ISBN_PREFIX, ISBN_PREFIX, scores);
+        return scores;
+    }
+
+    // A token contributes its best match per field, not one point per matching word
+    private static void scorePrefix(ConcurrentSkipListMap<String, Set<String>> tokens, String prefix,
+                                    int exactScore, int prefixScore, Map<String, Integer> scores) {
+        Map<String, Integer> fieldScores = new HashMap<>();
+        for (Map.Entry<String, Set<String>> entry : tokens.subMap(prefix, true, prefix + Character.MAX_VALUE, false).entrySet()) {
+            int score = entry.getKey().equals(prefix) ? exactScore : prefixScore;
+            for (String isbn : entry.getValue()) {
+                fieldScores.merge(isbn, score, Math::max);
+            }
+        }
+        fieldScores.forEach((isbn, score) -> scores.merge(isbn, score, Integer::sum));
+    }
+
+    private void unindex(Book book) {
+        String key = book.getIsbn();
+        for (String token : tokenize(book.getTitle())) {
+            remove(titleTokens, token, key);
+        }
+        for (String token : tokenize(book.getAuthor())) {
+            remove(authorTokens, token, key);
+        }
+        for (String token : isbnTokens(key)) {
+            remove(isbnTokens, token, key);
+        }
+        remove(byType, book.getBookType(), key);
+        remove(byYear, book.getYearPublished(), key);
+    }
+
+    private static <K> void add(ConcurrentMap<K, Set<String>> index, K key, String isbn) {
+        index.compute(key, (k, isbns) -> {
+            Set<String> result = isbns != null ? isbns : new ConcurrentSkipListSet<>();
+            result.add(isbn);
+            return result;
+        });
+    }
+
+    private static <K> void remove(ConcurrentMap<K, Set<String>> index, K key, String isbn) {
+        index.computeIfPresent(key, (k, isbns) -> {
+            isbns.remove(isbn);
+            return isbns.isEmpty() ? null : isbns;
+        });
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : TOKEN_SEPARATORS.split(normalize(text))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    // Both the separated parts and the compact form, so "978-0-13" and "978013" both match
+    private static List<String> isbnTokens(String isbn) {
+        List<String> tokens = tokenize(isbn);
+        String compact = String.join("", tokens);
+        if (tokens.size() > 1) {
+            tokens.add(compact);
+        }
+        return tokens;
+    }
+
+    private static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+}
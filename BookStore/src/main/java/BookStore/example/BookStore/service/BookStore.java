@@ -3,115 +3,474 @@ package BookStore.example.BookStore.service;
 import BookStore.example.BookStore.model.Book;
 import BookStore.example.BookStore.model.PaperBook;
 import BookStore.example.BookStore.model.EBook;
+import BookStore.example.BookStore.model.Isbn;
+import BookStore.example.BookStore.model.Money;
 import BookStore.example.BookStore.model.ShowcaseBook;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import java.time.Year;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class BookStore {
-    private Map<String, Book> inventory;
-    private ShippingService shippingService;
-    private MailService mailService;
+    private static final Logger log = LoggerFactory.getLogger(BookStore.class);
+
+    private final ConcurrentMap<String, Book> inventory;
+    private final BookSearchIndex searchIndex;
+    // ISBNs in sort order for keyset pagination; may briefly hold a removed ISBN, never miss a live one
+    private final ConcurrentSkipListSet<String> isbnOrder;
+    private final FulfilmentService fulfilment;
+    private final List<InventoryListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile PurchaseMetrics purchaseMetrics = PurchaseMetrics.NONE;
 
     public BookStore() {
-        this.inventory = new HashMap<>();
-        this.shippingService = new ShippingServiceImpl();
-        this.mailService = new MailServiceImpl();
+        this(new ShippingServiceImpl(), new MailServiceImpl());
     }
 
     // Constructor with dependency injection for testing
     public BookStore(ShippingService shippingService, MailService mailService) {
-        this.inventory = new HashMap<>();
-        this.shippingService = shippingService;
-        this.mailService = mailService;
+        this(new DirectFulfilmentService(shippingService, mailService));
+    }
+
+    public BookStore(FulfilmentService fulfilment) {
+        this(fulfilment, new ConcurrentHashMap<>());
+    }
+
+    // The inventory map is the storage mode, e.g. a ColumnarInventory for large catalogs. It has to
+    // run compute functions atomically per ISBN, since listeners are notified inside them
+    public BookStore(FulfilmentService fulfilment, ConcurrentMap<String, Book> inventory) {
+        this.inventory = inventory;
+        this.searchIndex = new BookSearchIndex(inventory);
+        this.isbnOrder = new ConcurrentSkipListSet<>();
+        this.fulfilment = fulfilment;
     }
 
     public void addBook(Book book) {
-        if (inventory.containsKey(book.getIsbn())) {
-            Book existingBook = inventory.get(book.getIsbn());
-            System.out.println("Quantum book store - Warning: Book with ISBN " + book.getIsbn() + 
-                             " already exists in inventory!");
-            System.out.println("Quantum book store - Existing: " + existingBook);
-            System.out.println("Quantum book store - New book not added: " + book);
+        Book[] existing = new Book[1];
+        inventory.compute(book.getIsbn(), (isbn, current) -> {
+            if (current != null) {
+                existing[0] = current;
+                return current;
+            }
+            for (InventoryListener listener : listeners) {
+                listener.bookAdded(book);
+            }
+            return book;
+        });
+        Book existingBook = existing[0];
+        if (existingBook != null) {
+            log.warn("Book with ISBN {} already exists in inventory! Existing: {} New book not added: {}",
+                     book.getIsbn(), existingBook, book);
             return;
         }
-        
-        inventory.put(book.getIsbn(), book);
-        System.out.println("Quantum book store - Added to inventory: " + book);
+
+        isbnOrder.add(book.getIsbn());
+        searchIndex.refresh(book.getIsbn());
+        changed(book.getIsbn());
+        log.info("Added to inventory: {}", book);
+    }
+
+    // Bulk form of addBook for imports: same duplicate rule, one log line for the whole batch.
+    // Returns the books that were skipped because their ISBN is already in the inventory
+    public List<Book> addBooks(Iterable<Book> books) {
+        List<Book> skipped = new ArrayList<>();
+        int added = 0;
+        for (Book book : books) {
+            boolean[] inserted = new boolean[1];
+            inventory.computeIfAbsent(book.getIsbn(), isbn -> {
+                for (InventoryListener listener : listeners) {
+                    listener.bookAdded(book);
+                }
+                inserted[0] = true;
+                return book;
+            });
+            if (!inserted[0]) {
+                skipped.add(book);
+                continue;
+            }
+            isbnOrder.add(book.getIsbn());
+            searchIndex.refresh(book.getIsbn());
+            changed(book.getIsbn());
+            added++;
+        }
+        log.info("Bulk added {} book(s) to inventory, skipped {} existing ISBN(s)", added, skipped.size());
+        return skipped;
     }
 
     public void updateBook(Book book) {
-        if (inventory.containsKey(book.getIsbn())) {
-            Book oldBook = inventory.get(book.getIsbn());
-            inventory.put(book.getIsbn(), book);
-            System.out.println("Quantum book store - Updated book in inventory:");
-            System.out.println("Quantum book store - Old: " + oldBook);
-            System.out.println("Quantum book store - New: " + book);
+        Book[] replaced = new Book[1];
+        inventory.computeIfPresent(book.getIsbn(), (isbn, current) -> {
+            for (InventoryListener listener : listeners) {
+                listener.bookUpdated(current, book);
+            }
+            replaced[0] = current;
+            return book;
+        });
+        Book oldBook = replaced[0];
+        if (oldBook != null) {
+            searchIndex.refresh(book.getIsbn());
+            changed(book.getIsbn());
+            log.info("Updated book in inventory. Old: {} New: {}", oldBook, book);
         } else {
-            System.out.println("Quantum book store - Book with ISBN " + book.getIsbn() + 
-                             " not found in inventory. Use addBook() to add new books.");
+            log.warn("Book with ISBN {} not found in inventory. Use addBook() to add new books.", book.getIsbn());
         }
     }
 
     public void addOrUpdateBook(Book book) {
-        if (inventory.containsKey(book.getIsbn())) {
-            updateBook(book);
+        Book[] replaced = new Book[1];
+        inventory.compute(book.getIsbn(), (isbn, current) -> {
+            for (InventoryListener listener : listeners) {
+                if (current != null) {
+                    listener.bookUpdated(current, book);
+                } else {
+                    listener.bookAdded(book);
+                }
+            }
+            replaced[0] = current;
+            return book;
+        });
+        Book oldBook = replaced[0];
+        isbnOrder.add(book.getIsbn());
+        searchIndex.refresh(book.getIsbn());
+        changed(book.getIsbn());
+        if (oldBook != null) {
+            log.info("Updated book in inventory. Old: {} New: {}", oldBook, book);
         } else {
-            inventory.put(book.getIsbn(), book);
-            System.out.println("Quantum book store - Added to inventory: " + book);
+            log.info("Added to inventory: {}", book);
         }
     }
 
     public List<Book> removeOutdatedBooks(int yearsThreshold) {
         List<Book> removedBooks = new ArrayList<>();
-        int currentYear = Year.now().getValue();
-        
-        Iterator<Map.Entry<String, Book>> iterator = inventory.entrySet().iterator();
-        while (iterator.hasNext()) {
-            Map.Entry<String, Book> entry = iterator.next();
-            Book book = entry.getValue();
-            
-            if (currentYear - book.getYearPublished() > yearsThreshold) {
+        int cutoffYear = Year.now().getValue() - yearsThreshold;
+
+        // Only the year buckets below the cutoff are visited, so the cost is proportional to what gets removed
+        for (String isbn : searchIndex.isbnsPublishedBefore(cutoffYear)) {
+            Book book = inventory.get(isbn);
+
+            if (book != null && book.getYearPublished() < cutoffYear && remove(book)) {
                 removedBooks.add(book);
-                iterator.remove();
-                System.out.println("Quantum book store - Removed outdated book: " + book.getTitle());
+                unorder(isbn);
+                searchIndex.refresh(isbn);
+                changed(isbn);
+                log.info("Removed outdated book: {}", book.getTitle());
             }
         }
         
         return removedBooks;
     }
 
-    public double buyBook(String isbn, int quantity, String email, String address) {
-        Book book = inventory.get(isbn);
+    // Removes exactly this book, not a newer one that replaced it under the same ISBN
+    private boolean remove(Book book) {
+        boolean[] removed = new boolean[1];
+        inventory.computeIfPresent(book.getIsbn(), (isbn, current) -> {
+            if (!current.equals(book)) {
+                return current;
+            }
+            for (InventoryListener listener : listeners) {
+                listener.bookRemoved(current);
+            }
+            removed[0] = true;
+            return null;
+        });
+        return removed[0];
+    }
+
+    private void purchased(Book book, int quantity, long amountCents) {
+        for (InventoryListener listener : listeners) {
+            listener.bookPurchased(book, quantity, amountCents);
+        }
+    }
+
+    // Returns the copies left on hand. The sale is announced under the entry lock and only while
+    // this book is still the stored one, so it never reaches listeners after the update or removal
+    // that replaced the book; the journal relies on that order to replay stock correctly
+    private int sold(PaperBook book, int quantity) {
+        int remainingStock = book.commit(quantity);
+        boolean announced = whileStored(book, () -> {
+            for (InventoryListener listener : listeners) {
+                listener.stockSold(book, quantity, remainingStock);
+            }
+        });
+        if (announced) {
+            changed(book.getIsbn());
+        }
+        return remainingStock;
+    }
+
+    // Runs action under the ISBN's entry lock if book is still the one stored and says whether it ran;
+    // a ShardedBookStore asks the owning shard
+    boolean whileStored(Book book, Runnable action) {
+        boolean[] ran = new boolean[1];
+        inventory.computeIfPresent(book.getIsbn(), (isbn, current) -> {
+            if (current.equals(book)) {
+                action.run();
+                ran[0] = true;
+            }
+            return current;
+        });
+        return ran[0];
+    }
+
+    // A reservation took or gave back copies of this book; see StockReservations
+    void held(PaperBook book) {
+        int availableStock = book.getAvailableStock();
+        for (InventoryListener listener : listeners) {
+            listener.stockReserved(book, availableStock);
+        }
+        changed(book.getIsbn());
+    }
+
+    private void changed(String isbn) {
+        for (InventoryListener listener : listeners) {
+            listener.bookChanged(isbn);
+        }
+    }
+
+    // Returns the total charged, in cents
+    public long buyBook(String isbn, int quantity, String email, String address) {
+        PurchaseResult result = tryBuyBook(isbn, quantity, email, address);
+        if (result.isCompleted()) {
+            return result.getAmountCents();
+        }
+        throw new IllegalArgumentException(switch (result.getFailure()) {
+            case INVALID_REQUEST -> "Quantum book store - Quantity must be positive. Requested: " + quantity;
+            case NOT_FOUND -> "Quantum book store - Book with ISBN " + isbn + " not found";
+            case INSUFFICIENT_STOCK -> "Quantum book store - Insufficient stock. Available: " + result.getRemainingStock() +
+                                       ", Requested: " + quantity;
+            default -> "Quantum book store - Book with ISBN " + isbn + " is not available for purchase";
+        });
+    }
+
+    // buyBook without exceptions for the expected failures: an unknown ISBN, a book that is not
+    // for sale and too little stock come back as the result's failure. Fulfilment errors still throw
+    public PurchaseResult tryBuyBook(String isbn, int quantity, String email, String address) {
+        if (quantity <= 0) {
+            return failed(PurchaseFailure.INVALID_REQUEST);
+        }
+
+        long started = System.nanoTime();
+        Book book = isbn == null ? null : find(Isbn.canonical(isbn));
         
         if (book == null) {
-            throw new IllegalArgumentException("Quantum book store - Book with ISBN " + isbn + " not found");
+            return failed(PurchaseFailure.NOT_FOUND);
         }
 
         if (!book.isAvailableForPurchase()) {
-            throw new IllegalArgumentException("Quantum book store - Book '" + book.getTitle() + "' is not available for purchase");
+            if (book instanceof PaperBook) {
+                purchaseMetrics.purchaseFailed(PurchaseFailure.INSUFFICIENT_STOCK);
+                return PurchaseResult.insufficientStock(0);
+            }
+            return failed(PurchaseFailure.NOT_FOR_SALE);
         }
 
-        double totalAmount = 0;
+        long totalCents = 0;
+        int remainingStock = PurchaseResult.NO_STOCK;
+        long lookedUp = System.nanoTime();
+        long reserved = lookedUp;
 
         if (book instanceof PaperBook) {
             PaperBook paperBook = (PaperBook) book;
-            paperBook.reduceStock(quantity);
-            totalAmount = book.getPrice() * quantity;
-            shippingService.shipBook(paperBook, quantity, address);
+            if (!paperBook.tryReserve(quantity)) {
+                purchaseMetrics.purchaseFailed(PurchaseFailure.INSUFFICIENT_STOCK);
+                return PurchaseResult.insufficientStock(paperBook.getAvailableStock());
+            }
+            reserved = System.nanoTime();
+            try {
+                totalCents = Money.times(book.getPriceCents(), quantity);
+                fulfilment.shipPaperBook(paperBook, quantity, address);
+            } catch (RuntimeException e) {
+                paperBook.release(quantity);
+                purchaseMetrics.purchaseFailed(PurchaseFailure.FULFILMENT_FAILED);
+                throw e;
+            }
+            remainingStock = sold(paperBook, quantity);
         } else if (book instanceof EBook) {
             EBook eBook = (EBook) book;
-            totalAmount = book.getPrice() * quantity;
-            for (int i = 0; i < quantity; i++) {
-                mailService.sendEBook(eBook, email);
+            totalCents = Money.times(book.getPriceCents(), quantity);
+            try {
+                fulfilment.deliverEBook(eBook, quantity, email);
+            } catch (RuntimeException e) {
+                purchaseMetrics.purchaseFailed(PurchaseFailure.FULFILMENT_FAILED);
+                throw e;
+            }
+        }
+
+        if (book instanceof PaperBook || book instanceof EBook) {
+            purchased(book, quantity, totalCents);
+        }
+        purchaseMetrics.purchaseCompleted(book, lookedUp - started, reserved - lookedUp, System.nanoTime() - reserved);
+        long total = totalCents;
+        log.atInfo().setMessage("Purchase completed. Total amount: ${}").addArgument(() -> Money.format(total)).log();
+        return PurchaseResult.completed(totalCents, remainingStock);
+    }
+
+    // Ships copies a reservation already holds and charges for them. On a fulfilment error the
+    // copies stay reserved; the reservation decides whether to retry or let them go
+    PurchaseResult buyReserved(PaperBook book, int quantity, String address) {
+        long started = System.nanoTime();
+        long totalCents = Money.times(book.getPriceCents(), quantity);
+        try {
+            fulfilment.shipPaperBook(book, quantity, address);
+        } catch (RuntimeException e) {
+            purchaseMetrics.purchaseFailed(PurchaseFailure.FULFILMENT_FAILED);
+            throw e;
+        }
+        int remainingStock = sold(book, quantity);
+        purchased(book, quantity, totalCents);
+        purchaseMetrics.purchaseCompleted(book, 0, 0, System.nanoTime() - started);
+        log.atInfo().setMessage("Reserved purchase completed. Total amount: ${}").addArgument(() -> Money.format(totalCents)).log();
+        return PurchaseResult.completed(totalCents, remainingStock);
+    }
+
+    // All-or-nothing purchase of several titles. Lines are reserved in ISBN order and every
+    // reservation is released if any line fails, so no partial order is ever committed.
+    // Returns the order total in cents
+    public long checkout(List<OrderLine> lines, String email, String address) {
+        if (lines == null || lines.isEmpty()) {
+            throw rejected(PurchaseFailure.INVALID_REQUEST, "Quantum book store - Order must contain at least one item");
+        }
+
+        SortedMap<String, Integer> quantities = new TreeMap<>();
+        for (OrderLine line : lines) {
+            if (line.getQuantity() <= 0) {
+                throw rejected(PurchaseFailure.INVALID_REQUEST, "Quantum book store - Quantity must be positive. Requested: " +
+                                                                line.getQuantity() + " of ISBN " + line.getIsbn());
+            }
+            try {
+                quantities.merge(Isbn.canonical(line.getIsbn()), line.getQuantity(), Math::addExact);
+            } catch (ArithmeticException e) {
+                throw rejected(PurchaseFailure.INVALID_REQUEST, "Quantum book store - Quantity too large for ISBN " + line.getIsbn());
+            }
+        }
+
+        Map<String, Book> books = new LinkedHashMap<>();
+        for (String isbn : quantities.keySet()) {
+            Book book = find(isbn);
+            if (book == null) {
+                throw rejected(PurchaseFailure.NOT_FOUND, "Quantum book store - Book with ISBN " + isbn + " not found");
+            }
+            if (!(book instanceof PaperBook) && !book.isAvailableForPurchase()) {
+                throw rejected(PurchaseFailure.NOT_FOR_SALE, "Quantum book store - Book '" + book.getTitle() + "' is not available for purchase");
+            }
+            books.put(isbn, book);
+        }
+
+        long totalCents = 0;
+        try {
+            for (Map.Entry<String, Book> entry : books.entrySet()) {
+                totalCents = Money.plus(totalCents, Money.times(entry.getValue().getPriceCents(), quantities.get(entry.getKey())));
+            }
+        } catch (ArithmeticException e) {
+            throw rejected(PurchaseFailure.INVALID_REQUEST, "Quantum book store - Order total is out of range");
+        }
+
+        // Whatever fails once the first line is reserved, every reservation made so far is released
+        List<ShipmentLine> shipmentLines = new ArrayList<>();
+        List<DeliveryLine> deliveryLines = new ArrayList<>();
+        boolean reserved = false;
+        try {
+            for (Map.Entry<String, Book> entry : books.entrySet()) {
+                Book book = entry.getValue();
+                int quantity = quantities.get(entry.getKey());
+                if (book instanceof PaperBook paperBook) {
+                    if (!paperBook.tryReserve(quantity)) {
+                        throw rejected(PurchaseFailure.INSUFFICIENT_STOCK, "Quantum book store - Insufficient stock for '" + book.getTitle() +
+                                                                           "'. Available: " + paperBook.getAvailableStock() + ", Requested: " + quantity);
+                    }
+                    shipmentLines.add(new ShipmentLine(paperBook, quantity));
+                } else if (book instanceof EBook eBook) {
+                    deliveryLines.add(new DeliveryLine(eBook, quantity));
+                }
             }
+            reserved = true;
+
+            if (!shipmentLines.isEmpty()) {
+                fulfilment.shipPaperBooks(shipmentLines, address);
+            }
+            if (!deliveryLines.isEmpty()) {
+                fulfilment.deliverEBooks(deliveryLines, email);
+            }
+        } catch (RuntimeException e) {
+            releaseAll(shipmentLines);
+            if (reserved) {
+                purchaseMetrics.purchaseFailed(PurchaseFailure.FULFILMENT_FAILED);
+            }
+            throw e;
+        }
+        for (ShipmentLine line : shipmentLines) {
+            sold(line.getBook(), line.getQuantity());
+        }
+        for (Map.Entry<String, Book> entry : books.entrySet()) {
+            Book book = entry.getValue();
+            if (book instanceof PaperBook || book instanceof EBook) {
+                int quantity = quantities.get(entry.getKey());
+                purchased(book, quantity, Money.times(book.getPriceCents(), quantity));
+            }
+        }
+
+        long total = totalCents;
+        log.atInfo().setMessage("Order of {} title(s) completed. Total amount: ${}")
+           .addArgument(books.size()).addArgument(() -> Money.format(total)).log();
+        return totalCents;
+    }
+
+    private PurchaseResult failed(PurchaseFailure reason) {
+        purchaseMetrics.purchaseFailed(reason);
+        return PurchaseResult.failed(reason);
+    }
+
+    private IllegalArgumentException rejected(PurchaseFailure reason, String message) {
+        purchaseMetrics.purchaseFailed(reason);
+        return new IllegalArgumentException(message);
+    }
+
+    private static void releaseAll(List<ShipmentLine> reserved) {
+        for (ShipmentLine line : reserved) {
+            line.getBook().release(line.getQuantity());
         }
+    }
+
+    public void addInventoryListener(InventoryListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeInventoryListener(InventoryListener listener) {
+        listeners.remove(listener);
+    }
 
-        System.out.println("Quantum book store - Purchase completed. Total amount: $" + totalAmount);
-        return totalAmount;
+    public void setPurchaseMetrics(PurchaseMetrics purchaseMetrics) {
+        this.purchaseMetrics = purchaseMetrics != null ? purchaseMetrics : PurchaseMetrics.NONE;
     }
 
+    // Loads previously persisted books, e.g. during recovery; listeners see bookRestored, not bookAdded
+    public void restoreInventory(Collection<Book> books) {
+        for (Book book : books) {
+            inventory.compute(book.getIsbn(), (isbn, current) -> {
+                for (InventoryListener listener : listeners) {
+                    listener.bookRestored(current, book);
+                }
+                return book;
+            });
+            isbnOrder.add(book.getIsbn());
+            searchIndex.refresh(book.getIsbn());
+            changed(book.getIsbn());
+        }
+        log.info("Restored {} book(s) into inventory", books.size());
+    }
+
+    // Any form of an ISBN finds the book: hyphenated, compact, ISBN-10 or ISBN-13
     public Book getBook(String isbn) {
+        return isbn == null ? null : find(Isbn.canonical(isbn));
+    }
+
+    // Where purchases and getBook look a canonical ISBN up; a ShardedBookStore asks the owning shard
+    Book find(String isbn) {
         return inventory.get(isbn);
     }
 
@@ -119,6 +478,50 @@ public class BookStore {
         return inventory.values();
     }
 
+    // Keyset pagination in ISBN order: books inserted before the cursor never shift later pages
+    public CatalogPage listBooks(String afterIsbn, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Quantum book store - Page limit must be positive. Requested: " + limit);
+        }
+
+        List<Book> books = new ArrayList<>(Math.min(limit, 1024));
+        String lastIsbn = null;
+        Iterator<String> isbns = (afterIsbn == null ? isbnOrder : isbnOrder.tailSet(Isbn.canonical(afterIsbn), false)).iterator();
+        while (isbns.hasNext()) {
+            String isbn = isbns.next();
+            Book book = inventory.get(isbn);
+            if (book == null) {
+                continue;
+            }
+            if (books.size() == limit) {
+                return new CatalogPage(books, lastIsbn);
+            }
+            books.add(book);
+            lastIsbn = isbn;
+        }
+        return new CatalogPage(books, null);
+    }
+
+    public Map<String, FulfilmentStageMetrics> getFulfilmentMetrics() {
+        return fulfilment.getMetrics();
+    }
+
+    public SearchResults searchBooks(String query, String bookType, Integer yearFrom, Integer yearTo, int page, int size) {
+        return searchIndex.search(query, bookType, yearFrom, yearTo, page, size);
+    }
+
+    BookSearchIndex.Ranking rankBooks(String query, String bookType, Integer yearFrom, Integer yearTo, int limit) {
+        return searchIndex.rank(query, bookType, yearFrom, yearTo, limit);
+    }
+
+    private void unorder(String isbn) {
+        isbnOrder.remove(isbn);
+        // A concurrent re-add may have slipped in between the map removal and ours
+        if (inventory.containsKey(isbn)) {
+            isbnOrder.add(isbn);
+        }
+    }
+
     public void displayInventory() {
         System.out.println("Quantum book store - Current Inventory:");
         System.out.println("================================");
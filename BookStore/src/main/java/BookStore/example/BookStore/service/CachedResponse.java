@@ -0,0 +1,50 @@
+package BookStore.example.BookStore.service;
+
+/**
+ * A response body serialized once and served as-is until the books it was read from change.
+ * The entity tag is a digest of the body, or for a catalog spliced from pages a digest of the
+ * page tags, so equal bodies get equal tags across rebuilds and restarts.
+ */
+public class CachedResponse {
+    private final byte[] body;
+    private final String etag;
+    private final String nextIsbn;
+
+    CachedResponse(byte[] body, String etag, String nextIsbn) {
+        this.body = body;
+        this.etag = etag;
+        this.nextIsbn = nextIsbn;
+    }
+
+    // Shared with every request that hits the cache; never modify it
+    public byte[] getBody() {
+        return body;
+    }
+
+    // Strong entity tag, quoted as it goes in the ETag header
+    public String getEtag() {
+        return etag;
+    }
+
+    // For a listing page, its last ISBN when more books follow; otherwise null
+    public String getNextIsbn() {
+        return nextIsbn;
+    }
+
+    // If-None-Match uses the weak comparison, so a W/ prefix on the client's tag is ignored
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            String candidate = tag.strip();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,306 @@
+package BookStore.example.BookStore.service;
+
+import BookStore.example.BookStore.model.Book;
+import BookStore.example.BookStore.model.PaperBook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Incremental catalog changes for live clients: books added, updated and removed, and stock
+ * changes. Inventory events only mark an ISBN as changed; once per {@code interval} a single
+ * dispatcher reads the current state of every changed book and fans the resulting events out,
+ * so a burst of sales of one title becomes one stock event with the latest count.
+ *
+ * Each subscriber has its own buffer of at most {@code maxPendingPerSubscriber} ISBNs, merged
+ * by ISBN while it waits. Sends run on a small shared pool with at most one send in flight per
+ * subscriber, so thousands of subscribers need no thread each. A subscriber that falls so far
+ * behind that its buffer overflows loses the buffer and gets a resync event instead; so does
+ * everyone after a burst larger than the buffer, such as a bulk import.
+ */
+public class CatalogChangeFeed implements InventoryListener, AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(CatalogChangeFeed.class);
+    private static final Set<String> BOOK_FIELDS = BookProjection.parseFields(
+            "isbn,title,author,yearPublished,price,priceCents,bookType,availableForPurchase,stock,availableStock,fileType");
+    private static final Set<String> STOCK_FIELDS = BookProjection.parseFields("isbn,availableForPurchase,stock,availableStock");
+
+    // Writers whose change to the ISBN is not readable yet; the change is published once none are left
+    private record Pending(CatalogEvent.Type type, int writers) {
+    }
+
+    private final BookStore bookStore;
+    private final int maxPendingPerSubscriber;
+    private final int maxSubscribers;
+    private final long heartbeatTicks;
+    private final ConcurrentMap<String, Pending> pending = new ConcurrentHashMap<>();
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService dispatcher;
+    private final ExecutorService senders;
+    private final LongAdder eventsPublished = new LongAdder();
+    private final LongAdder resyncs = new LongAdder();
+    private long ticks;
+
+    public CatalogChangeFeed(BookStore bookStore, Duration interval, int maxPendingPerSubscriber, int maxSubscribers,
+                             int senderThreads, Duration heartbeat) {
+        if (interval.isNegative() || interval.isZero() || heartbeat.compareTo(interval) < 0) {
+            throw new IllegalArgumentException("Quantum book store - Feed interval must be positive and no longer than the heartbeat");
+        }
+        if (maxPendingPerSubscriber <= 0 || maxSubscribers <= 0 || senderThreads <= 0) {
+            throw new IllegalArgumentException("Quantum book store - Feed buffer, subscriber and sender limits must be positive");
+        }
+        this.bookStore = bookStore;
+        this.maxPendingPerSubscriber = maxPendingPerSubscriber;
+        this.maxSubscribers = maxSubscribers;
+        this.heartbeatTicks = heartbeat.toNanos() / interval.toNanos();
+        this.dispatcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "catalog-feed-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger senderCount = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "catalog-feed-sender-" + senderCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        long tick = interval.toNanos();
+        dispatcher.scheduleWithFixedDelay(this::dispatch, tick, tick, TimeUnit.NANOSECONDS);
+    }
+
+    public Subscription subscribe(CatalogEventSink sink) {
+        if (subscriptions.size() >= maxSubscribers) {
+            throw new IllegalStateException("Quantum book store - Catalog feed is full: " + maxSubscribers + " subscribers");
+        }
+        Subscription subscription = new Subscription(sink);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    public long getEventsPublished() {
+        return eventsPublished.sum();
+    }
+
+    public long getResyncs() {
+        return resyncs.sum();
+    }
+
+    @Override
+    public void bookAdded(Book book) {
+        changing(book.getIsbn(), CatalogEvent.Type.ADDED);
+    }
+
+    @Override
+    public void bookUpdated(Book oldBook, Book newBook) {
+        changing(newBook.getIsbn(), CatalogEvent.Type.UPDATED);
+    }
+
+    @Override
+    public void bookRemoved(Book book) {
+        changing(book.getIsbn(), CatalogEvent.Type.REMOVED);
+    }
+
+    @Override
+    public void bookRestored(Book replaced, Book book) {
+        changing(book.getIsbn(), replaced != null ? CatalogEvent.Type.UPDATED : CatalogEvent.Type.ADDED);
+    }
+
+    @Override
+    public void stockSold(PaperBook book, int quantity, int remainingStock) {
+        changing(book.getIsbn(), CatalogEvent.Type.STOCK);
+    }
+
+    @Override
+    public void stockReserved(PaperBook book, int availableStock) {
+        changing(book.getIsbn(), CatalogEvent.Type.STOCK);
+    }
+
+    @Override
+    public void bookChanged(String isbn) {
+        pending.computeIfPresent(isbn, (key, change) ->
+                change.writers() > 0 ? new Pending(change.type(), change.writers() - 1) : change);
+    }
+
+    // Every call is matched by one bookChanged for the same ISBN once the change can be read back
+    private void changing(String isbn, CatalogEvent.Type type) {
+        pending.merge(isbn, new Pending(type, 1),
+                      (earlier, later) -> new Pending(combine(earlier.type(), type), earlier.writers() + 1));
+    }
+
+    // What a subscriber needs to hear about two changes in a row
+    private static CatalogEvent.Type combine(CatalogEvent.Type earlier, CatalogEvent.Type later) {
+        if (later == CatalogEvent.Type.REMOVED) {
+            return later;
+        }
+        if (earlier == CatalogEvent.Type.REMOVED) {
+            return CatalogEvent.Type.UPDATED;
+        }
+        if (earlier == CatalogEvent.Type.ADDED || earlier == CatalogEvent.Type.UPDATED) {
+            return earlier;
+        }
+        return later;
+    }
+
+    // Runs on the dispatcher thread only
+    private void dispatch() {
+        try {
+            List<CatalogEvent> events = new ArrayList<>();
+            for (String isbn : pending.keySet()) {
+                CatalogEvent.Type[] ready = new CatalogEvent.Type[1];
+                pending.computeIfPresent(isbn, (key, change) -> {
+                    if (change.writers() > 0) {
+                        return change;
+                    }
+                    ready[0] = change.type();
+                    return null;
+                });
+                if (ready[0] != null) {
+                    events.add(event(isbn, ready[0]));
+                }
+            }
+            boolean heartbeat = ++ticks % heartbeatTicks == 0;
+            if (events.isEmpty() && !heartbeat) {
+                return;
+            }
+            eventsPublished.add(events.size());
+            for (Subscription subscription : subscriptions) {
+                subscription.offer(events, heartbeat);
+            }
+        } catch (RuntimeException e) {
+            log.error("Catalog feed dispatch failed", e);
+        }
+    }
+
+    // The book as it is now; events published earlier may be out of date but this one is not
+    private CatalogEvent event(String isbn, CatalogEvent.Type type) {
+        Book book = bookStore.getBook(isbn);
+        if (book == null) {
+            return new CatalogEvent(CatalogEvent.Type.REMOVED, isbn, Map.of("isbn", isbn));
+        }
+        return switch (type) {
+            case STOCK -> new CatalogEvent(type, isbn, BookProjection.project(book, STOCK_FIELDS));
+            case REMOVED -> new CatalogEvent(CatalogEvent.Type.UPDATED, isbn, BookProjection.project(book, BOOK_FIELDS));
+            default -> new CatalogEvent(type, isbn, BookProjection.project(book, BOOK_FIELDS));
+        };
+    }
+
+    @Override
+    public void close() {
+        dispatcher.shutdown();
+        for (Subscription subscription : subscriptions) {
+            subscription.drop();
+        }
+        senders.shutdown();
+    }
+
+    /**
+     * One subscriber's buffer and send state. Closing it unsubscribes.
+     */
+    public final class Subscription implements AutoCloseable {
+        private final CatalogEventSink sink;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<String, CatalogEvent> buffer = new LinkedHashMap<>();
+        private boolean overflowed;
+        private boolean heartbeatDue;
+        private boolean sending;
+        private boolean closed;
+
+        private Subscription(CatalogEventSink sink) {
+            this.sink = sink;
+        }
+
+        private void offer(List<CatalogEvent> events, boolean heartbeat) {
+            lock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                if (!overflowed) {
+                    for (CatalogEvent event : events) {
+                        buffer.merge(event.getIsbn(), event, CatalogEvent::merge);
+                    }
+                    if (buffer.size() > maxPendingPerSubscriber) {
+                        buffer.clear();
+                        overflowed = true;
+                        resyncs.increment();
+                    }
+                }
+                heartbeatDue |= heartbeat;
+                if (sending) {
+                    return;
+                }
+                sending = true;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                senders.execute(this::send);
+            } catch (RejectedExecutionException e) {
+                drop();
+            }
+        }
+
+        // Keeps sending until the buffer is empty; offers made meanwhile are picked up by the loop
+        private void send() {
+            while (true) {
+                List<CatalogEvent> events;
+                lock.lock();
+                try {
+                    if (closed || (buffer.isEmpty() && !overflowed && !heartbeatDue)) {
+                        sending = false;
+                        return;
+                    }
+                    events = overflowed ? List.of(CatalogEvent.RESYNC) : List.copyOf(buffer.values());
+                    buffer.clear();
+                    overflowed = false;
+                    heartbeatDue = false;
+                } finally {
+                    lock.unlock();
+                }
+                try {
+                    sink.send(events);
+                } catch (IOException | RuntimeException e) {
+                    log.debug("Dropping catalog feed subscriber: {}", e.toString());
+                    drop();
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            unsubscribe();
+        }
+
+        private void drop() {
+            if (unsubscribe()) {
+                sink.closed();
+            }
+        }
+
+        private boolean unsubscribe() {
+            lock.lock();
+            try {
+                if (closed) {
+                    return false;
+                }
+                closed = true;
+                buffer.clear();
+            } finally {
+                lock.unlock();
+            }
+            subscriptions.remove(this);
+            return true;
+        }
+    }
+}
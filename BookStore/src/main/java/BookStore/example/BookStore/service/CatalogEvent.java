@@ -0,0 +1,62 @@
+package BookStore.example.BookStore.service;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * One change in the catalog feed. Added and updated events carry the whole book view,
+ * stock events only the ISBN and stock fields, removed events only the ISBN. A resync
+ * event tells the subscriber that changes were dropped and it should reload the catalog.
+ */
+public class CatalogEvent {
+    public enum Type {
+        ADDED, UPDATED, REMOVED, STOCK, RESYNC;
+
+        // Event name on the wire
+        public String getName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    static final CatalogEvent RESYNC = new CatalogEvent(Type.RESYNC, null, Map.of());
+
+    private final Type type;
+    private final String isbn;
+    private final Map<String, Object> book;
+
+    CatalogEvent(Type type, String isbn, Map<String, Object> book) {
+        this.type = type;
+        this.isbn = isbn;
+        this.book = book;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getIsbn() {
+        return isbn;
+    }
+
+    public Map<String, Object> getBook() {
+        return book;
+    }
+
+    // Folds a later event for the same ISBN into this one, so a subscriber that has not
+    // caught up yet gets one event with the latest state instead of every step
+    CatalogEvent merge(CatalogEvent later) {
+        if (later.type == Type.STOCK && (type == Type.ADDED || type == Type.UPDATED)) {
+            Map<String, Object> merged = new LinkedHashMap<>(book);
+            merged.putAll(later.book);
+            return new CatalogEvent(type, isbn, merged);
+        }
+        if (type == Type.ADDED && later.type == Type.UPDATED) {
+            return new CatalogEvent(Type.ADDED, isbn, later.book);
+        }
+        if (type == Type.REMOVED && later.type == Type.ADDED) {
+            return new CatalogEvent(Type.UPDATED, isbn, later.book);
+        }
+        return later;
+    }
+}
@@ -0,0 +1,18 @@
+package BookStore.example.BookStore.service;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Where a {@link CatalogChangeFeed} subscription writes, e.g. one server-sent event stream.
+ * Calls for one subscription never overlap.
+ */
+public interface CatalogEventSink {
+    // An empty list is a keep-alive, sent when the subscriber has had nothing for a while.
+    // An exception ends the subscription
+    void send(List<CatalogEvent> events) throws IOException;
+
+    // The feed dropped this subscription: a send failed or the feed shut down
+    default void closed() {
+    }
+}
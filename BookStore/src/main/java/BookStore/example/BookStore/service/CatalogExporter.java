@@ -0,0 +1,55 @@
+package BookStore.example.BookStore.service;
+
+import BookStore.example.BookStore.model.Book;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes the catalog as NDJSON, one {@link CatalogRow} per line in ISBN order. The
+ * inventory is walked one page at a time with the same cursor the paged listing
+ * uses, so memory stays bounded by the page size whatever the catalog size.
+ *
+ * Every record is copied from a single read of its book, so a purchase or update
+ * running at the same time shows up either entirely or not at all in that record.
+ * The export as a whole is not a point-in-time copy: books added or removed while
+ * it runs may or may not appear.
+ */
+public class CatalogExporter {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final ObjectWriter ROW_WRITER = MAPPER.writerFor(CatalogRow.class);
+
+    private final BookStore bookStore;
+    private final int pageSize;
+
+    public CatalogExporter(BookStore bookStore, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Quantum book store - Export page size must be positive: " + pageSize);
+        }
+        this.bookStore = bookStore;
+        this.pageSize = pageSize;
+    }
+
+    // Returns the number of records written; the stream is flushed but left open
+    public long exportBooks(OutputStream out) throws IOException {
+        long written = 0;
+        try (JsonGenerator generator = MAPPER.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            String after = null;
+            do {
+                CatalogPage page = bookStore.listBooks(after, pageSize);
+                for (Book book : page.getBooks()) {
+                    ROW_WRITER.writeValue(generator, CatalogRow.from(book));
+                    generator.writeRaw('\n');
+                    written++;
+                }
+                after = page.getNextIsbn();
+            } while (after != null);
+        }
+        return written;
+    }
+}
@@ -0,0 +1,315 @@
+package BookStore.example.BookStore.service;
+
+import BookStore.example.BookStore.model.Book;
+import BookStore.example.BookStore.model.EBook;
+import BookStore.example.BookStore.model.Isbn;
+import BookStore.example.BookStore.model.Money;
+import BookStore.example.BookStore.model.PaperBook;
+import BookStore.example.BookStore.model.ShowcaseBook;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.*;
+
+/**
+ * Streams a catalog feed into the BookStore. Rows are parsed one at a time, so the
+ * payload is never held in memory; valid rows are added in batches through
+ * {@link BookStore#addBooks(Iterable)} and every rejected row is reported with its
+ * line number, up to a limit.
+ *
+ * Both formats carry the {@link CatalogRow} fields: type (paper, ebook or showcase),
+ * isbn, title, author, yearPublished, price, stock (paper books) and fileType
+ * (e-books). CSV needs a header row naming its columns, in any order.
+ */
+public class CatalogImporter {
+    public enum Format { NDJSON, CSV }
+
+    private static final ObjectReader ROW_READER = new ObjectMapper()
+            .readerFor(CatalogRow.class)
+            .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private final BookStore bookStore;
+    private final int batchSize;
+    private final int maxReportedErrors;
+
+    public CatalogImporter(BookStore bookStore, int batchSize, int maxReportedErrors) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Quantum book store - Import batch size must be positive: " + batchSize);
+        }
+        this.bookStore = bookStore;
+        this.batchSize = batchSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    public ImportReport importBooks(Reader reader, Format format) throws IOException {
+        Import run = new Import();
+        if (format == Format.NDJSON) {
+            readNdjson(reader, run);
+        } else {
+            readCsv(reader, run);
+        }
+        return run.finish();
+    }
+
+    private void readNdjson(Reader reader, Import run) throws IOException {
+        BufferedReader lines = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader, 1 << 16);
+        long lineNumber = 0;
+        String line;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            CatalogRow row;
+            try {
+                row = ROW_READER.readValue(line);
+            } catch (JsonProcessingException e) {
+                run.reject(lineNumber, null, "Malformed JSON: " + e.getOriginalMessage());
+                continue;
+            }
+            run.accept(lineNumber, row);
+        }
+    }
+
+    private void readCsv(Reader reader, Import run) throws IOException {
+        CsvReader csv = new CsvReader(reader);
+        CsvRecord header = csv.next();
+        while (header != null && header.isBlank()) {
+            header = csv.next();
+        }
+        if (header == null) {
+            return;
+        }
+        List<String> columns = new ArrayList<>(header.fields.size());
+        for (String column : header.fields) {
+            columns.add(column.trim());
+        }
+
+        CsvRecord record;
+        while ((record = csv.next()) != null) {
+            if (record.isBlank()) {
+                continue;
+            }
+            if (record.unterminatedQuote) {
+                run.reject(record.line, null, "Unterminated quoted field");
+            } else if (record.fields.size() != columns.size()) {
+                run.reject(record.line, null, "Expected " + columns.size() + " fields but found " + record.fields.size());
+            } else {
+                CatalogRow row = new CatalogRow();
+                String error = null;
+                for (int i = 0; i < columns.size() && error == null; i++) {
+                    error = row.set(columns.get(i), record.fields.get(i));
+                }
+                if (error != null) {
+                    run.reject(record.line, row.isbn, error);
+                } else {
+                    run.accept(record.line, row);
+                }
+            }
+        }
+    }
+
+    // State of one import: counters, ISBNs seen so far and the batch waiting to be added
+    private final class Import {
+        private final Set<String> seenIsbns = new HashSet<>();
+        private final List<Book> batch = new ArrayList<>(batchSize);
+        private final long[] batchLines = new long[batchSize];
+        private final List<ImportReport.RowError> errors = new ArrayList<>();
+        private long rowsRead;
+        private long imported;
+        private long rejected;
+
+        void accept(long line, CatalogRow row) {
+            rowsRead++;
+            String error = validate(row);
+            if (error != null) {
+                recordError(line, row.isbn, error);
+                return;
+            }
+            if (!seenIsbns.add(Isbn.canonical(row.isbn))) {
+                recordError(line, row.isbn, "Duplicate ISBN earlier in the feed");
+                return;
+            }
+            batchLines[batch.size()] = line;
+            batch.add(toBook(row));
+            if (batch.size() == batchSize) {
+                flush();
+            }
+        }
+
+        void reject(long line, String isbn, String message) {
+            rowsRead++;
+            recordError(line, isbn, message);
+        }
+
+        ImportReport finish() {
+            flush();
+            errors.sort(Comparator.comparingLong(ImportReport.RowError::getLine));
+            return new ImportReport(rowsRead, imported, rejected, errors, rejected > errors.size());
+        }
+
+        private void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<Book> skipped = bookStore.addBooks(batch);
+            // Skipped books come back in batch order, so one pass pairs them with their lines
+            int next = 0;
+            for (int i = 0; i < batch.size() && next < skipped.size(); i++) {
+                if (batch.get(i) == skipped.get(next)) {
+                    recordError(batchLines[i], batch.get(i).getIsbn(), "ISBN already in inventory");
+                    next++;
+                }
+            }
+            imported += batch.size() - skipped.size();
+            batch.clear();
+        }
+
+        private void recordError(long line, String isbn, String message) {
+            rejected++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new ImportReport.RowError(line, isbn, message));
+            }
+        }
+    }
+
+    private static String validate(CatalogRow row) {
+        if (row.isbn == null || row.isbn.isBlank()) {
+            return "Missing isbn";
+        }
+        if (row.title == null || row.title.isBlank()) {
+            return "Missing title";
+        }
+        if (row.yearPublished == null) {
+            return "Missing yearPublished";
+        }
+        String type = row.type != null ? row.type.trim().toLowerCase(Locale.ROOT) : "";
+        switch (type) {
+            case "paper" -> {
+                if (row.stock == null || row.stock < 0) {
+                    return "Paper books need a stock of zero or more";
+                }
+                return validatePrice(row);
+            }
+            case "ebook" -> {
+                if (row.fileType == null || row.fileType.isBlank()) {
+                    return "Missing fileType";
+                }
+                return validatePrice(row);
+            }
+            case "showcase" -> {
+                return null;
+            }
+            default -> {
+                return "Unknown type '" + row.type + "', expected paper, ebook or showcase";
+            }
+        }
+    }
+
+    private static String validatePrice(CatalogRow row) {
+        if (row.price == null || !Double.isFinite(row.price) || row.price < 0) {
+            return "Price must be zero or more";
+        }
+        if (!Money.isInRange(row.price)) {
+            return "Price is out of range";
+        }
+        return null;
+    }
+
+    private static Book toBook(CatalogRow row) {
+        return switch (row.type.trim().toLowerCase(Locale.ROOT)) {
+            case "paper" -> new PaperBook(row.isbn, row.title, row.author, row.yearPublished, row.price, row.stock);
+            case "ebook" -> new EBook(row.isbn, row.title, row.author, row.yearPublished, row.price, row.fileType);
+            default -> new ShowcaseBook(row.isbn, row.title, row.author, row.yearPublished);
+        };
+    }
+
+    private static final class CsvRecord {
+        final long line;
+        final List<String> fields;
+        final boolean unterminatedQuote;
+
+        CsvRecord(long line, List<String> fields, boolean unterminatedQuote) {
+            this.line = line;
+            this.fields = fields;
+            this.unterminatedQuote = unterminatedQuote;
+        }
+
+        boolean isBlank() {
+            return fields.size() == 1 && fields.get(0).isBlank();
+        }
+    }
+
+    // RFC 4180 records: quoted fields may hold commas, doubled quotes and line breaks
+    private static final class CsvReader {
+        private final Reader reader;
+        private final char[] buffer = new char[1 << 16];
+        private int position;
+        private int limit;
+        private long line = 1;
+
+        CsvReader(Reader reader) {
+            this.reader = reader;
+        }
+
+        CsvRecord next() throws IOException {
+            int c = read();
+            if (c == -1) {
+                return null;
+            }
+            long startLine = line;
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c == -1) {
+                        fields.add(field.toString());
+                        return new CsvRecord(startLine, fields, true);
+                    }
+                    if (c == '"') {
+                        c = read();
+                        if (c != '"') {
+                            quoted = false;
+                            continue;
+                        }
+                    } else if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                } else if (c == '"' && field.isEmpty()) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n' || c == -1) {
+                    fields.add(field.toString());
+                    if (c == '\n') {
+                        line++;
+                    }
+                    return new CsvRecord(startLine, fields, false);
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+                c = read();
+            }
+        }
+
+        private int read() throws IOException {
+            if (position == limit) {
+                limit = reader.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            return buffer[position++];
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package BookStore.example.BookStore.service;
+
+import BookStore.example.BookStore.model.Book;
+
+import java.util.List;
+
+public class CatalogPage {
+    private final List<Book> books;
+    private final String nextIsbn;
+
+    public CatalogPage(List<Book> books, String nextIsbn) {
+        this.books = books;
+        this.nextIsbn = nextIsbn;
+    }
+
+    public List<Book> getBooks() {
+        return books;
+    }
+
+    // Last ISBN of this page when more books follow it, otherwise null
+    public String getNextIsbn() {
+        return nextIsbn;
+    }
+}
@@ -0,0 +1,239 @@
+package BookStore.example.BookStore.service;
+
+import BookStore.example.BookStore.model.Book;
+import BookStore.example.BookStore.model.Isbn;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serialized book detail and listing responses, built on the first request and reused until
+ * a change reaches what they show. Detail responses are keyed by ISBN and dropped when that
+ * book changes. Listings are keyset pages in ISBN order, each remembering the ISBNs it was read
+ * from: a change drops only the pages whose range holds its ISBN, and a stock change (a sale or
+ * a reservation) only those that show stock. The whole catalog is assembled from pages of
+ * {@value #CATALOG_PAGE} books, so after a sale one page is serialized again, not every book.
+ *
+ * Invalidation runs on {@link InventoryListener#bookChanged}, after the change is readable.
+ * A response built from books read before a change is only kept if no change was announced
+ * while it was being built, so a cached body never hides a change that has completed. Stock
+ * held by an in-flight purchase is not a change until the sale commits.
+ */
+public class CatalogResponseCache implements InventoryListener {
+
+    // Books per page of the whole catalog; the same as the largest page a client may ask for
+    public static final int CATALOG_PAGE = 1000;
+    private static final Set<String> STOCK_FIELDS = Set.of("availableForPurchase", "stock", "availableStock");
+
+    // A listing read from the ISBNs after afterIsbn (from the start when null) up to lastIsbn
+    // (to the end of the catalog when null)
+    private record Listing(CachedResponse response, String afterIsbn, String lastIsbn, boolean showsStock) {
+        boolean shows(String isbn, boolean stockOnly) {
+            return (showsStock || !stockOnly)
+                   && (afterIsbn == null || isbn.compareTo(afterIsbn) > 0)
+                   && (lastIsbn == null || isbn.compareTo(lastIsbn) <= 0);
+        }
+    }
+
+    private final BookStore bookStore;
+    private final ObjectMapper mapper;
+    private final int maxBooks;
+    private final int maxListings;
+    private final AtomicLong changes = new AtomicLong();
+    private final ConcurrentMap<String, CachedResponse> books = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Listing> listings = new ConcurrentHashMap<>();
+    // Writers changing more than a book's stock, until their bookChanged
+    private final Set<Thread> reshaping = ConcurrentHashMap.newKeySet();
+
+    public CatalogResponseCache(BookStore bookStore, ObjectMapper mapper, int maxBooks, int maxListings) {
+        if (maxBooks < 0 || maxListings < 0) {
+            throw new IllegalArgumentException("Quantum book store - Response cache sizes must not be negative: "
+                                               + maxBooks + " books, " + maxListings + " listings");
+        }
+        this.bookStore = bookStore;
+        this.mapper = mapper;
+        this.maxBooks = maxBooks;
+        this.maxListings = maxListings;
+    }
+
+    @Override
+    public void bookAdded(Book book) {
+        reshaping.add(Thread.currentThread());
+    }
+
+    @Override
+    public void bookUpdated(Book oldBook, Book newBook) {
+        reshaping.add(Thread.currentThread());
+    }
+
+    @Override
+    public void bookRemoved(Book book) {
+        reshaping.add(Thread.currentThread());
+    }
+
+    @Override
+    public void bookRestored(Book replaced, Book book) {
+        reshaping.add(Thread.currentThread());
+    }
+
+    // A writer announces its change and then its bookChanged on the same thread
+    @Override
+    public void bookChanged(String isbn) {
+        boolean stockOnly = !reshaping.remove(Thread.currentThread());
+        changes.incrementAndGet();
+        books.remove(isbn);
+        listings.values().removeIf(listing -> listing.shows(isbn, stockOnly));
+    }
+
+    // The detail response for any form of the ISBN, or null when there is no such book
+    public CachedResponse getBook(String isbn) {
+        String key = Isbn.canonical(isbn);
+        CachedResponse cached = books.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        long builtAt = changes.get();
+        Book book = bookStore.getBook(key);
+        if (book == null) {
+            return null;
+        }
+        CachedResponse response = serialize(book, null);
+        if (books.size() < maxBooks) {
+            books.put(key, response);
+            if (changes.get() != builtAt) {
+                books.remove(key, response);
+            }
+        }
+        return response;
+    }
+
+    // Up to limit books after afterIsbn, or from the start when it is null; fields, when not
+    // null, projects each book to those fields
+    public CachedResponse getPage(String afterIsbn, int limit, Set<String> fields) {
+        return page(afterIsbn != null ? Isbn.canonical(afterIsbn) : null, limit, fields).response();
+    }
+
+    // Every book in ISBN order, spliced from cached pages; the entity tag digests the page tags
+    public CachedResponse getCatalog(Set<String> fields) {
+        String key = "all|" + fieldsKey(fields);
+        Listing cached = listings.get(key);
+        if (cached != null) {
+            return cached.response();
+        }
+
+        long builtAt = changes.get();
+        List<CachedResponse> pages = new ArrayList<>();
+        String after = null;
+        do {
+            CachedResponse page = page(after, CATALOG_PAGE, fields).response();
+            pages.add(page);
+            after = page.getNextIsbn();
+        } while (after != null);
+        Listing listing = new Listing(join(pages), null, null, showsStock(fields));
+        keep(key, listing, builtAt);
+        return listing.response();
+    }
+
+    private Listing page(String afterIsbn, int limit, Set<String> fields) {
+        String key = limit + "|" + (afterIsbn != null ? ">" + afterIsbn : "") + "|" + fieldsKey(fields);
+        Listing cached = listings.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        long builtAt = changes.get();
+        CatalogPage page = bookStore.listBooks(afterIsbn, limit);
+        Listing listing = new Listing(serialize(project(page.getBooks(), fields), page.getNextIsbn()),
+                                      afterIsbn, page.getNextIsbn(), showsStock(fields));
+        keep(key, listing, builtAt);
+        return listing;
+    }
+
+    private void keep(String key, Listing listing, long builtAt) {
+        if (listings.size() < maxListings) {
+            listings.put(key, listing);
+            if (changes.get() != builtAt) {
+                listings.remove(key, listing);
+            }
+        }
+    }
+
+    private static String fieldsKey(Set<String> fields) {
+        return fields != null ? String.join(",", fields) : "*";
+    }
+
+    private static boolean showsStock(Set<String> fields) {
+        return fields == null || !Collections.disjoint(fields, STOCK_FIELDS);
+    }
+
+    private static Collection<?> project(Collection<Book> books, Set<String> fields) {
+        if (fields == null) {
+            return books;
+        }
+        List<Map<String, Object>> views = new ArrayList<>(books.size());
+        for (Book book : books) {
+            views.add(BookProjection.project(book, fields));
+        }
+        return views;
+    }
+
+    private CachedResponse serialize(Object value, String nextIsbn) {
+        byte[] body;
+        try {
+            body = mapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Quantum book store - Could not serialize response", e);
+        }
+        MessageDigest digest = sha256();
+        digest.update(body);
+        return new CachedResponse(body, tag(digest), nextIsbn);
+    }
+
+    // Each page is a JSON array; their elements go into one array in page order
+    private static CachedResponse join(List<CachedResponse> pages) {
+        if (pages.size() == 1) {
+            CachedResponse page = pages.get(0);
+            return new CachedResponse(page.getBody(), page.getEtag(), null);
+        }
+        int length = 2;
+        for (CachedResponse page : pages) {
+            length += page.getBody().length - 1;
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream(length);
+        MessageDigest digest = sha256();
+        body.write('[');
+        for (CachedResponse page : pages) {
+            byte[] elements = page.getBody();
+            if (elements.length > 2) {
+                if (body.size() > 1) {
+                    body.write(',');
+                }
+                body.write(elements, 1, elements.length - 2);
+            }
+            digest.update(page.getEtag().getBytes(StandardCharsets.US_ASCII));
+        }
+        body.write(']');
+        return new CachedResponse(body.toByteArray(), tag(digest), null);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Quantum book store - SHA-256 is not available", e);
+        }
+    }
+
+    private static String tag(MessageDigest digest) {
+        return '"' + HexFormat.of().formatHex(digest.digest(), 0, 16) + '"';
+    }
+}
@@ -0,0 +1,69 @@
+package BookStore.example.BookStore.service;
+
+import BookStore.example.BookStore.model.Book;
+import BookStore.example.BookStore.model.EBook;
+import BookStore.example.BookStore.model.PaperBook;
+import BookStore.example.BookStore.model.ShowcaseBook;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * One book as it appears in catalog feeds, shared by import and export so an
+ * export can be imported again. Numbers are boxed so a missing value can be told
+ * apart from zero.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CatalogRow {
+    public String type;
+    public String isbn;
+    public String title;
+    public String author;
+    public Integer yearPublished;
+    public Double price;
+    public Integer stock;
+    public String fileType;
+
+    // Each field of the book is read exactly once, so the row is a consistent copy even while it changes
+    public static CatalogRow from(Book book) {
+        CatalogRow row = new CatalogRow();
+        row.isbn = book.getIsbn();
+        row.title = book.getTitle();
+        row.author = book.getAuthor();
+        row.yearPublished = book.getYearPublished();
+        if (book instanceof PaperBook paperBook) {
+            row.type = "paper";
+            row.price = paperBook.getPrice();
+            row.stock = paperBook.getStock();
+        } else if (book instanceof EBook eBook) {
+            row.type = "ebook";
+            row.price = eBook.getPrice();
+            row.fileType = eBook.getFileType();
+        } else if (book instanceof ShowcaseBook) {
+            row.type = "showcase";
+        } else {
+            row.type = book.getBookType();
+            row.price = book.getPrice();
+        }
+        return row;
+    }
+
+    // Sets a CSV column; returns an error message instead of throwing, or null
+    String set(String column, String value) {
+        String text = value.isEmpty() ? null : value;
+        try {
+            switch (column) {
+                case "type" -> type = text;
+                case "isbn" -> isbn = text != null ? text.trim() : null;
+                case "title" -> title = text;
+                case "author" -> author = text;
+                case "yearPublished" -> yearPublished = text != null ? Integer.valueOf(text.trim()) : null;
+                case "price" -> price = text != null ? Double.valueOf(text.trim()) : null;
+                case "stock" -> stock = text != null ? Integer.valueOf(text.trim()) : null;
+                case "fileType" -> fileType = text;
+                default -> { }
+            }
+            return null;
+        } catch (NumberFormatException e) {
+            return "Invalid " + column + ": '" + value + "'";
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package BookStore.example.BookStore.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.BiConsumer;
+
+/**
+ * Groups items by key and hands each group to a sink once it holds
+ * {@code maxBatchSize} items or its first item is {@code window} old.
+ * Appends and expiry both go through ConcurrentHashMap.compute, so an item
+ * is never added to a batch that has already been handed off.
+ */
+class CoalescingBuffer<T> implements AutoCloseable {
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final BiConsumer<String, List<T>> sink;
+    private final ConcurrentMap<String, Batch<T>> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+
+    CoalescingBuffer(String name, Duration window, int maxBatchSize, BiConsumer<String, List<T>> sink) {
+        if (window.isNegative() || window.isZero() || maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Quantum book store - Batch window and size must be positive");
+        }
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.sink = sink;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name + "-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long tick = Math.max(1, windowNanos / 2);
+        flusher.scheduleAtFixedRate(this::flushExpired, tick, tick, TimeUnit.NANOSECONDS);
+    }
+
+    void add(String key, Collection<T> items) {
+        List<Batch<T>> full = new ArrayList<>(1);
+        pending.compute(key, (k, batch) -> {
+            Batch<T> current = batch != null ? batch : new Batch<>(System.nanoTime());
+            current.items.addAll(items);
+            if (current.items.size() >= maxBatchSize) {
+                full.add(current);
+                return null;
+            }
+            return current;
+        });
+        for (Batch<T> batch : full) {
+            sink.accept(key, batch.items);
+        }
+    }
+
+    void flush() {
+        for (String key : pending.keySet()) {
+            Batch<T> batch = pending.remove(key);
+            if (batch != null) {
+                sink.accept(key, batch.items);
+            }
+        }
+    }
+
+    // Waits for a window flush already under way, so every batch has been handed off on return
+    @Override
+    public void close() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    private void flushExpired() {
+        long now = System.nanoTime();
+        for (String key : pending.keySet()) {
+            List<Batch<T>> expired = new ArrayList<>(1);
+            pending.computeIfPresent(key, (k, batch) -> {
+                if (now - batch.createdAt < windowNanos) {
+                    return batch;
+                }
+                expired.add(batch);
+                return null;
+            });
+            for (Batch<T> batch : expired) {
+                sink.accept(key, batch.items);
+            }
+        }
+    }
+
+    private static final class Batch<T> {
+        private final long createdAt;
+        private final List<T> items = new ArrayList<>();
+
+        Batch(long createdAt) {
+            this.createdAt = createdAt;
+        }
+    }
+}
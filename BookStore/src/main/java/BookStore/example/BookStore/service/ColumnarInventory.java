@@ -0,0 +1,880 @@
+package BookStore.example.BookStore.service;
+
+import BookStore.example.BookStore.model.Book;
+import BookStore.example.BookStore.model.EBook;
+import BookStore.example.BookStore.model.Isbn;
+import BookStore.example.BookStore.model.PaperBook;
+import BookStore.example.BookStore.model.ShowcaseBook;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Inventory map that keeps books in primitive columns instead of one object graph per book.
+ * Each book is a row: type tag, year, price in cents and packed stock sit in primitive arrays,
+ * ISBNs packed into a long (see {@link Isbn}) or, for other ids, their bytes in an append-only
+ * arena next to the titles, and authors and file types are interned. Keys are canonicalized
+ * like {@link Isbn#canonical}. An open-addressing table maps ISBNs to rows. The GC sees a few large arrays rather than millions
+ * of small objects.
+ *
+ * <p>Reads hand out lightweight views of the row at that moment. Stock changes on a paper book
+ * view go straight to the row, as do {@code setPrice} and {@code setFileType}; the other fields
+ * are a snapshot. Books passed in are copied, so callers re-read a stored book with
+ * {@link #get}. Replacing or removing a book retires the row's generation, and a view of a
+ * retired row carries on against a private copy of its stock, as the replaced object would
+ * in a plain map. A row never reuses a generation: once its last one is retired the row is
+ * spent and the ISBN moves to a fresh row, so a view held for any number of replacements
+ * can never write to a later book.
+ *
+ * <p>Only {@link PaperBook}, {@link EBook} and {@link ShowcaseBook} themselves can be stored.
+ * Stock is limited to {@link #MAX_STOCK} copies per book. Arena bytes of replaced titles and
+ * removed books are not reclaimed.
+ */
+public class ColumnarInventory extends AbstractMap<String, Book> implements ConcurrentMap<String, Book> {
+    // Largest on-hand or reserved count a row can hold: both share one long with the row generation
+    public static final int MAX_STOCK = (1 << 24) - 1;
+
+    private static final int CHUNK_SHIFT = 14;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int ARENA_BLOCK_SHIFT = 20;
+    private static final int ARENA_BLOCK_SIZE = 1 << ARENA_BLOCK_SHIFT;
+    private static final int LOCK_STRIPES = 64;
+    private static final long NO_STRING = -1;
+
+    private static final byte FREE = 0;
+    private static final byte PAPER = 1;
+    private static final byte EBOOK = 2;
+    private static final byte SHOWCASE = 3;
+
+    // Index slots hold row + 1, so zero is an empty slot
+    private static final int EMPTY = 0;
+    private static final int DELETED = -1;
+
+    // Generations share the stock word's top 16 bits. A row holding a book in its last generation
+    // cannot take another one, and a spent row is never reused or handed out to a view
+    private static final int LAST_GENERATION = 0xFFFE;
+
+    // Column chunks are allocated once and never move, so a view's row stays addressable
+    private static final class Chunk {
+        final byte[] types = new byte[CHUNK_SIZE];
+        final int[] hashes = new int[CHUNK_SIZE];
+        final long[] isbns = new long[CHUNK_SIZE];
+        final long[] titles = new long[CHUNK_SIZE];
+        final int[] authors = new int[CHUNK_SIZE];
+        final int[] years = new int[CHUNK_SIZE];
+        final long[] priceCents = new long[CHUNK_SIZE];
+        final int[] fileTypes = new int[CHUNK_SIZE];
+        // Generation in the top 16 bits, then on-hand and reserved copies in 24 bits each
+        final AtomicLongArray stock = new AtomicLongArray(CHUNK_SIZE);
+    }
+
+    // Structural changes and column writes take the write lock; lookups read optimistically
+    private final StampedLock lock = new StampedLock();
+    // One writer per ISBN at a time, so compute functions and the listeners they call run atomically
+    private final ReentrantLock[] stripes = new ReentrantLock[LOCK_STRIPES];
+
+    private volatile Chunk[] chunks = new Chunk[0];
+    private volatile int[] index = new int[1024];
+    private volatile byte[][] arena = new byte[0][];
+    private volatile String[] symbols = new String[16];
+    private final Map<String, Integer> symbolIds = new HashMap<>();
+
+    private int rowCount;
+    private int[] freeRows = new int[16];
+    private int freeRowCount;
+    private int usedSlots;
+    private long arenaEnd;
+    private volatile int size;
+
+    public ColumnarInventory() {
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public Book get(Object key) {
+        if (!(key instanceof String text)) {
+            return null;
+        }
+        long packed = Isbn.pack(text);
+        String isbn = Isbn.canonical(text, packed);
+        byte[] encoded = packed == Isbn.NOT_AN_ISBN ? isbn.getBytes(StandardCharsets.UTF_8) : null;
+        int hash = isbn.hashCode();
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                int row = findRow(packed, encoded, hash);
+                Book book = row < 0 ? null : view(row, isbn);
+                if (lock.validate(stamp)) {
+                    return book;
+                }
+            } catch (RuntimeException torn) {
+                // A writer moved the columns underneath the optimistic read; retry under the read lock
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            int row = findRow(packed, encoded, hash);
+            return row < 0 ? null : view(row, isbn);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public Book put(String isbn, Book book) {
+        Objects.requireNonNull(book);
+        Book[] previous = new Book[1];
+        mutate(isbn, (key, current) -> {
+            previous[0] = current;
+            return book;
+        });
+        return previous[0];
+    }
+
+    @Override
+    public Book remove(Object key) {
+        if (!(key instanceof String isbn)) {
+            return null;
+        }
+        Book[] previous = new Book[1];
+        mutate(isbn, (k, current) -> {
+            previous[0] = current;
+            return null;
+        });
+        return previous[0];
+    }
+
+    @Override
+    public Book putIfAbsent(String isbn, Book book) {
+        Objects.requireNonNull(book);
+        Book[] previous = new Book[1];
+        mutate(isbn, (key, current) -> {
+            previous[0] = current;
+            return current != null ? current : book;
+        });
+        return previous[0];
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        if (!(key instanceof String isbn) || value == null) {
+            return false;
+        }
+        boolean[] removed = new boolean[1];
+        mutate(isbn, (k, current) -> {
+            removed[0] = value.equals(current);
+            return removed[0] ? null : current;
+        });
+        return removed[0];
+    }
+
+    @Override
+    public boolean replace(String isbn, Book oldBook, Book newBook) {
+        Objects.requireNonNull(newBook);
+        boolean[] replaced = new boolean[1];
+        mutate(isbn, (key, current) -> {
+            replaced[0] = current != null && current.equals(oldBook);
+            return replaced[0] ? newBook : current;
+        });
+        return replaced[0];
+    }
+
+    @Override
+    public Book replace(String isbn, Book book) {
+        Objects.requireNonNull(book);
+        Book[] previous = new Book[1];
+        mutate(isbn, (key, current) -> {
+            previous[0] = current;
+            return current != null ? book : null;
+        });
+        return previous[0];
+    }
+
+    @Override
+    public Book compute(String isbn, BiFunction<? super String, ? super Book, ? extends Book> remapping) {
+        return mutate(isbn, remapping);
+    }
+
+    @Override
+    public Book computeIfAbsent(String isbn, Function<? super String, ? extends Book> mapping) {
+        return mutate(isbn, (key, current) -> current != null ? current : mapping.apply(key));
+    }
+
+    @Override
+    public Book computeIfPresent(String isbn, BiFunction<? super String, ? super Book, ? extends Book> remapping) {
+        return mutate(isbn, (key, current) -> current != null ? remapping.apply(key, current) : null);
+    }
+
+    @Override
+    public Set<Entry<String, Book>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, Book>> iterator() {
+                return new RowIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    // Weakly consistent, like the concurrent maps: each row is read as it is at the time it is reached
+    private final class RowIterator implements Iterator<Entry<String, Book>> {
+        private int nextRow;
+        private Book next;
+
+        @Override
+        public boolean hasNext() {
+            while (next == null) {
+                int rows = rowCountForRead();
+                if (nextRow >= rows) {
+                    return false;
+                }
+                next = viewAt(nextRow++);
+            }
+            return true;
+        }
+
+        @Override
+        public Entry<String, Book> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Book book = next;
+            next = null;
+            return new SimpleImmutableEntry<>(book.getIsbn(), book);
+        }
+    }
+
+    private int rowCountForRead() {
+        long stamp = lock.readLock();
+        try {
+            return rowCount;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private Book viewAt(int row) {
+        long stamp = lock.readLock();
+        try {
+            return chunk(row).types[row & CHUNK_MASK] == FREE ? null : view(row, null);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // The one write path: under the ISBN's stripe, read the current book, let the function decide, store the result
+    private Book mutate(String key, BiFunction<? super String, ? super Book, ? extends Book> remapping) {
+        long packed = Isbn.pack(key);
+        String isbn = Isbn.canonical(key, packed);
+        byte[] encoded = packed == Isbn.NOT_AN_ISBN ? isbn.getBytes(StandardCharsets.UTF_8) : null;
+        int hash = isbn.hashCode();
+        ReentrantLock stripe = stripes[spread(hash) & (LOCK_STRIPES - 1)];
+        stripe.lock();
+        try {
+            int row;
+            Book current;
+            long stamp = lock.readLock();
+            try {
+                row = findRow(packed, encoded, hash);
+                current = row < 0 ? null : view(row, isbn);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+
+            Book next = remapping.apply(isbn, current);
+            if (next == null) {
+                if (row >= 0) {
+                    stamp = lock.writeLock();
+                    try {
+                        delete(row, hash);
+                    } finally {
+                        lock.unlockWrite(stamp);
+                    }
+                }
+                return null;
+            }
+            if (next.equals(current)) {
+                return current;
+            }
+
+            byte type = typeOf(next);
+            if (!isbn.equals(next.getIsbn())) {
+                throw new IllegalArgumentException("Quantum book store - Book ISBN " + next.getIsbn() + " does not match key " + isbn);
+            }
+            long stock = type == PAPER ? stockOf((PaperBook) next) : 0;
+            byte[] title = encode(next.getTitle());
+            stamp = lock.writeLock();
+            try {
+                if (row < 0) {
+                    row = insert(packed, encoded, hash);
+                } else if ((int) (stockWord(row) >>> 48) == LAST_GENERATION) {
+                    delete(row, hash);
+                    row = insert(packed, encoded, hash);
+                }
+                write(row, type, title, next, stock);
+                return view(row, isbn);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    // Only the exact catalog classes, whose behaviour the views reproduce, have a column layout
+    private static byte typeOf(Book book) {
+        if (book instanceof ColumnarPaperBook || book.getClass() == PaperBook.class) {
+            return PAPER;
+        }
+        if (book instanceof ColumnarEBook || book.getClass() == EBook.class) {
+            return EBOOK;
+        }
+        if (book instanceof ColumnarShowcaseBook || book.getClass() == ShowcaseBook.class) {
+            return SHOWCASE;
+        }
+        throw new IllegalArgumentException("Quantum book store - Columnar inventory cannot store " + book.getBookType()
+                                           + " (" + book.getClass().getName() + ")");
+    }
+
+    private static long stockOf(PaperBook book) {
+        int onHand = book.getStock();
+        int reserved = onHand - book.getAvailableStock();
+        if (onHand < 0 || onHand > MAX_STOCK || reserved < 0 || reserved > MAX_STOCK) {
+            throw new IllegalArgumentException("Quantum book store - Stock " + onHand + " of '" + book.getTitle()
+                                               + "' is outside the columnar range 0.." + MAX_STOCK);
+        }
+        return ((long) onHand << 24) | reserved;
+    }
+
+    // Caller holds the write lock
+    private int insert(long packed, byte[] encoded, int hash) {
+        int row;
+        if (freeRowCount > 0) {
+            row = freeRows[--freeRowCount];
+        } else {
+            row = rowCount;
+            if ((row >>> CHUNK_SHIFT) == chunks.length) {
+                Chunk[] grown = Arrays.copyOf(chunks, chunks.length + 1);
+                grown[grown.length - 1] = new Chunk();
+                chunks = grown;
+            }
+            rowCount = row + 1;
+        }
+        Chunk chunk = chunk(row);
+        int offset = row & CHUNK_MASK;
+        chunk.hashes[offset] = hash;
+        chunk.isbns[offset] = packed != Isbn.NOT_AN_ISBN ? ~packed : append(encoded);
+
+        if ((usedSlots + 1) * 2 > index.length) {
+            rehash(Math.max(size + 1, 1));
+        }
+        int[] table = index;
+        int mask = table.length - 1;
+        int slot = spread(hash) & mask;
+        while (table[slot] > 0) {
+            slot = (slot + 1) & mask;
+        }
+        if (table[slot] == EMPTY) {
+            usedSlots++;
+        }
+        table[slot] = row + 1;
+        size++;
+        return row;
+    }
+
+    // Caller holds the write lock; the ISBN and hash are already in place
+    private void write(int row, byte type, byte[] title, Book book, long stock) {
+        Chunk chunk = chunk(row);
+        int offset = row & CHUNK_MASK;
+        long currentTitle = chunk.titles[offset];
+        if (chunk.types[offset] == FREE || !arenaEquals(currentTitle, title)) {
+            chunk.titles[offset] = title == null ? NO_STRING : append(title);
+        }
+        chunk.authors[offset] = intern(book.getAuthor());
+        chunk.years[offset] = book.getYearPublished();
+        chunk.priceCents[offset] = book.getPriceCents();
+        chunk.fileTypes[offset] = type == EBOOK ? intern(((EBook) book).getFileType()) : -1;
+        chunk.types[offset] = type;
+        retire(chunk, offset, stock);
+    }
+
+    // Caller holds the write lock
+    private void delete(int row, int hash) {
+        int[] table = index;
+        int mask = table.length - 1;
+        for (int slot = spread(hash) & mask; table[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (table[slot] == row + 1) {
+                table[slot] = DELETED;
+                break;
+            }
+        }
+        Chunk chunk = chunk(row);
+        int offset = row & CHUNK_MASK;
+        chunk.types[offset] = FREE;
+        size--;
+        // A reused row needs one more generation for its next book; without one the row is spent
+        if (retire(chunk, offset, 0) < LAST_GENERATION) {
+            if (freeRowCount == freeRows.length) {
+                freeRows = Arrays.copyOf(freeRows, freeRowCount * 2);
+            }
+            freeRows[freeRowCount++] = row;
+        }
+    }
+
+    // Moves the row to its next generation, so views of the previous one stop touching it, and
+    // returns that generation. Callers never retire a spent row, so it never wraps
+    private static int retire(Chunk chunk, int offset, long stock) {
+        while (true) {
+            long current = chunk.stock.get(offset);
+            long generation = (current >>> 48) + 1;
+            if (chunk.stock.compareAndSet(offset, current, (generation << 48) | stock)) {
+                return (int) generation;
+            }
+        }
+    }
+
+    // Caller holds the write lock
+    private void rehash(int liveRows) {
+        int capacity = 1024;
+        while (capacity < liveRows * 4) {
+            capacity <<= 1;
+        }
+        int[] table = new int[capacity];
+        int mask = capacity - 1;
+        for (int slot : index) {
+            if (slot > 0) {
+                int row = slot - 1;
+                int i = spread(chunk(row).hashes[row & CHUNK_MASK]) & mask;
+                while (table[i] != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                table[i] = slot;
+            }
+        }
+        index = table;
+        usedSlots = size;
+    }
+
+    // Bounded probing, so a torn optimistic read ends instead of looping
+    private int findRow(long packed, byte[] encoded, int hash) {
+        int[] table = index;
+        int mask = table.length - 1;
+        int slot = spread(hash) & mask;
+        for (int probes = 0; probes <= mask; probes++, slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == EMPTY) {
+                return -1;
+            }
+            if (entry > 0) {
+                int row = entry - 1;
+                Chunk chunk = chunk(row);
+                int offset = row & CHUNK_MASK;
+                if (chunk.hashes[offset] == hash && isbnMatches(chunk.isbns[offset], packed, encoded)) {
+                    return row;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private Book view(int row, String isbn) {
+        Chunk chunk = chunk(row);
+        int offset = row & CHUNK_MASK;
+        long stock = chunk.stock.get(offset);
+        int generation = (int) (stock >>> 48);
+        String key = isbn != null ? isbn : decodeIsbn(chunk.isbns[offset]);
+        String title = decode(chunk.titles[offset]);
+        String author = symbol(chunk.authors[offset]);
+        int year = chunk.years[offset];
+        long priceCents = chunk.priceCents[offset];
+        switch (chunk.types[offset]) {
+            case PAPER:
+                return new ColumnarPaperBook(this, row, generation, key, title, author, year, priceCents,
+                                             PaperBookState.of(stock));
+            case EBOOK:
+                return new ColumnarEBook(this, row, generation, key, title, author, year, priceCents,
+                                         symbol(chunk.fileTypes[offset]));
+            case SHOWCASE:
+                return new ColumnarShowcaseBook(this, row, generation, key, title, author, year);
+            default:
+                throw new IllegalStateException("Quantum book store - Row " + row + " is not in use");
+        }
+    }
+
+    private Chunk chunk(int row) {
+        return chunks[row >>> CHUNK_SHIFT];
+    }
+
+    // Caller holds the write lock
+    private int intern(String value) {
+        if (value == null) {
+            return -1;
+        }
+        Integer id = symbolIds.get(value);
+        if (id != null) {
+            return id;
+        }
+        int next = symbolIds.size();
+        String[] table = symbols;
+        if (next == table.length) {
+            table = Arrays.copyOf(table, next * 2);
+        }
+        table[next] = value;
+        symbols = table;
+        symbolIds.put(value, next);
+        return next;
+    }
+
+    private String symbol(int id) {
+        return id < 0 ? null : symbols[id];
+    }
+
+    private static byte[] encode(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Caller holds the write lock. Strings are a 4-byte length and their UTF-8 bytes, never split across blocks
+    private long append(byte[] bytes) {
+        int length = 4 + bytes.length;
+        if (length > ARENA_BLOCK_SIZE) {
+            throw new IllegalArgumentException("Quantum book store - Value of " + bytes.length + " bytes is too long for columnar storage");
+        }
+        int block = (int) (arenaEnd >>> ARENA_BLOCK_SHIFT);
+        int offset = (int) (arenaEnd & (ARENA_BLOCK_SIZE - 1));
+        if (block == arena.length || offset + length > ARENA_BLOCK_SIZE) {
+            if (block < arena.length) {
+                block++;
+                offset = 0;
+            }
+            byte[][] grown = Arrays.copyOf(arena, block + 1);
+            grown[block] = new byte[ARENA_BLOCK_SIZE];
+            arena = grown;
+        }
+        byte[] target = arena[block];
+        target[offset] = (byte) (bytes.length >>> 24);
+        target[offset + 1] = (byte) (bytes.length >>> 16);
+        target[offset + 2] = (byte) (bytes.length >>> 8);
+        target[offset + 3] = (byte) bytes.length;
+        System.arraycopy(bytes, 0, target, offset + 4, bytes.length);
+        long ref = ((long) block << ARENA_BLOCK_SHIFT) | offset;
+        arenaEnd = ref + length;
+        return ref;
+    }
+
+    private String decode(long ref) {
+        if (ref == NO_STRING) {
+            return null;
+        }
+        byte[] block = arena[(int) (ref >>> ARENA_BLOCK_SHIFT)];
+        int offset = (int) (ref & (ARENA_BLOCK_SIZE - 1));
+        return new String(block, offset + 4, length(block, offset), StandardCharsets.UTF_8);
+    }
+
+    // Packed ISBNs are stored complemented, below any arena reference
+    private boolean isbnMatches(long ref, long packed, byte[] encoded) {
+        return packed != Isbn.NOT_AN_ISBN ? ref == ~packed : ref >= 0 && arenaEquals(ref, encoded);
+    }
+
+    private String decodeIsbn(long ref) {
+        return ref < NO_STRING ? Long.toString(~ref) : decode(ref);
+    }
+
+    private boolean arenaEquals(long ref, byte[] bytes) {
+        if (ref == NO_STRING || bytes == null) {
+            return ref == NO_STRING && bytes == null;
+        }
+        byte[] block = arena[(int) (ref >>> ARENA_BLOCK_SHIFT)];
+        int offset = (int) (ref & (ARENA_BLOCK_SIZE - 1));
+        int length = length(block, offset);
+        return length == bytes.length
+               && Arrays.equals(block, offset + 4, offset + 4 + length, bytes, 0, length);
+    }
+
+    // Checked, since an optimistic reader may look at a length that is still being written
+    private static int length(byte[] block, int offset) {
+        int length = ((block[offset] & 0xFF) << 24) | ((block[offset + 1] & 0xFF) << 16)
+                     | ((block[offset + 2] & 0xFF) << 8) | (block[offset + 3] & 0xFF);
+        if (length < 0 || offset + 4 + length > block.length) {
+            throw new IndexOutOfBoundsException("Quantum book store - Torn string length " + length);
+        }
+        return length;
+    }
+
+    private static int spread(int hash) {
+        return (hash ^ (hash >>> 16)) * 0x9E3779B9;
+    }
+
+    // Stock-word access for the paper book views
+
+    long stockWord(int row) {
+        return chunk(row).stock.get(row & CHUNK_MASK);
+    }
+
+    boolean compareAndSetStockWord(int row, long expected, long updated) {
+        return chunk(row).stock.compareAndSet(row & CHUNK_MASK, expected, updated);
+    }
+
+    void writePrice(int row, int generation, long priceCents) {
+        long stamp = lock.writeLock();
+        try {
+            Chunk chunk = chunk(row);
+            int offset = row & CHUNK_MASK;
+            if ((int) (chunk.stock.get(offset) >>> 48) == generation) {
+                chunk.priceCents[offset] = priceCents;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    void writeFileType(int row, int generation, String fileType) {
+        long stamp = lock.writeLock();
+        try {
+            Chunk chunk = chunk(row);
+            int offset = row & CHUNK_MASK;
+            if ((int) (chunk.stock.get(offset) >>> 48) == generation) {
+                chunk.fileTypes[offset] = intern(fileType);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Translates between a row's stock word and PaperBook's (on hand, reserved) packing
+    static final class PaperBookState {
+        private PaperBookState() {
+        }
+
+        static long of(long word) {
+            return ((word >>> 24) & MAX_STOCK) << 32 | (word & MAX_STOCK);
+        }
+
+        static long toWord(int generation, long state) {
+            long onHand = state >>> 32;
+            long reserved = state & 0xFFFFFFFFL;
+            if (onHand > MAX_STOCK || reserved > MAX_STOCK) {
+                throw new IllegalArgumentException("Quantum book store - Stock " + (int) onHand
+                                                   + " is outside the columnar range 0.." + MAX_STOCK);
+            }
+            return ((long) generation << 48) | (onHand << 24) | reserved;
+        }
+    }
+
+    // Identity of a view is its row generation, so two reads of an unchanged book are equal
+    private static boolean sameRow(ColumnarInventory store, int row, int generation, Object other) {
+        return other instanceof ColumnarRow view && view.store() == store && view.row() == row
+               && view.generation() == generation;
+    }
+
+    interface ColumnarRow {
+        ColumnarInventory store();
+
+        int row();
+
+        int generation();
+    }
+
+    static final class ColumnarPaperBook extends PaperBook implements ColumnarRow {
+        private final ColumnarInventory store;
+        private final int row;
+        private final int generation;
+        private volatile long lastState;
+        // Set once the row has moved on; from then on this view behaves like a detached PaperBook
+        private volatile AtomicLong detached;
+
+        ColumnarPaperBook(ColumnarInventory store, int row, int generation, String isbn, String title, String author,
+                          int yearPublished, long priceCents, long state) {
+            super(isbn, title, author, yearPublished, 0);
+            this.priceCents = priceCents;
+            this.store = store;
+            this.row = row;
+            this.generation = generation;
+            this.lastState = state;
+        }
+
+        @Override
+        protected long loadStockState() {
+            AtomicLong copy = detached;
+            if (copy != null) {
+                return copy.get();
+            }
+            long word = store.stockWord(row);
+            if ((int) (word >>> 48) != generation) {
+                return detach().get();
+            }
+            long state = PaperBookState.of(word);
+            lastState = state;
+            return state;
+        }
+
+        @Override
+        protected boolean compareAndSetStockState(long expected, long updated) {
+            AtomicLong copy = detached;
+            if (copy != null) {
+                return copy.compareAndSet(expected, updated);
+            }
+            long updatedWord = PaperBookState.toWord(generation, updated);
+            if (store.compareAndSetStockWord(row, PaperBookState.toWord(generation, expected), updatedWord)) {
+                lastState = updated;
+                return true;
+            }
+            if ((int) (store.stockWord(row) >>> 48) != generation) {
+                detach();
+            }
+            return false;
+        }
+
+        private synchronized AtomicLong detach() {
+            if (detached == null) {
+                detached = new AtomicLong(lastState);
+            }
+            return detached;
+        }
+
+        @Override
+        public void setPrice(double price) {
+            super.setPrice(price);
+            store.writePrice(row, generation, priceCents);
+        }
+
+        @Override
+        public ColumnarInventory store() {
+            return store;
+        }
+
+        @Override
+        public int row() {
+            return row;
+        }
+
+        @Override
+        public int generation() {
+            return generation;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return sameRow(store, row, generation, other);
+        }
+
+        @Override
+        public int hashCode() {
+            return row * 31 + generation;
+        }
+    }
+
+    static final class ColumnarEBook extends EBook implements ColumnarRow {
+        private final ColumnarInventory store;
+        private final int row;
+        private final int generation;
+
+        ColumnarEBook(ColumnarInventory store, int row, int generation, String isbn, String title, String author,
+                      int yearPublished, long priceCents, String fileType) {
+            super(isbn, title, author, yearPublished, 0, fileType);
+            this.priceCents = priceCents;
+            this.store = store;
+            this.row = row;
+            this.generation = generation;
+        }
+
+        @Override
+        public void setPrice(double price) {
+            super.setPrice(price);
+            store.writePrice(row, generation, priceCents);
+        }
+
+        @Override
+        public void setFileType(String fileType) {
+            super.setFileType(fileType);
+            store.writeFileType(row, generation, fileType);
+        }
+
+        @Override
+        public ColumnarInventory store() {
+            return store;
+        }
+
+        @Override
+        public int row() {
+            return row;
+        }
+
+        @Override
+        public int generation() {
+            return generation;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return sameRow(store, row, generation, other);
+        }
+
+        @Override
+        public int hashCode() {
+            return row * 31 + generation;
+        }
+    }
+
+    static final class ColumnarShowcaseBook extends ShowcaseBook implements ColumnarRow {
+        private final ColumnarInventory store;
+        private final int row;
+        private final int generation;
+
+        ColumnarShowcaseBook(ColumnarInventory store, int row, int generation, String isbn, String title, String author,
+                             int yearPublished) {
+            super(isbn, title, author, yearPublished);
+            this.store = store;
+            this.row = row;
+            this.generation = generation;
+        }
+
+        @Override
+        public ColumnarInventory store() {
+            return store;
+        }
+
+        @Override
+        public int row() {
+            return row;
+        }
+
+        @Override
+        public int generation() {
+            return generation;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return sameRow(store, row, generation, other);
+        }
+
+        @Override
+        public int hashCode() {
+            return row * 31 + generation;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package BookStore.example.BookStore.service;
+
+import BookStore.example.BookStore.model.EBook;
+
+// One e-book and the number of copies to deliver of it
+public class DeliveryLine {
+    private final EBook book;
+    private final int quantity;
+
+    public DeliveryLine(EBook book, int quantity) {
+        this.book = book;
+        this.quantity = quantity;
+    }
+
+    public EBook getBook() {
+        return book;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+}
@@ -0,0 +1,111 @@
+package BookStore.example.BookStore.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timer wheel for deadlines that are mostly cancelled before they fire. A ring of
+ * {@code slots} buckets, each covering one tick; an entry goes into the bucket of its
+ * deadline's tick and waits there for as many turns of the wheel as it needs. One thread
+ * advances the wheel, so scheduling is a queue offer and a tick only looks at one bucket,
+ * whatever the number of entries outstanding. Cancelled entries are not unlinked; the
+ * caller's {@code expire} ignores them when their bucket comes round, so it must be cheap
+ * for entries that are already done. Deadlines fire up to one tick late.
+ */
+class ExpiryWheel<T> implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(ExpiryWheel.class);
+
+    private record Entry<T>(T item, long deadlineTick) {
+    }
+
+    private final long tickNanos;
+    private final long startNanos;
+    private final int mask;
+    // Touched by the wheel thread only
+    private final List<List<Entry<T>>> buckets;
+    private final Queue<Entry<T>> incoming = new ConcurrentLinkedQueue<>();
+    private final Consumer<T> expire;
+    private final ScheduledExecutorService wheel;
+    private long lastTick;
+
+    ExpiryWheel(String name, Duration tick, int slots, Consumer<T> expire) {
+        if (tick.isNegative() || tick.isZero() || slots <= 0 || Integer.bitCount(slots) != 1) {
+            throw new IllegalArgumentException("Quantum book store - Wheel tick must be positive and slots a power of two");
+        }
+        this.tickNanos = tick.toNanos();
+        this.startNanos = System.nanoTime();
+        this.mask = slots - 1;
+        this.buckets = new ArrayList<>(slots);
+        for (int i = 0; i < slots; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        this.expire = expire;
+        this.wheel = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        wheel.scheduleAtFixedRate(this::advance, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // deadlineNanos is on the System.nanoTime() clock
+    void schedule(T item, long deadlineNanos) {
+        long ticks = (deadlineNanos - startNanos + tickNanos - 1) / tickNanos;
+        incoming.add(new Entry<>(item, Math.max(ticks, 0)));
+    }
+
+    // Catches up on every tick that has passed, so a late run still expires everything due
+    private void advance() {
+        try {
+            long now = (System.nanoTime() - startNanos) / tickNanos;
+            while (lastTick < now) {
+                lastTick++;
+                placeIncoming();
+                expireDue(buckets.get((int) (lastTick & mask)));
+            }
+        } catch (RuntimeException e) {
+            log.error("Expiry wheel tick failed", e);
+        }
+    }
+
+    private void placeIncoming() {
+        Entry<T> entry;
+        while ((entry = incoming.poll()) != null) {
+            // Already due: the bucket about to be swept picks it up
+            long tick = Math.max(entry.deadlineTick(), lastTick);
+            buckets.get((int) (tick & mask)).add(entry);
+        }
+    }
+
+    private void expireDue(List<Entry<T>> bucket) {
+        int kept = 0;
+        for (int i = 0; i < bucket.size(); i++) {
+            Entry<T> entry = bucket.get(i);
+            if (entry.deadlineTick() <= lastTick) {
+                try {
+                    expire.accept(entry.item());
+                } catch (RuntimeException e) {
+                    log.error("Expiring {} failed", entry.item(), e);
+                }
+            } else {
+                bucket.set(kept++, entry);
+            }
+        }
+        bucket.subList(kept, bucket.size()).clear();
+    }
+
+    @Override
+    public void close() {
+        wheel.shutdownNow();
+    }
+}
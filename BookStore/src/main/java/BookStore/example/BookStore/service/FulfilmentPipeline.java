@@ -0,0 +1,212 @@
+package BookStore.example.BookStore.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Asynchronous fulfilment: purchases are committed on the request thread and
+ * the shipping and mail calls run on separate worker pools behind bounded queues.
+ * A full queue runs a new job on the submitting thread, which slows producers down
+ * instead of growing memory. Failed jobs are retried with exponential backoff; a retry
+ * that finds its stage's queue full or the pipeline closed is counted as failed, so stage
+ * work never runs on the single retry thread.
+ * A job is done when the service's future completes, so a batching service that sends
+ * later still reports its failures here, and stage latency covers the actual send.
+ *
+ * Workers are platform threads by default. With virtual threads a worker blocked on
+ * carrier or mail I/O costs no OS thread, so a stage can run hundreds of calls at once.
+ */
+public class FulfilmentPipeline implements FulfilmentService, AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(FulfilmentPipeline.class);
+    private static final int MAX_BACKOFF_SHIFT = 10;
+
+    private final ShippingService shippingService;
+    private final MailService mailService;
+    private final Stage shipping;
+    private final Stage mail;
+    private final ScheduledExecutorService retryScheduler;
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+
+    public FulfilmentPipeline(int workersPerStage, int queueCapacity, int maxAttempts, Duration initialBackoff) {
+        this(new ShippingServiceImpl(), new MailServiceImpl(), workersPerStage, queueCapacity, maxAttempts, initialBackoff);
+    }
+
+    public FulfilmentPipeline(ShippingService shippingService, MailService mailService,
+                              int workersPerStage, int queueCapacity, int maxAttempts, Duration initialBackoff) {
+        this(shippingService, mailService, workersPerStage, queueCapacity, maxAttempts, initialBackoff, false);
+    }
+
+    public FulfilmentPipeline(ShippingService shippingService, MailService mailService, int workersPerStage,
+                              int queueCapacity, int maxAttempts, Duration initialBackoff, boolean virtualThreads) {
+        if (workersPerStage <= 0 || queueCapacity <= 0 || maxAttempts <= 0) {
+            throw new IllegalArgumentException("Quantum book store - Fulfilment workers, queue capacity and attempts must be positive");
+        }
+        this.shippingService = shippingService;
+        this.mailService = mailService;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffNanos = initialBackoff.toNanos();
+        this.shipping = new Stage("shipping", workersPerStage, queueCapacity, virtualThreads);
+        this.mail = new Stage("mail", workersPerStage, queueCapacity, virtualThreads);
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(namedThreads("fulfilment-retry"));
+    }
+
+    @Override
+    public void shipPaperBooks(List<ShipmentLine> lines, String address) {
+        shipping.submit(() -> shippingService.shipBooksAsync(lines, address));
+    }
+
+    @Override
+    public void deliverEBooks(List<DeliveryLine> lines, String email) {
+        mail.submit(() -> mailService.sendEBooksAsync(lines, email));
+    }
+
+    @Override
+    public Map<String, FulfilmentStageMetrics> getMetrics() {
+        Map<String, FulfilmentStageMetrics> metrics = new LinkedHashMap<>();
+        metrics.put(shipping.name, shipping.snapshot());
+        metrics.put(mail.name, mail.snapshot());
+        return metrics;
+    }
+
+    // Stops accepting work and waits briefly for queued jobs to drain
+    @Override
+    public void close() {
+        retryScheduler.shutdown();
+        shipping.executor.shutdown();
+        mail.executor.shutdown();
+        try {
+            shipping.executor.awaitTermination(5, TimeUnit.SECONDS);
+            mail.executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ThreadFactory namedThreads(String prefix, boolean virtualThreads) {
+        if (virtualThreads) {
+            return Thread.ofVirtual().name(prefix + "-", 1).factory();
+        }
+        return namedThreads(prefix);
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private final class Stage {
+        private final String name;
+        private final ThreadPoolExecutor executor;
+        private final LongAdder submitted = new LongAdder();
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder retried = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder latencyNanos = new LongAdder();
+
+        Stage(String name, int workers, int queueCapacity, boolean virtualThreads) {
+            this.name = name;
+            this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                                                   new ArrayBlockingQueue<>(queueCapacity),
+                                                   namedThreads("fulfilment-" + name, virtualThreads),
+                                                   new ThreadPoolExecutor.AbortPolicy());
+        }
+
+        void submit(Supplier<CompletableFuture<Void>> work) {
+            submitted.increment();
+            Attempt first = new Attempt(this, work, 1, System.nanoTime());
+            try {
+                executor.execute(first);
+            } catch (RejectedExecutionException full) {
+                if (executor.isShutdown()) {
+                    rejected(first);
+                } else {
+                    first.run();
+                }
+            }
+        }
+
+        void resubmit(Attempt next) {
+            try {
+                executor.execute(next);
+            } catch (RejectedExecutionException full) {
+                rejected(next);
+            }
+        }
+
+        private void rejected(Attempt attempt) {
+            failed.increment();
+            log.error("Fulfilment {} job dropped at attempt {}: {}", name, attempt.attempt,
+                      executor.isShutdown() ? "pipeline closed" : "queue full");
+        }
+
+        FulfilmentStageMetrics snapshot() {
+            long done = completed.sum();
+            double averageMillis = done == 0 ? 0 : latencyNanos.sum() / (double) done / 1_000_000;
+            return new FulfilmentStageMetrics(submitted.sum(), done, retried.sum(), failed.sum(),
+                                              executor.getQueue().size(), averageMillis);
+        }
+    }
+
+    private final class Attempt implements Runnable {
+        private final Stage stage;
+        private final Supplier<CompletableFuture<Void>> work;
+        private final int attempt;
+        private final long submittedAt;
+
+        Attempt(Stage stage, Supplier<CompletableFuture<Void>> work, int attempt, long submittedAt) {
+            this.stage = stage;
+            this.work = work;
+            this.attempt = attempt;
+            this.submittedAt = submittedAt;
+        }
+
+        // The worker only starts the job; the outcome is handled by whichever thread completes it
+        @Override
+        public void run() {
+            CompletableFuture<Void> done;
+            try {
+                done = work.get();
+            } catch (RuntimeException e) {
+                done = CompletableFuture.failedFuture(e);
+            }
+            done.whenComplete((ignored, failure) -> {
+                if (failure == null) {
+                    stage.completed.increment();
+                    stage.latencyNanos.add(System.nanoTime() - submittedAt);
+                } else {
+                    retry(failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure);
+                }
+            });
+        }
+
+        private void retry(Throwable failure) {
+            if (attempt >= maxAttempts || retryScheduler.isShutdown()) {
+                stage.failed.increment();
+                log.error("Fulfilment {} job failed after {} attempt(s): {}", stage.name, attempt, failure.getMessage());
+                return;
+            }
+            stage.retried.increment();
+            long backoff = initialBackoffNanos << Math.min(attempt - 1, MAX_BACKOFF_SHIFT);
+            Attempt next = new Attempt(stage, work, attempt + 1, submittedAt);
+            try {
+                retryScheduler.schedule(() -> stage.resubmit(next), backoff, TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException shutdown) {
+                stage.rejected(next);
+            }
+        }
+    }
+}
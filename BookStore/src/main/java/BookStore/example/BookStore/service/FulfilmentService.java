@@ -0,0 +1,47 @@
+package BookStore.example.BookStore.service;
+
+import BookStore.example.BookStore.model.EBook;
+import BookStore.example.BookStore.model.PaperBook;
+
+import java.util.List;
+import java.util.Map;
+
+// Hands a committed purchase over to shipping and mail
+public interface FulfilmentService {
+    void shipPaperBooks(List<ShipmentLine> lines, String address);
+
+    void deliverEBooks(List<DeliveryLine> lines, String email);
+
+    default void shipPaperBook(PaperBook book, int quantity, String address) {
+        shipPaperBooks(List.of(new ShipmentLine(book, quantity)), address);
+    }
+
+    default void deliverEBook(EBook book, int quantity, String email) {
+        deliverEBooks(List.of(new DeliveryLine(book, quantity)), email);
+    }
+
+    default Map<String, FulfilmentStageMetrics> getMetrics() {
+        return Map.of();
+    }
+}
+
+// Calls the services inline on the purchasing thread
+class DirectFulfilmentService implements FulfilmentService {
+    private final ShippingService shippingService;
+    private final MailService mailService;
+
+    DirectFulfilmentService(ShippingService shippingService, MailService mailService) {
+        this.shippingService = shippingService;
+        this.mailService = mailService;
+    }
+
+    @Override
+    public void shipPaperBooks(List<ShipmentLine> lines, String address) {
+        shippingService.shipBooks(lines, address);
+    }
+
+    @Override
+    public void deliverEBooks(List<DeliveryLine> lines, String email) {
+        mailService.sendEBooks(lines, email);
+    }
+}
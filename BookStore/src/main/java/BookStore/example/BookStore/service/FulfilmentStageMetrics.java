@@ -0,0 +1,46 @@
+package BookStore.example.BookStore.service;
+
+public class FulfilmentStageMetrics {
+    private final long submitted;
+    private final long completed;
+    private final long retried;
+    private final long failed;
+    private final int queueDepth;
+    private final double averageLatencyMillis;
+
+    public FulfilmentStageMetrics(long submitted, long completed, long retried, long failed,
+                                  int queueDepth, double averageLatencyMillis) {
+        this.submitted = submitted;
+        this.completed = completed;
+        this.retried = retried;
+        this.failed = failed;
+        this.queueDepth = queueDepth;
+        this.averageLatencyMillis = averageLatencyMillis;
+    }
+
+    public long getSubmitted() {
+        return submitted;
+    }
+
+    public long getCompleted() {
+        return completed;
+    }
+
+    public long getRetried() {
+        return retried;
+    }
+
+    // Jobs that used up every attempt
+    public long getFailed() {
+        return failed;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    // From submission to successful completion, including queueing and retries
+    public double getAverageLatencyMillis() {
+        return averageLatencyMillis;
+    }
+}
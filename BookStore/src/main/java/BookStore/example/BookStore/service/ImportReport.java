@@ -0,0 +1,65 @@
+package BookStore.example.BookStore.service;
+
+import java.util.List;
+
+public class ImportReport {
+    private final long rowsRead;
+    private final long imported;
+    private final long rejected;
+    private final List<RowError> errors;
+    private final boolean errorsTruncated;
+
+    public ImportReport(long rowsRead, long imported, long rejected, List<RowError> errors, boolean errorsTruncated) {
+        this.rowsRead = rowsRead;
+        this.imported = imported;
+        this.rejected = rejected;
+        this.errors = errors;
+        this.errorsTruncated = errorsTruncated;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public List<RowError> getErrors() {
+        return errors;
+    }
+
+    // True when more rows were rejected than the report lists
+    public boolean isErrorsTruncated() {
+        return errorsTruncated;
+    }
+
+    public static class RowError {
+        private final long line;
+        private final String isbn;
+        private final String message;
+
+        public RowError(long line, String isbn, String message) {
+            this.line = line;
+            this.isbn = isbn;
+            this.message = message;
+        }
+
+        // Line of the payload the row starts on, counting from 1
+        public long getLine() {
+            return line;
+        }
+
+        public String getIsbn() {
+            return isbn;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
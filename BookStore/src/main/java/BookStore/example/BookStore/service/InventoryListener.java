@@ -0,0 +1,46 @@
+package BookStore.example.BookStore.service;
+
+import BookStore.example.BookStore.model.Book;
+import BookStore.example.BookStore.model.PaperBook;
+
+/**
+ * Observer of inventory changes. Added, updated, removed, restored and stock sold events
+ * are delivered while the ISBN's map entry is locked, so events for one ISBN arrive in
+ * the same order the map applied them; implementations must be quick and must not
+ * call back into the BookStore. An exception from these aborts the change.
+ * {@link #bookChanged} is the exception: it comes after the change is visible to readers.
+ */
+public interface InventoryListener {
+    default void bookAdded(Book book) {
+    }
+
+    default void bookUpdated(Book oldBook, Book newBook) {
+    }
+
+    default void bookRemoved(Book book) {
+    }
+
+    // Recovery loaded this book, replacing the given one if any; it is not a new change to record
+    default void bookRestored(Book replaced, Book book) {
+    }
+
+    // Delivered after the sale is committed, under the entry lock, and only if the sold book is still
+    // the stored one; remainingStock is the on-hand count right after it
+    default void stockSold(PaperBook book, int quantity, int remainingStock) {
+    }
+
+    // Delivered when a reservation holds or gives back copies, outside the entry lock; availableStock
+    // is the count right after it. No sale happened and the on-hand count is unchanged
+    default void stockReserved(PaperBook book, int availableStock) {
+    }
+
+    // Delivered outside the entry lock once a change to this ISBN's book can be read back: added,
+    // updated, removed, restored, stock sold or reserved, once for each of those events delivered.
+    // Readers that cache what they read invalidate here
+    default void bookChanged(String isbn) {
+    }
+
+    // Delivered once per purchased title, paper or e-book, after the sale went through
+    default void bookPurchased(Book book, int quantity, long amountCents) {
+    }
+}
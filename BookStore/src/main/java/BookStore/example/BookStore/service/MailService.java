@@ -1,15 +1,59 @@
 package BookStore.example.BookStore.service;
 
 import BookStore.example.BookStore.model.EBook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 public interface MailService {
     void sendEBook(EBook book, String email);
+
+    // Several e-books to one recipient; implementations that can should send a single message
+    default void sendEBooks(List<DeliveryLine> lines, String email) {
+        for (DeliveryLine line : lines) {
+            for (int copy = 0; copy < line.getQuantity(); copy++) {
+                sendEBook(line.getBook(), email);
+            }
+        }
+    }
+
+    // Completes when the message has actually gone out, or exceptionally if sending failed.
+    // Services that send later, e.g. in batches, override this to report the real outcome
+    default CompletableFuture<Void> sendEBooksAsync(List<DeliveryLine> lines, String email) {
+        try {
+            sendEBooks(lines, email);
+            return CompletableFuture.completedFuture(null);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
 }
 
 class MailServiceImpl implements MailService {
+    private static final Logger log = LoggerFactory.getLogger(MailServiceImpl.class);
+
     @Override
     public void sendEBook(EBook book, String email) {
-        System.out.println("Quantum book store - Sending ebook '" + book.getTitle() + 
-                         "' (" + book.getFileType() + ") to email: " + email);
+        log.info("Sending ebook '{}' ({}) to email: {}", book.getTitle(), book.getFileType(), email);
+    }
+
+    @Override
+    public void sendEBooks(List<DeliveryLine> lines, String email) {
+        if (lines.size() == 1 && lines.get(0).getQuantity() == 1) {
+            sendEBook(lines.get(0).getBook(), email);
+            return;
+        }
+        // The title list is only built when the event is actually logged
+        log.atInfo()
+           .setMessage("Sending {} ebook(s) to email: {} - {}")
+           .addArgument(() -> lines.stream().mapToLong(DeliveryLine::getQuantity).sum())
+           .addArgument(email)
+           .addArgument(() -> lines.stream().map(line -> line.getQuantity() + " x '" + line.getBook().getTitle() + "' (" +
+                                                         line.getBook().getFileType() + ")")
+                                   .collect(Collectors.joining(", ")))
+           .log();
     }
-} 
\ No newline at end of file
+} 
@@ -0,0 +1,19 @@
+package BookStore.example.BookStore.service;
+
+public class OrderLine {
+    private final String isbn;
+    private final int quantity;
+
+    public OrderLine(String isbn, int quantity) {
+        this.isbn = isbn;
+        this.quantity = quantity;
+    }
+
+    public String getIsbn() {
+        return isbn;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+}
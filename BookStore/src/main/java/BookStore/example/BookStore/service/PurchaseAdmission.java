@@ -0,0 +1,244 @@
+package BookStore.example.BookStore.service;
+
+import BookStore.example.BookStore.model.Book;
+import BookStore.example.BookStore.model.Isbn;
+import BookStore.example.BookStore.model.PaperBook;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Admission control in front of buyBook for flash sales. Requests that cannot succeed or
+ * would overload the store are turned away before they reach the inventory, with a
+ * constant decision instead of a lookup and an exception:
+ * <ul>
+ *   <li>ISBNs whose paper stock is gone are rejected from a sold-out set kept up to date
+ *       by inventory events;</li>
+ *   <li>token buckets cap the purchase rate per ISBN and per client;</li>
+ *   <li>once a paper book is down to its last few copies, buyers for it line up in a fair
+ *       queue and go through one at a time, in arrival order, instead of racing for the
+ *       stock. The queue is bounded and so is the wait.</li>
+ * </ul>
+ * Admission is advisory: buyBook still checks stock itself, so a request admitted just
+ * before the book sold out fails there as before.
+ */
+public class PurchaseAdmission implements InventoryListener, AutoCloseable {
+
+    public enum Decision {
+        ADMITTED,
+        // Admitted through the last-copies queue; the caller must call leave() when its purchase is done
+        ADMITTED_IN_LINE,
+        SOLD_OUT,
+        CLIENT_RATE_LIMITED,
+        ISBN_RATE_LIMITED,
+        LINE_FULL,
+        LINE_TIMEOUT;
+
+        public boolean isAdmitted() {
+            return this == ADMITTED || this == ADMITTED_IN_LINE;
+        }
+    }
+
+    // Token bucket kept as a single timestamp (GCRA): the time at which the bucket would be full
+    // again. Taking a token moves it one interval later, and is refused once it would move more
+    // than a burst's worth of intervals past now
+    private static final class Bucket {
+        private final AtomicLong fullAt;
+
+        Bucket(long now) {
+            this.fullAt = new AtomicLong(now);
+        }
+
+        boolean tryTake(long now, long intervalNanos, long burstNanos) {
+            while (true) {
+                long current = fullAt.get();
+                long next = Math.max(current, now) + intervalNanos;
+                if (next - now > burstNanos) {
+                    return false;
+                }
+                if (fullAt.compareAndSet(current, next)) {
+                    return true;
+                }
+            }
+        }
+
+        boolean isFull(long now) {
+            return fullAt.get() - now <= 0;
+        }
+    }
+
+    // One per ISBN that ever ran low. Never removed, so whoever holds its permit can always give it back
+    private static final class Line {
+        private final Semaphore turn = new Semaphore(1, true);
+        private volatile boolean active;
+    }
+
+    private final Set<String> soldOut = ConcurrentHashMap.newKeySet();
+    private final ConcurrentMap<String, Line> lines = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Bucket> isbnBuckets = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Bucket> clientBuckets = new ConcurrentHashMap<>();
+    private final long isbnIntervalNanos;
+    private final long isbnBurstNanos;
+    private final long clientIntervalNanos;
+    private final long clientBurstNanos;
+    private final int lastCopies;
+    private final int maxInLine;
+    private final long lineTimeoutNanos;
+    private final Map<Decision, LongAdder> decisions = new EnumMap<>(Decision.class);
+    private final ScheduledExecutorService sweeper;
+
+    // A rate of zero or less turns that limit off; lastCopies of zero turns the queue off
+    public PurchaseAdmission(BookStore bookStore, double isbnPerSecond, int isbnBurst, double clientPerSecond,
+                             int clientBurst, int lastCopies, int maxInLine, Duration lineTimeout) {
+        if (isbnBurst <= 0 || clientBurst <= 0 || lastCopies < 0 || maxInLine <= 0) {
+            throw new IllegalArgumentException("Quantum book store - Admission bursts and line size must be positive");
+        }
+        this.isbnIntervalNanos = intervalNanos(isbnPerSecond);
+        this.isbnBurstNanos = isbnIntervalNanos * isbnBurst;
+        this.clientIntervalNanos = intervalNanos(clientPerSecond);
+        this.clientBurstNanos = clientIntervalNanos * clientBurst;
+        this.lastCopies = lastCopies;
+        this.maxInLine = maxInLine;
+        this.lineTimeoutNanos = lineTimeout.toNanos();
+        for (Decision decision : Decision.values()) {
+            decisions.put(decision, new LongAdder());
+        }
+        for (Book book : bookStore.getAllBooks()) {
+            track(book);
+        }
+        // Full buckets hold nothing a fresh one would not, so idle ones are dropped
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "admission-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::dropFullBuckets, 1, 1, TimeUnit.MINUTES);
+    }
+
+    private static long intervalNanos(double perSecond) {
+        return perSecond > 0 ? Math.max(1, (long) (1_000_000_000L / perSecond)) : 0;
+    }
+
+    // May block for up to the line timeout when the book is down to its last copies
+    public Decision admit(String isbn, String client) {
+        String key = Isbn.canonical(isbn);
+        Decision decision = key == null ? Decision.ADMITTED : decide(key, client);
+        decisions.get(decision).increment();
+        return decision;
+    }
+
+    private Decision decide(String isbn, String client) {
+        if (soldOut.contains(isbn)) {
+            return Decision.SOLD_OUT;
+        }
+        long now = System.nanoTime();
+        if (clientIntervalNanos > 0 && client != null
+                && !clientBuckets.computeIfAbsent(client, k -> new Bucket(now)).tryTake(now, clientIntervalNanos, clientBurstNanos)) {
+            return Decision.CLIENT_RATE_LIMITED;
+        }
+        if (isbnIntervalNanos > 0
+                && !isbnBuckets.computeIfAbsent(isbn, k -> new Bucket(now)).tryTake(now, isbnIntervalNanos, isbnBurstNanos)) {
+            return Decision.ISBN_RATE_LIMITED;
+        }
+
+        Line line = lines.get(isbn);
+        if (line == null || !line.active) {
+            return Decision.ADMITTED;
+        }
+        if (line.turn.getQueueLength() >= maxInLine) {
+            return Decision.LINE_FULL;
+        }
+        try {
+            if (!line.turn.tryAcquire(lineTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                return Decision.LINE_TIMEOUT;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Decision.LINE_TIMEOUT;
+        }
+        // The copies may have run out while this request waited
+        if (soldOut.contains(isbn)) {
+            line.turn.release();
+            return Decision.SOLD_OUT;
+        }
+        return Decision.ADMITTED_IN_LINE;
+    }
+
+    // Ends a purchase admitted with ADMITTED_IN_LINE and lets the next buyer in line through
+    public void leave(String isbn) {
+        Line line = lines.get(Isbn.canonical(isbn));
+        if (line != null) {
+            line.turn.release();
+        }
+    }
+
+    public long getDecisionCount(Decision decision) {
+        return decisions.get(decision).sum();
+    }
+
+    public boolean isSoldOut(String isbn) {
+        return soldOut.contains(Isbn.canonical(isbn));
+    }
+
+    @Override
+    public void bookAdded(Book book) {
+        track(book);
+    }
+
+    @Override
+    public void bookUpdated(Book oldBook, Book newBook) {
+        track(newBook);
+    }
+
+    @Override
+    public void bookRestored(Book replaced, Book book) {
+        track(book);
+    }
+
+    @Override
+    public void bookRemoved(Book book) {
+        stockChanged(book.getIsbn(), -1);
+    }
+
+    @Override
+    public void stockSold(PaperBook book, int quantity, int remainingStock) {
+        stockChanged(book.getIsbn(), remainingStock);
+    }
+
+    private void track(Book book) {
+        stockChanged(book.getIsbn(), book instanceof PaperBook paperBook ? paperBook.getStock() : -1);
+    }
+
+    // A stock of -1 means the ISBN has no paper stock to run out of
+    private void stockChanged(String isbn, int stock) {
+        if (stock == 0) {
+            soldOut.add(isbn);
+        } else {
+            soldOut.remove(isbn);
+        }
+        if (stock > 0 && stock <= lastCopies) {
+            lines.computeIfAbsent(isbn, k -> new Line()).active = true;
+        } else {
+            Line line = lines.get(isbn);
+            if (line != null) {
+                line.active = false;
+            }
+        }
+    }
+
+    private void dropFullBuckets() {
+        long now = System.nanoTime();
+        isbnBuckets.values().removeIf(bucket -> bucket.isFull(now));
+        clientBuckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    @Override
+    public void close() {
+        sweeper.shutdownNow();
+    }
+}
@@ -0,0 +1,12 @@
+package BookStore.example.BookStore.service;
+
+// Why a purchase was turned down; reported to PurchaseMetrics, then returned in a PurchaseResult or thrown as an exception
+public enum PurchaseFailure {
+    INVALID_REQUEST,
+    NOT_FOUND,
+    NOT_FOR_SALE,
+    INSUFFICIENT_STOCK,
+    FULFILMENT_FAILED,
+    // Confirming a reservation that is unknown, expired, cancelled or already confirmed
+    RESERVATION_NOT_FOUND
+}
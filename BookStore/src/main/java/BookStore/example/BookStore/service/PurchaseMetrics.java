@@ -0,0 +1,19 @@
+package BookStore.example.BookStore.service;
+
+import BookStore.example.BookStore.model.Book;
+
+/**
+ * Receives purchase timings and failures from the BookStore. Called on the request
+ * thread for every purchase, so implementations must be cheap and must not block.
+ */
+public interface PurchaseMetrics {
+    PurchaseMetrics NONE = new PurchaseMetrics() {
+    };
+
+    // Phases of one successful buyBook call; reservationNanos is 0 for books that need no reservation
+    default void purchaseCompleted(Book book, long lookupNanos, long reservationNanos, long fulfilmentNanos) {
+    }
+
+    default void purchaseFailed(PurchaseFailure reason) {
+    }
+}
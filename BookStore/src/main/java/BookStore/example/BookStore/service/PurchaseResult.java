@@ -0,0 +1,64 @@
+package BookStore.example.BookStore.service;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Outcome of {@link BookStore#tryBuyBook}. Expected failures come back as a status rather
+ * than an exception, and most of them are shared constants, so turning a purchase down
+ * allocates nothing during a sell-out.
+ */
+public final class PurchaseResult {
+    public static final int NO_STOCK = -1;
+
+    private static final Map<PurchaseFailure, PurchaseResult> FAILURES = new EnumMap<>(PurchaseFailure.class);
+    private static final PurchaseResult SOLD_OUT = new PurchaseResult(PurchaseFailure.INSUFFICIENT_STOCK, 0, 0);
+
+    static {
+        for (PurchaseFailure failure : PurchaseFailure.values()) {
+            FAILURES.put(failure, new PurchaseResult(failure, 0, NO_STOCK));
+        }
+    }
+
+    private final PurchaseFailure failure;
+    private final long amountCents;
+    private final int remainingStock;
+
+    private PurchaseResult(PurchaseFailure failure, long amountCents, int remainingStock) {
+        this.failure = failure;
+        this.amountCents = amountCents;
+        this.remainingStock = remainingStock;
+    }
+
+    // remainingStock is NO_STOCK for books that keep none
+    static PurchaseResult completed(long amountCents, int remainingStock) {
+        return new PurchaseResult(null, amountCents, remainingStock);
+    }
+
+    static PurchaseResult failed(PurchaseFailure failure) {
+        return FAILURES.get(failure);
+    }
+
+    static PurchaseResult insufficientStock(int availableStock) {
+        return availableStock <= 0 ? SOLD_OUT : new PurchaseResult(PurchaseFailure.INSUFFICIENT_STOCK, 0, availableStock);
+    }
+
+    public boolean isCompleted() {
+        return failure == null;
+    }
+
+    // Null when the purchase completed
+    public PurchaseFailure getFailure() {
+        return failure;
+    }
+
+    // Total charged, in cents; 0 unless completed
+    public long getAmountCents() {
+        return amountCents;
+    }
+
+    // Copies left after a completed purchase, or copies that were available when stock fell short
+    public int getRemainingStock() {
+        return remainingStock;
+    }
+}
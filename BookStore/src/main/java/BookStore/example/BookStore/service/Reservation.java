@@ -0,0 +1,34 @@
+package BookStore.example.BookStore.service;
+
+import java.time.Instant;
+
+// Copies of one paper book held for a buyer until expiresAt; the token confirms or cancels the hold
+public class Reservation {
+    private final String token;
+    private final String isbn;
+    private final int quantity;
+    private final Instant expiresAt;
+
+    public Reservation(String token, String isbn, int quantity, Instant expiresAt) {
+        this.token = token;
+        this.isbn = isbn;
+        this.quantity = quantity;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public String getIsbn() {
+        return isbn;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+}
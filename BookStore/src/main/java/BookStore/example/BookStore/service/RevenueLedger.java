@@ -0,0 +1,144 @@
+package BookStore.example.BookStore.service;
+
+import BookStore.example.BookStore.model.Book;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory log of completed sales for revenue reporting. Each sale is one row of three
+ * primitive columns: UTC day, book-type id and amount in cents. A report over millions of
+ * sales is then a single pass over flat arrays with no per-order objects. Rows are appended
+ * under a lock and published through a volatile count, so reports never block purchases.
+ * The ledger keeps every sale since startup, at 13 bytes a sale.
+ */
+public class RevenueLedger implements InventoryListener {
+    private static final int CHUNK_SHIFT = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+    // Type ids are stored in a byte column
+    private static final int MAX_TYPES = 128;
+    private static final int MAX_REPORT_DAYS = 3660;
+
+    private static final class Chunk {
+        final int[] days = new int[CHUNK_SIZE];
+        final byte[] types = new byte[CHUNK_SIZE];
+        final long[] amountCents = new long[CHUNK_SIZE];
+    }
+
+    private final Clock clock;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final Map<String, Integer> typeIds = new LinkedHashMap<>();
+    private volatile String[] typeNames = new String[0];
+    private volatile Chunk[] chunks = new Chunk[0];
+    // Rows below this count are fully written
+    private volatile int size;
+
+    public RevenueLedger() {
+        this(Clock.systemUTC());
+    }
+
+    public RevenueLedger(Clock clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public void bookPurchased(Book book, int quantity, long amountCents) {
+        record(book.getBookType(), Math.floorDiv(clock.millis(), MILLIS_PER_DAY), amountCents);
+    }
+
+    // For sales that happened elsewhere, e.g. a backfill from an order history
+    public void record(String bookType, LocalDate day, long amountCents) {
+        record(bookType, day.toEpochDay(), amountCents);
+    }
+
+    private void record(String bookType, long epochDay, long amountCents) {
+        appendLock.lock();
+        try {
+            int type = typeId(bookType);
+            int row = size;
+            if ((row >>> CHUNK_SHIFT) == chunks.length) {
+                Chunk[] grown = Arrays.copyOf(chunks, chunks.length + 1);
+                grown[grown.length - 1] = new Chunk();
+                chunks = grown;
+            }
+            Chunk chunk = chunks[row >>> CHUNK_SHIFT];
+            int offset = row & CHUNK_MASK;
+            chunk.days[offset] = Math.toIntExact(epochDay);
+            chunk.types[offset] = (byte) type;
+            chunk.amountCents[offset] = amountCents;
+            size = row + 1;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    // Caller holds the append lock
+    private int typeId(String bookType) {
+        Integer id = typeIds.get(bookType);
+        if (id != null) {
+            return id;
+        }
+        if (typeIds.size() == MAX_TYPES) {
+            throw new IllegalStateException("Quantum book store - Revenue ledger is limited to " + MAX_TYPES + " book types");
+        }
+        int next = typeIds.size();
+        typeIds.put(bookType, next);
+        String[] names = Arrays.copyOf(typeNames, next + 1);
+        names[next] = bookType;
+        typeNames = names;
+        return next;
+    }
+
+    public int getSalesCount() {
+        return size;
+    }
+
+    // Revenue per book type and day, both ends inclusive
+    public RevenueReport revenueByTypeAndDay(LocalDate from, LocalDate to) {
+        long first = from.toEpochDay();
+        long days = to.toEpochDay() - first + 1;
+        if (days <= 0 || days > MAX_REPORT_DAYS) {
+            throw new IllegalArgumentException("Quantum book store - Invalid revenue range " + from + " to " + to
+                                               + ", at most " + MAX_REPORT_DAYS + " days");
+        }
+        int span = (int) days;
+        // The count is read first, so every type id in the rows below it is already named
+        int rows = size;
+        Chunk[] columns = chunks;
+        String[] names = typeNames;
+
+        long[] sums = new long[names.length * span];
+        for (int start = 0; start < rows; start += CHUNK_SIZE) {
+            Chunk chunk = columns[start >>> CHUNK_SHIFT];
+            accumulate(chunk.days, chunk.types, chunk.amountCents, Math.min(CHUNK_SIZE, rows - start), first, span, sums);
+        }
+
+        Map<String, long[]> byType = new LinkedHashMap<>();
+        long total = 0;
+        for (int type = 0; type < names.length; type++) {
+            long[] daily = Arrays.copyOfRange(sums, type * span, (type + 1) * span);
+            for (long cents : daily) {
+                total += cents;
+            }
+            byType.put(names[type], daily);
+        }
+        return new RevenueReport(from, to, byType, total);
+    }
+
+    // One straight pass over the columns; days outside the range fall out of the unsigned compare
+    private static void accumulate(int[] days, byte[] types, long[] amountCents, int count,
+                                   long firstDay, int span, long[] sums) {
+        for (int i = 0; i < count; i++) {
+            long offset = days[i] - firstDay;
+            if (Long.compareUnsigned(offset, span) < 0) {
+                sums[types[i] * span + (int) offset] += amountCents[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package BookStore.example.BookStore.service;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+// Revenue in cents per book type, one entry per day from 'from' to 'to' inclusive
+public class RevenueReport {
+    private final LocalDate from;
+    private final LocalDate to;
+    private final Map<String, long[]> dailyCentsByType;
+    private final long totalCents;
+
+    public RevenueReport(LocalDate from, LocalDate to, Map<String, long[]> dailyCentsByType, long totalCents) {
+        this.from = from;
+        this.to = to;
+        this.dailyCentsByType = dailyCentsByType;
+        this.totalCents = totalCents;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public Map<String, long[]> getDailyCentsByType() {
+        return dailyCentsByType;
+    }
+
+    public long getTotalCents() {
+        return totalCents;
+    }
+}
@@ -0,0 +1,35 @@
+package BookStore.example.BookStore.service;
+
+import BookStore.example.BookStore.model.Book;
+
+import java.util.List;
+
+public class SearchResults {
+    private final List<Book> results;
+    private final int total;
+    private final int page;
+    private final int size;
+
+    public SearchResults(List<Book> results, int total, int page, int size) {
+        this.results = results;
+        this.total = total;
+        this.page = page;
+        this.size = size;
+    }
+
+    public List<Book> getResults() {
+        return results;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+}
@@ -0,0 +1,61 @@
+package BookStore.example.BookStore.service;
+
+import java.util.Arrays;
+
+/**
+ * Consistent-hash ring that assigns ISBNs to shards 0..shards-1. Each shard owns
+ * {@code virtualNodes} points on a 64-bit ring and a key belongs to the first point at or
+ * after its hash, so shards get near-equal shares and growing from N to N+1 shards moves
+ * only about 1/(N+1) of the keys. The hash depends on nothing but the key text, so every
+ * process that builds a ring with the same shape routes keys the same way.
+ */
+public class ShardRing {
+    private final int shards;
+    private final long[] points;
+    private final int[] owners;
+
+    public ShardRing(int shards, int virtualNodes) {
+        if (shards <= 0 || virtualNodes <= 0) {
+            throw new IllegalArgumentException("Quantum book store - Shards and virtual nodes must be positive");
+        }
+        this.shards = shards;
+        long[][] nodes = new long[shards * virtualNodes][];
+        for (int shard = 0; shard < shards; shard++) {
+            for (int node = 0; node < virtualNodes; node++) {
+                nodes[shard * virtualNodes + node] = new long[]{hash("shard-" + shard + "#" + node), shard};
+            }
+        }
+        // Ties are broken by shard so the order never depends on construction details
+        Arrays.sort(nodes, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        this.points = new long[nodes.length];
+        this.owners = new int[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            points[i] = nodes[i][0];
+            owners[i] = (int) nodes[i][1];
+        }
+    }
+
+    public int getShards() {
+        return shards;
+    }
+
+    // Expects the canonical ISBN, so every spelling of one book lands on the same shard
+    public int shardFor(String isbn) {
+        int index = Arrays.binarySearch(points, hash(isbn));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    // FNV-1a over the UTF-16 chars, then a 64-bit finalizer so short, similar keys spread over the whole ring
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash = (hash ^ key.charAt(i)) * 0x100000001b3L;
+        }
+        hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+}
@@ -0,0 +1,238 @@
+package BookStore.example.BookStore.service;
+
+import BookStore.example.BookStore.model.Book;
+import BookStore.example.BookStore.model.Isbn;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * A BookStore split into independent shards, each a BookStore with its own inventory map,
+ * search index and ISBN order. A {@link ShardRing} assigns every ISBN to one shard. Single-book
+ * calls go straight to the owning shard: catalog changes are made by the shard, and lookups
+ * for getBook, buyBook and checkout read from it. Whole-catalog calls (getAllBooks,
+ * removeOutdatedBooks, listBooks and searchBooks) go to every shard at once on a small pool
+ * and the answers are merged.
+ *
+ * Sales run here rather than on a shard, on the book the shard returned, so a checkout may
+ * span shards and keeps its all-or-nothing reservation. Listeners and purchase metrics are
+ * registered with this store and every shard. Catalog events come from the shard that made the
+ * change, and sale events come from this store, so each event is still delivered once.
+ */
+public class ShardedBookStore extends BookStore implements AutoCloseable {
+    private final ShardRing ring;
+    private final List<BookStore> shards;
+    private final ExecutorService scatter;
+
+    // Heap shards with direct fulfilment, e.g. for tests
+    public ShardedBookStore(ShippingService shippingService, MailService mailService, int shardCount, int virtualNodes) {
+        this(new DirectFulfilmentService(shippingService, mailService), shardCount, virtualNodes, ConcurrentHashMap::new);
+    }
+
+    // Each shard gets a fresh map from inventories; all of them share the fulfilment service
+    public ShardedBookStore(FulfilmentService fulfilment, int shardCount, int virtualNodes,
+                            Supplier<? extends ConcurrentMap<String, Book>> inventories) {
+        super(fulfilment);
+        this.ring = new ShardRing(shardCount, virtualNodes);
+        List<BookStore> stores = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            stores.add(new BookStore(fulfilment, inventories.get()));
+        }
+        this.shards = Collections.unmodifiableList(stores);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.scatter = Executors.newFixedThreadPool(shardCount, runnable -> {
+            Thread thread = new Thread(runnable, "shard-scatter-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public List<BookStore> getShards() {
+        return shards;
+    }
+
+    public BookStore shardFor(String isbn) {
+        return shards.get(ring.shardFor(Isbn.canonical(isbn)));
+    }
+
+    @Override
+    Book find(String isbn) {
+        return shards.get(ring.shardFor(isbn)).find(isbn);
+    }
+
+    @Override
+    boolean whileStored(Book book, Runnable action) {
+        return owner(book).whileStored(book, action);
+    }
+
+    @Override
+    public void addBook(Book book) {
+        owner(book).addBook(book);
+    }
+
+    @Override
+    public List<Book> addBooks(Iterable<Book> books) {
+        List<List<Book>> batches = split(books);
+        List<Book> skipped = new ArrayList<>();
+        for (List<Book> shardSkipped : scatter(i -> shards.get(i).addBooks(batches.get(i)))) {
+            skipped.addAll(shardSkipped);
+        }
+        return skipped;
+    }
+
+    @Override
+    public void updateBook(Book book) {
+        owner(book).updateBook(book);
+    }
+
+    @Override
+    public void addOrUpdateBook(Book book) {
+        owner(book).addOrUpdateBook(book);
+    }
+
+    @Override
+    public List<Book> removeOutdatedBooks(int yearsThreshold) {
+        List<Book> removed = new ArrayList<>();
+        for (List<Book> shardRemoved : scatter(i -> shards.get(i).removeOutdatedBooks(yearsThreshold))) {
+            removed.addAll(shardRemoved);
+        }
+        return removed;
+    }
+
+    @Override
+    public void restoreInventory(Collection<Book> books) {
+        List<List<Book>> batches = split(books);
+        for (int i = 0; i < shards.size(); i++) {
+            if (!batches.get(i).isEmpty()) {
+                shards.get(i).restoreInventory(batches.get(i));
+            }
+        }
+    }
+
+    @Override
+    public Collection<Book> getAllBooks() {
+        List<Collection<Book>> parts = scatter(i -> new ArrayList<>(shards.get(i).getAllBooks()));
+        List<Book> books = new ArrayList<>(parts.stream().mapToInt(Collection::size).sum());
+        for (Collection<Book> part : parts) {
+            books.addAll(part);
+        }
+        return books;
+    }
+
+    // Every shard returns its own next page after the cursor; the first limit of their union, in ISBN order, is this page
+    @Override
+    public CatalogPage listBooks(String afterIsbn, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Quantum book store - Page limit must be positive. Requested: " + limit);
+        }
+        List<CatalogPage> pages = scatter(i -> shards.get(i).listBooks(afterIsbn, limit));
+        boolean more = false;
+        List<Book> merged = new ArrayList<>();
+        for (CatalogPage page : pages) {
+            merged.addAll(page.getBooks());
+            more |= page.getNextIsbn() != null;
+        }
+        merged.sort(Comparator.comparing(Book::getIsbn));
+        if (merged.size() > limit) {
+            merged = new ArrayList<>(merged.subList(0, limit));
+            more = true;
+        }
+        return new CatalogPage(merged, more && !merged.isEmpty() ? merged.get(merged.size() - 1).getIsbn() : null);
+    }
+
+    // Each shard ranks its own matches; the top page + 1 pages of each are enough to merge any page
+    @Override
+    public SearchResults searchBooks(String query, String bookType, Integer yearFrom, Integer yearTo, int page, int size) {
+        if (page < 0 || size <= 0) {
+            throw new IllegalArgumentException("Quantum book store - Invalid page request: page " + page + ", size " + size);
+        }
+        int limit = (int) Math.min((long) (page + 1) * size, Integer.MAX_VALUE);
+        List<BookSearchIndex.Hit> merged = new ArrayList<>();
+        int total = 0;
+        for (BookSearchIndex.Ranking ranking : scatter(i -> shards.get(i).rankBooks(query, bookType, yearFrom, yearTo, limit))) {
+            merged.addAll(ranking.top());
+            total += ranking.total();
+        }
+        merged.sort(BookSearchIndex.ORDER);
+        return BookSearchIndex.page(merged, total, page, size);
+    }
+
+    @Override
+    public void addInventoryListener(InventoryListener listener) {
+        super.addInventoryListener(listener);
+        for (BookStore shard : shards) {
+            shard.addInventoryListener(listener);
+        }
+    }
+
+    @Override
+    public void removeInventoryListener(InventoryListener listener) {
+        super.removeInventoryListener(listener);
+        for (BookStore shard : shards) {
+            shard.removeInventoryListener(listener);
+        }
+    }
+
+    @Override
+    public void setPurchaseMetrics(PurchaseMetrics purchaseMetrics) {
+        super.setPurchaseMetrics(purchaseMetrics);
+        for (BookStore shard : shards) {
+            shard.setPurchaseMetrics(purchaseMetrics);
+        }
+    }
+
+    @Override
+    public void displayInventory() {
+        for (int i = 0; i < shards.size(); i++) {
+            System.out.println("Quantum book store - Shard " + i + " of " + shards.size() + ":");
+            shards.get(i).displayInventory();
+        }
+    }
+
+    @Override
+    public void close() {
+        scatter.shutdown();
+    }
+
+    private BookStore owner(Book book) {
+        return shards.get(ring.shardFor(book.getIsbn()));
+    }
+
+    private List<List<Book>> split(Iterable<Book> books) {
+        List<List<Book>> batches = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            batches.add(new ArrayList<>());
+        }
+        for (Book book : books) {
+            batches.get(ring.shardFor(book.getIsbn())).add(book);
+        }
+        return batches;
+    }
+
+    // Runs the call for every shard index at once; results come back in shard order
+    private <T> List<T> scatter(IntFunction<T> call) {
+        List<Future<T>> futures = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            int shard = i;
+            futures.add(scatter.submit(() -> call.apply(shard)));
+        }
+        List<T> results = new ArrayList<>(shards.size());
+        for (Future<T> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Quantum book store - Interrupted while waiting for shards", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                throw new IllegalStateException("Quantum book store - Shard call failed", e.getCause());
+            }
+        }
+        return results;
+    }
+}
@@ -0,0 +1,161 @@
+package BookStore.example.BookStore.service;
+
+import BookStore.example.BookStore.model.PaperBook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * ShippingService decorator that consolidates pending shipments by destination.
+ * Requests whose addresses normalize to the same key within {@code window} (or
+ * until {@code maxLinesPerShipment} requests are pending) are dispatched as one
+ * multi-line {@link ShippingService#shipBooks} call, with repeated ISBNs merged.
+ *
+ * {@link #shipBooks} returns once the lines are queued. {@link #shipBooksAsync} returns a
+ * future that completes when their consolidated shipment has been dispatched, or fails with
+ * the carrier's error, so a caller such as {@link FulfilmentPipeline} can retry it.
+ */
+public class ShipmentConsolidator implements ShippingService, AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(ShipmentConsolidator.class);
+    private static final Pattern ADDRESS_SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final ShippingService delegate;
+    private final CoalescingBuffer<PendingShipment> buffer;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder shipments = new LongAdder();
+    private final LongAdder failedShipments = new LongAdder();
+    private final LongAccumulator largestBatch = new LongAccumulator(Math::max, 0);
+
+    public ShipmentConsolidator(Duration window, int maxLinesPerShipment) {
+        this(new ShippingServiceImpl(), window, maxLinesPerShipment);
+    }
+
+    public ShipmentConsolidator(ShippingService delegate, Duration window, int maxLinesPerShipment) {
+        this.delegate = delegate;
+        this.buffer = new CoalescingBuffer<>("shipment-consolidator", window, maxLinesPerShipment, this::dispatch);
+    }
+
+    @Override
+    public void shipBook(PaperBook book, int quantity, String address) {
+        requests.increment();
+        buffer.add(normalizeAddress(address), List.of(new PendingShipment(book, quantity, address, null)));
+    }
+
+    @Override
+    public void shipBooks(List<ShipmentLine> lines, String address) {
+        enqueue(lines, address, null);
+    }
+
+    @Override
+    public CompletableFuture<Void> shipBooksAsync(List<ShipmentLine> lines, String address) {
+        CompletableFuture<Void> dispatched = new CompletableFuture<>();
+        enqueue(lines, address, dispatched);
+        return dispatched;
+    }
+
+    // Sends whatever is still pending, e.g. on shutdown
+    public void flush() {
+        buffer.flush();
+    }
+
+    // Shipment requests received, before consolidation
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    // Carrier calls actually made
+    public long getShipments() {
+        return shipments.sum();
+    }
+
+    public long getFailedShipments() {
+        return failedShipments.sum();
+    }
+
+    public long getLargestBatch() {
+        return largestBatch.get();
+    }
+
+    // Requests per carrier call; 1.0 means nothing was consolidated
+    public double getConsolidationRatio() {
+        long dispatched = shipments.sum();
+        return dispatched == 0 ? 0 : (double) requests.sum() / dispatched;
+    }
+
+    @Override
+    public void close() {
+        buffer.close();
+    }
+
+    static String normalizeAddress(String address) {
+        if (address == null) {
+            return "";
+        }
+        return ADDRESS_SEPARATORS.matcher(address.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    // Every line of one call shares its future, which is null when nobody waits for the outcome
+    private void enqueue(List<ShipmentLine> lines, String address, CompletableFuture<Void> dispatched) {
+        List<PendingShipment> pending = new ArrayList<>(lines.size());
+        for (ShipmentLine line : lines) {
+            pending.add(new PendingShipment(line.getBook(), line.getQuantity(), address, dispatched));
+        }
+        requests.add(lines.size());
+        buffer.add(normalizeAddress(address), pending);
+    }
+
+    private void dispatch(String addressKey, List<PendingShipment> pending) {
+        Map<String, PaperBook> books = new LinkedHashMap<>();
+        Map<String, Integer> quantities = new HashMap<>();
+        for (PendingShipment shipment : pending) {
+            books.putIfAbsent(shipment.book.getIsbn(), shipment.book);
+            quantities.merge(shipment.book.getIsbn(), shipment.quantity, Integer::sum);
+        }
+        List<ShipmentLine> lines = new ArrayList<>(books.size());
+        for (Map.Entry<String, PaperBook> entry : books.entrySet()) {
+            lines.add(new ShipmentLine(entry.getValue(), quantities.get(entry.getKey())));
+        }
+
+        String address = pending.get(0).address;
+        RuntimeException failure = null;
+        try {
+            delegate.shipBooks(lines, address);
+            shipments.increment();
+            largestBatch.accumulate(pending.size());
+        } catch (RuntimeException e) {
+            failure = e;
+            failedShipments.increment();
+            log.warn("Failed to dispatch {} shipment line(s) to {}: {}", lines.size(), address, e.getMessage());
+        }
+        for (PendingShipment shipment : pending) {
+            if (shipment.dispatched == null) {
+                continue;
+            }
+            if (failure == null) {
+                shipment.dispatched.complete(null);
+            } else {
+                shipment.dispatched.completeExceptionally(failure);
+            }
+        }
+    }
+
+    private static final class PendingShipment {
+        private final PaperBook book;
+        private final int quantity;
+        private final String address;
+        private final CompletableFuture<Void> dispatched;
+
+        PendingShipment(PaperBook book, int quantity, String address, CompletableFuture<Void> dispatched) {
+            this.book = book;
+            this.quantity = quantity;
+            this.address = address;
+            this.dispatched = dispatched;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package BookStore.example.BookStore.service;
+
+import BookStore.example.BookStore.model.PaperBook;
+
+// One book and quantity within a multi-line shipment
+public class ShipmentLine {
+    private final PaperBook book;
+    private final int quantity;
+
+    public ShipmentLine(PaperBook book, int quantity) {
+        this.book = book;
+        this.quantity = quantity;
+    }
+
+    public PaperBook getBook() {
+        return book;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+}
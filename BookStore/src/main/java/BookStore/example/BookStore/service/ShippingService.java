@@ -1,15 +1,56 @@
 package BookStore.example.BookStore.service;
 
 import BookStore.example.BookStore.model.PaperBook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 public interface ShippingService {
     void shipBook(PaperBook book, int quantity, String address);
+
+    // Several lines to one address; implementations that can should create a single shipment
+    default void shipBooks(List<ShipmentLine> lines, String address) {
+        for (ShipmentLine line : lines) {
+            shipBook(line.getBook(), line.getQuantity(), address);
+        }
+    }
+
+    // Completes when the carrier has accepted the shipment, or exceptionally if it refused it.
+    // Services that ship later, e.g. consolidated, override this to report the real outcome
+    default CompletableFuture<Void> shipBooksAsync(List<ShipmentLine> lines, String address) {
+        try {
+            shipBooks(lines, address);
+            return CompletableFuture.completedFuture(null);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
 }
 
 class ShippingServiceImpl implements ShippingService {
+    private static final Logger log = LoggerFactory.getLogger(ShippingServiceImpl.class);
+
     @Override
     public void shipBook(PaperBook book, int quantity, String address) {
-        System.out.println("Quantum book store - Shipping " + quantity + " copy(ies) of '" + 
-                         book.getTitle() + "' to address: " + address);
+        log.info("Shipping {} copy(ies) of '{}' to address: {}", quantity, book.getTitle(), address);
+    }
+
+    @Override
+    public void shipBooks(List<ShipmentLine> lines, String address) {
+        if (lines.size() == 1) {
+            shipBook(lines.get(0).getBook(), lines.get(0).getQuantity(), address);
+            return;
+        }
+        // The line summary is only built when the event is actually logged
+        log.atInfo()
+           .setMessage("Shipping {} line(s) to address: {} - {}")
+           .addArgument(lines.size())
+           .addArgument(address)
+           .addArgument(() -> lines.stream().map(line -> line.getQuantity() + " x '" + line.getBook().getTitle() + "'")
+                                   .collect(Collectors.joining(", ")))
+           .log();
     }
-} 
\ No newline at end of file
+} 
@@ -0,0 +1,178 @@
+package BookStore.example.BookStore.service;
+
+import BookStore.example.BookStore.model.Book;
+import BookStore.example.BookStore.model.Isbn;
+import BookStore.example.BookStore.model.PaperBook;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Two-phase paper book purchases: reserve copies, then confirm or cancel the hold within its
+ * TTL, e.g. while payment goes through. A hold is a PaperBook reservation, so held copies drop
+ * out of the book's available stock at once and come back when the hold is cancelled or expires.
+ * Expiry runs on an {@link ExpiryWheel} rather than a task per hold, so outstanding holds cost
+ * a map entry and a wheel entry each.
+ *
+ * Holds live in memory only; after a restart the recovered inventory has every copy available.
+ * A hold belongs to the book it was taken on: if that book is updated or removed before the hold
+ * is confirmed, confirming fails and the buyer has to reserve again.
+ */
+public class StockReservations implements AutoCloseable {
+    private static final int HELD = 0;
+    private static final int CONFIRMING = 1;
+    private static final int DONE = 2;
+
+    private final class Hold {
+        private final String token;
+        private final PaperBook book;
+        private final int quantity;
+        private final long expiresAtNanos;
+        private final AtomicInteger state = new AtomicInteger(HELD);
+
+        private Hold(String token, PaperBook book, int quantity, long expiresAtNanos) {
+            this.token = token;
+            this.book = book;
+            this.quantity = quantity;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        // Gives the copies back unless the hold was already confirmed, cancelled or expired
+        private boolean release() {
+            if (!state.compareAndSet(HELD, DONE)) {
+                return false;
+            }
+            end();
+            book.release(quantity);
+            bookStore.held(book);
+            return true;
+        }
+
+        private void end() {
+            holds.remove(token);
+        }
+
+        @Override
+        public String toString() {
+            return "hold " + token + " of " + quantity + " x " + book.getIsbn();
+        }
+    }
+
+    private final BookStore bookStore;
+    private final Duration defaultTtl;
+    private final Duration maxTtl;
+    private final int maxHolds;
+    private final ConcurrentMap<String, Hold> holds = new ConcurrentHashMap<>();
+    private final ExpiryWheel<Hold> wheel;
+    private final LongAdder expired = new LongAdder();
+
+    // tick is how late a hold may expire; tick x slots should be about the usual TTL
+    public StockReservations(BookStore bookStore, Duration defaultTtl, Duration maxTtl, int maxHolds,
+                             Duration tick, int slots) {
+        if (defaultTtl.isNegative() || defaultTtl.isZero() || maxTtl.compareTo(defaultTtl) < 0 || maxHolds <= 0) {
+            throw new IllegalArgumentException("Quantum book store - Reservation TTLs and hold limit must be positive");
+        }
+        this.bookStore = bookStore;
+        this.defaultTtl = defaultTtl;
+        this.maxTtl = maxTtl;
+        this.maxHolds = maxHolds;
+        this.wheel = new ExpiryWheel<>("reservation-expiry", tick, slots, this::expire);
+    }
+
+    // ttl may be null for the default; it is capped at maxTtl
+    public Reservation reserve(String isbn, int quantity, Duration ttl) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantum book store - Quantity must be positive. Requested: " + quantity);
+        }
+        if (ttl != null && (ttl.isNegative() || ttl.isZero())) {
+            throw new IllegalArgumentException("Quantum book store - Reservation TTL must be positive");
+        }
+        Book book = bookStore.getBook(Isbn.canonical(isbn));
+        if (book == null) {
+            throw new IllegalArgumentException("Quantum book store - Book with ISBN " + isbn + " not found");
+        }
+        if (!(book instanceof PaperBook paperBook)) {
+            throw new IllegalArgumentException("Quantum book store - Only paper books can be reserved");
+        }
+        if (holds.size() >= maxHolds) {
+            throw new IllegalStateException("Quantum book store - Too many reservations outstanding: " + maxHolds);
+        }
+        if (!paperBook.tryReserve(quantity)) {
+            throw new IllegalStateException("Quantum book store - Insufficient stock. Available: " +
+                                            paperBook.getAvailableStock() + ", Requested: " + quantity);
+        }
+        Duration holdFor = ttl == null ? defaultTtl : (ttl.compareTo(maxTtl) > 0 ? maxTtl : ttl);
+        long expiresAtNanos = System.nanoTime() + holdFor.toNanos();
+        Hold hold = new Hold(UUID.randomUUID().toString(), paperBook, quantity, expiresAtNanos);
+        holds.put(hold.token, hold);
+        wheel.schedule(hold, expiresAtNanos);
+        bookStore.held(paperBook);
+        return new Reservation(hold.token, paperBook.getIsbn(), quantity, Instant.now().plus(holdFor));
+    }
+
+    // Ships the held copies and charges for them. An unknown, expired, cancelled or already
+    // confirmed token fails with RESERVATION_NOT_FOUND. If fulfilment throws, the hold stays
+    // in place until it expires so the confirm can be retried
+    public PurchaseResult confirm(String token, String address) {
+        Hold hold = token == null ? null : holds.get(token);
+        if (hold == null || !hold.state.compareAndSet(HELD, CONFIRMING)) {
+            return PurchaseResult.failed(PurchaseFailure.RESERVATION_NOT_FOUND);
+        }
+        if (System.nanoTime() - hold.expiresAtNanos >= 0 || !hold.book.equals(bookStore.getBook(hold.book.getIsbn()))) {
+            hold.state.set(HELD);
+            hold.release();
+            return PurchaseResult.failed(PurchaseFailure.RESERVATION_NOT_FOUND);
+        }
+        PurchaseResult result;
+        try {
+            result = bookStore.buyReserved(hold.book, hold.quantity, address);
+        } catch (RuntimeException e) {
+            hold.state.set(HELD);
+            // The wheel skipped it while it was confirming
+            if (System.nanoTime() - hold.expiresAtNanos >= 0) {
+                expire(hold);
+            }
+            throw e;
+        }
+        hold.state.set(DONE);
+        hold.end();
+        return result;
+    }
+
+    // Copies the hold with this token is for, or 0 if the token is unknown or the hold already ended
+    public int getQuantity(String token) {
+        Hold hold = token == null ? null : holds.get(token);
+        return hold == null ? 0 : hold.quantity;
+    }
+
+    // False if the token is unknown or the hold already ended
+    public boolean cancel(String token) {
+        Hold hold = token == null ? null : holds.get(token);
+        return hold != null && hold.release();
+    }
+
+    public int getOutstanding() {
+        return holds.size();
+    }
+
+    public long getExpired() {
+        return expired.sum();
+    }
+
+    // Called by the wheel for every hold whose TTL has passed, including ones that already ended
+    private void expire(Hold hold) {
+        if (hold.release()) {
+            expired.increment();
+        }
+    }
+
+    @Override
+    public void close() {
+        wheel.close();
+    }
+}
@@ -2,10 +2,19 @@
 let allBooks = [];
 let currentBookType = 'paper';
 let currentFilter = 'all';
+let searchTimer = null;
+let displayedBooks = [];
+let nextCursor = null;
+let changeFeed = null;
+let renderPending = false;
 
 // API Base URL
 const API_BASE = '/api/books';
 
+// Catalog paging: only the attributes the book cards render are requested
+const PAGE_SIZE = 60;
+const CARD_FIELDS = 'isbn,title,author,yearPublished,price,stock,fileType,bookType';
+
 // DOM Content Loaded
 document.addEventListener('DOMContentLoaded', function() {
     initializeApp();
@@ -15,8 +24,71 @@ document.addEventListener('DOMContentLoaded', function() {
 function initializeApp() {
     console.log('Quantum book store: Initializing frontend application...');
     setupEventListeners();
-    loadBooks();
-    updateInventoryStats();
+    connectChangeFeed();
+}
+
+// Live catalog changes over server-sent events. The catalog is (re)loaded whenever the stream
+// opens, including after an automatic reconnect, and changes are applied to it from then on
+function connectChangeFeed() {
+    if (!window.EventSource) {
+        loadBooks().then(updateInventoryStats);
+        return;
+    }
+    changeFeed = new EventSource(`${API_BASE}/changes`);
+    changeFeed.addEventListener('open', () => loadBooks().then(updateInventoryStats));
+    ['added', 'updated', 'stock'].forEach(type =>
+        changeFeed.addEventListener(type, e => applyBookChange(type, JSON.parse(e.data))));
+    changeFeed.addEventListener('removed', e => removeBook(JSON.parse(e.data).isbn));
+    changeFeed.addEventListener('resync', () => loadBooks().then(updateInventoryStats));
+    // The browser retries dropped streams itself; a refused one (e.g. feed full) falls back to reloads
+    changeFeed.addEventListener('error', () => {
+        if (changeFeed && changeFeed.readyState === EventSource.CLOSED) {
+            changeFeed = null;
+            loadBooks().then(updateInventoryStats);
+        }
+    });
+}
+
+// Merge a changed book into the loaded catalog and into the books on screen
+function applyBookChange(type, change) {
+    const index = allBooks.findIndex(b => b.isbn === change.isbn);
+    if (index >= 0) {
+        Object.assign(allBooks[index], change);
+    } else if (type !== 'stock' && isWithinLoadedPages(change.isbn)) {
+        // Keep ISBN order so the cursor for the next page stays right
+        const at = allBooks.findIndex(b => b.isbn > change.isbn);
+        allBooks.splice(at < 0 ? allBooks.length : at, 0, change);
+    }
+    if (displayedBooks !== allBooks) {
+        const shown = displayedBooks.find(b => b.isbn === change.isbn);
+        if (shown) {
+            Object.assign(shown, change);
+        }
+    }
+    scheduleRender();
+}
+
+function removeBook(isbn) {
+    allBooks = allBooks.filter(b => b.isbn !== isbn);
+    displayedBooks = displayedBooks.filter(b => b.isbn !== isbn);
+    scheduleRender();
+}
+
+// Books after the last loaded page arrive with "Load more" instead
+function isWithinLoadedPages(isbn) {
+    return !nextCursor || (allBooks.length > 0 && isbn < allBooks[allBooks.length - 1].isbn);
+}
+
+// A burst of changes is drawn once
+function scheduleRender() {
+    if (renderPending) return;
+    renderPending = true;
+    setTimeout(() => {
+        renderPending = false;
+        const showingAll = document.getElementById('searchInput').value.trim() === '' && currentFilter === 'all';
+        displayBooks(showingAll ? allBooks : displayedBooks);
+        updateInventoryStats();
+    }, 100);
 }
 
 // Setup event listeners
@@ -85,7 +157,11 @@ function switchTab(tabName) {
 
     // Load specific tab data
     if (tabName === 'browse') {
-        loadBooks();
+        if (changeFeed) {
+            displayBooks(allBooks);
+        } else {
+            loadBooks();
+        }
     } else if (tabName === 'manage') {
         updateInventoryStats();
     }
@@ -135,19 +211,14 @@ function updateFormFields(type) {
     }
 }
 
-// Load all books
+// Load the first page of books
 async function loadBooks() {
     console.log('Quantum book store: Loading books from server...');
     try {
         showLoading();
-        const response = await fetch(API_BASE);
-        if (response.ok) {
-            allBooks = await response.json();
-            displayBooks(allBooks);
-            console.log(`Quantum book store: Loaded ${allBooks.length} books successfully`);
-        } else {
-            throw new Error('Failed to load books');
-        }
+        allBooks = await fetchBookPage(null);
+        displayBooks(allBooks);
+        console.log(`Quantum book store: Loaded ${allBooks.length} books successfully`);
     } catch (error) {
         console.error('Quantum book store: Error loading books:', error);
         showNotification('Failed to load books', 'error');
@@ -156,9 +227,43 @@ async function loadBooks() {
     }
 }
 
+// Append the next page of books
+async function loadMoreBooks() {
+    if (!nextCursor) return;
+    try {
+        const books = await fetchBookPage(nextCursor);
+        allBooks = allBooks.concat(books);
+        displayBooks(allBooks);
+    } catch (error) {
+        console.error('Quantum book store: Error loading more books:', error);
+        showNotification('Failed to load more books', 'error');
+    }
+}
+
+// Fetch one ISBN-ordered page and remember the cursor for the next one
+async function fetchBookPage(cursor) {
+    const params = new URLSearchParams({ limit: PAGE_SIZE, fields: CARD_FIELDS });
+    if (cursor) {
+        params.set('cursor', cursor);
+    }
+    // no-cache revalidates the stored page with its ETag; an unchanged catalog answers 304 with no body
+    const response = await fetch(`${API_BASE}?${params}`, { cache: 'no-cache' });
+    if (!response.ok) {
+        throw new Error('Failed to load books');
+    }
+    nextCursor = response.headers.get('X-Next-Cursor');
+    return response.json();
+}
+
+// Find a book among those currently shown or loaded
+function findBook(isbn) {
+    return displayedBooks.find(b => b.isbn === isbn) || allBooks.find(b => b.isbn === isbn);
+}
+
 // Display books in grid
 function displayBooks(books) {
     const grid = document.getElementById('booksGrid');
+    displayedBooks = books;
     
     if (books.length === 0) {
         grid.innerHTML = '<p style="text-align: center; color: #666;">No books found.</p>';
@@ -166,11 +271,18 @@ function displayBooks(books) {
     }
 
     grid.innerHTML = books.map(book => createBookCard(book)).join('');
+    if (books === allBooks && nextCursor) {
+        grid.innerHTML += `
+            <button class="btn btn-secondary" onclick="loadMoreBooks()">
+                <i class="fas fa-chevron-down"></i> Load more
+            </button>
+        `;
+    }
 }
 
 // Create book card HTML
 function createBookCard(book) {
-    const bookType = book.type || getBookTypeFromClass(book);
+    const bookType = book.bookType || getBookTypeFromClass(book);
     const stockInfo = getStockInfo(book);
     const isPurchasable = book.price > 0 && (!book.stock || book.stock > 0);
     
@@ -243,31 +355,39 @@ function filterBooks(filter) {
     });
     document.querySelector(`[data-filter="${filter}"]`).classList.add('active');
 
-    // Filter and display books
-    let filteredBooks = allBooks;
-    if (filter !== 'all') {
-        filteredBooks = allBooks.filter(book => getBookTypeFromClass(book) === filter);
-    }
-
-    displayBooks(filteredBooks);
+    runSearch(document.getElementById('searchInput').value);
 }
 
-// Search books
+// Search books (debounced so typing does not send a request per keystroke)
 function searchBooks(query) {
-    if (!query.trim()) {
-        filterBooks(currentFilter);
+    clearTimeout(searchTimer);
+    searchTimer = setTimeout(() => runSearch(query), 250);
+}
+
+// Run the search and type filter on the server
+async function runSearch(query) {
+    if (!query.trim() && currentFilter === 'all') {
+        displayBooks(allBooks);
         return;
     }
 
-    console.log(`Quantum book store: Searching for: ${query}`);
-    const searchTerm = query.toLowerCase();
-    const searchResults = allBooks.filter(book => 
-        book.title.toLowerCase().includes(searchTerm) ||
-        book.author.toLowerCase().includes(searchTerm) ||
-        book.isbn.toLowerCase().includes(searchTerm)
-    );
+    console.log(`Quantum book store: Searching for: "${query}" in ${currentFilter}`);
+    const params = new URLSearchParams({ q: query.trim(), page: 0, size: 100 });
+    if (currentFilter !== 'all') {
+        params.set('type', currentFilter);
+    }
 
-    displayBooks(searchResults);
+    try {
+        const response = await fetch(`${API_BASE}/search?${params}`);
+        if (!response.ok) {
+            throw new Error('Search failed');
+        }
+        const page = await response.json();
+        displayBooks(page.results);
+    } catch (error) {
+        console.error('Quantum book store: Error searching books:', error);
+        showNotification('Search failed', 'error');
+    }
 }
 
 // Handle add book form submission
@@ -298,8 +418,7 @@ async function handleAddBook(e) {
         if (response.ok) {
             showNotification(result, 'success');
             e.target.reset();
-            loadBooks(); // Refresh the books list
-            updateInventoryStats();
+            refreshUnlessLive();
             console.log(`Quantum book store: ${result}`);
         } else {
             throw new Error(result);
@@ -310,10 +429,17 @@ async function handleAddBook(e) {
     }
 }
 
+// Without the change feed the catalog has to be reloaded to see a change
+function refreshUnlessLive() {
+    if (!changeFeed) {
+        loadBooks().then(updateInventoryStats);
+    }
+}
+
 // Open purchase modal
 function openPurchaseModal(isbn) {
     console.log(`Quantum book store: Opening purchase modal for ISBN: ${isbn}`);
-    const book = allBooks.find(b => b.isbn === isbn);
+    const book = findBook(isbn);
     if (!book) return;
 
     document.getElementById('purchaseIsbn').value = isbn;
@@ -354,7 +480,7 @@ function closePurchaseModal() {
 function updateTotalAmount() {
     const isbn = document.getElementById('purchaseIsbn').value;
     const quantity = parseInt(document.getElementById('quantity').value) || 1;
-    const book = allBooks.find(b => b.isbn === isbn);
+    const book = findBook(isbn);
     
     if (book) {
         const total = book.price * quantity;
@@ -389,8 +515,7 @@ async function handlePurchase(e) {
         if (response.ok) {
             showNotification(`${result.message} Amount paid: $${result.amount.toFixed(2)}`, 'success');
             closePurchaseModal();
-            loadBooks(); // Refresh to update stock
-            updateInventoryStats();
+            refreshUnlessLive(); // The new stock arrives over the change feed
             console.log(`Quantum book store: Purchase completed successfully. Amount: $${result.amount}`);
         } else {
             throw new Error(result.message || 'Purchase failed');
@@ -403,7 +528,7 @@ async function handlePurchase(e) {
 
 // View book details
 function viewBookDetails(isbn) {
-    const book = allBooks.find(b => b.isbn === isbn);
+    const book = findBook(isbn);
     if (!book) return;
 
     const bookType = getBookTypeFromClass(book);
@@ -444,8 +569,7 @@ async function removeOutdatedBooks() {
         if (response.ok) {
             const removedBooks = await response.json();
             showNotification(`Removed ${removedBooks.length} outdated books`, 'success');
-            loadBooks();
-            updateInventoryStats();
+            refreshUnlessLive();
             console.log(`Quantum book store: Successfully removed ${removedBooks.length} outdated books`);
         } else {
             throw new Error('Failed to remove outdated books');
@@ -543,4 +667,5 @@ function handleFetchError(error) {
 // Make sure all functions are globally accessible
 window.openPurchaseModal = openPurchaseModal;
 window.viewBookDetails = viewBookDetails;
+window.loadMoreBooks = loadMoreBooks;
 window.removeOutdatedBooks = removeOutdatedBooks; 
\ No newline at end of file
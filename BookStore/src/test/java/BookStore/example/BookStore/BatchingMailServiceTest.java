@@ -0,0 +1,131 @@
+package BookStore.example.BookStore;
+
+import BookStore.example.BookStore.model.*;
+import BookStore.example.BookStore.service.BatchingMailService;
+import BookStore.example.BookStore.service.BookStore;
+import BookStore.example.BookStore.service.DeliveryLine;
+import BookStore.example.BookStore.service.FulfilmentPipeline;
+import BookStore.example.BookStore.service.FulfilmentStageMetrics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+@DisplayName("Quantum Book Store Batched Mail Delivery Test")
+public class BatchingMailServiceTest {
+
+    private static final int ORDERS = 10_000;
+    private static final int RECIPIENTS = 100;
+    private static final long RELAY_LATENCY_NANOS = 20_000;
+
+    private final EBook eBook = new EBook("ISBN-MAIL-001", "Batched Delivery", "Mail Author", 2024, 5.00, "EPUB");
+
+    @Test
+    @DisplayName("Test Deliveries To One Recipient Are Coalesced")
+    void testDeliveriesAreCoalescedPerRecipient() throws Exception {
+        MailSink sink = new MailSink(0);
+        try (BatchingMailService mail = new BatchingMailService(sink, Duration.ofMillis(50), 100)) {
+            for (int i = 0; i < 5; i++) {
+                mail.sendEBook(eBook, "reader@example.com");
+            }
+            mail.sendEBook(eBook, "other@example.com");
+
+            awaitTrue(() -> sink.messageCount() == 2);
+            assertEquals(1, sink.messagesTo("reader@example.com"));
+            assertEquals(6, sink.bookCount());
+        }
+    }
+
+    @Test
+    @DisplayName("Test Full Batches Are Sent Without Waiting For The Window")
+    void testFullBatchesAreSentImmediately() throws Exception {
+        MailSink sink = new MailSink(0);
+        try (BatchingMailService mail = new BatchingMailService(sink, Duration.ofSeconds(30), 3)) {
+            for (int i = 0; i < 7; i++) {
+                mail.sendEBook(eBook, "reader@example.com");
+            }
+            assertEquals(2, sink.messageCount());
+        }
+        // Closing flushes the remainder
+        assertEquals(3, sink.messageCount());
+        assertEquals(7, sink.bookCount());
+    }
+
+    @Test
+    @DisplayName("Test A Large Quantity Is Queued As One Line")
+    void testLargeQuantityIsQueuedAsOneLine() throws Exception {
+        MailSink sink = new MailSink(0);
+        try (BatchingMailService mail = new BatchingMailService(sink, Duration.ofSeconds(30), 2)) {
+            mail.sendEBooks(List.of(new DeliveryLine(eBook, 1_000_000)), "reader@example.com");
+            mail.sendEBook(eBook, "reader@example.com");
+            // Two lines fill the batch, however many copies they carry
+            assertEquals(1, sink.messageCount());
+            assertEquals(1_000_001, sink.bookCount());
+            assertEquals(1_000_001, mail.getBooksSent());
+        }
+    }
+
+    @Test
+    @DisplayName("Test Failed Batch Is Retried By The Pipeline Until Sent")
+    void testFailedBatchIsRetried() throws Exception {
+        MailSink sink = new MailSink(0);
+        sink.failNext(1);
+        try (BatchingMailService mail = new BatchingMailService(sink, Duration.ofMillis(20), 100);
+             FulfilmentPipeline pipeline = new FulfilmentPipeline((book, quantity, address) -> { }, mail,
+                                                                  1, 10, 3, Duration.ofMillis(10))) {
+            BookStore bookStore = new BookStore(pipeline);
+            bookStore.addBook(eBook);
+            bookStore.buyBook(eBook.getIsbn(), 2, "reader@example.com", "");
+
+            awaitTrue(() -> pipeline.getMetrics().get("mail").getCompleted() == 1);
+            FulfilmentStageMetrics metrics = pipeline.getMetrics().get("mail");
+            assertEquals(1, metrics.getRetried());
+            assertEquals(0, metrics.getFailed());
+            assertEquals(1, mail.getFailedMessages());
+            assertEquals(1, sink.messageCount());
+            assertEquals(2, sink.bookCount());
+        }
+    }
+
+    @Test
+    @DisplayName("Test Message Count And Latency Under Synthetic Load")
+    void testMessageCountUnderLoad() throws Exception {
+        MailSink directSink = new MailSink(RELAY_LATENCY_NANOS);
+        BookStore direct = new BookStore((book, quantity, address) -> { }, directSink);
+        long directNanos = placeOrders(direct);
+
+        MailSink batchedSink = new MailSink(RELAY_LATENCY_NANOS);
+        long batchedNanos;
+        try (BatchingMailService mail = new BatchingMailService(batchedSink, Duration.ofMillis(50), 200)) {
+            BookStore batched = new BookStore((book, quantity, address) -> { }, mail);
+            batchedNanos = placeOrders(batched);
+        }
+
+        System.out.printf("Quantum book store - %d e-book orders: direct %d messages in %d ms, batched %d messages in %d ms%n",
+                          ORDERS, directSink.messageCount(), directNanos / 1_000_000,
+                          batchedSink.messageCount(), batchedNanos / 1_000_000);
+        assertEquals(ORDERS, directSink.messageCount());
+        assertEquals(ORDERS, batchedSink.bookCount());
+        assertTrue(batchedSink.messageCount() <= ORDERS / 10);
+    }
+
+    private long placeOrders(BookStore bookStore) {
+        bookStore.addBook(eBook);
+        long started = System.nanoTime();
+        for (int i = 0; i < ORDERS; i++) {
+            bookStore.buyBook(eBook.getIsbn(), 1, "reader" + (i % RECIPIENTS) + "@example.com", "");
+        }
+        return System.nanoTime() - started;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for mail");
+            Thread.sleep(5);
+        }
+    }
+}
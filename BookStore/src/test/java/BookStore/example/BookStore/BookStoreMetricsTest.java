@@ -0,0 +1,79 @@
+package BookStore.example.BookStore;
+
+import BookStore.example.BookStore.config.BookStoreMetrics;
+import BookStore.example.BookStore.model.*;
+import BookStore.example.BookStore.service.BookStore;
+import BookStore.example.BookStore.service.ShippingService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+@DisplayName("Quantum Book Store Metrics Test")
+public class BookStoreMetricsTest {
+
+    @Test
+    @DisplayName("Test Purchase Phases And Failures Are Recorded")
+    void testPurchasePhasesAndFailuresAreRecorded() {
+        BookStore bookStore = new BookStore((book, quantity, address) -> { }, (book, email) -> { });
+        bookStore.addBook(new PaperBook("ISBN-MET-001", "Clean Code", "Robert C. Martin", 2008, 42.99, 5));
+        bookStore.addBook(new EBook("ISBN-MET-002", "Refactoring", "Martin Fowler", 2018, 39.99, "PDF"));
+        bookStore.addBook(new ShowcaseBook("ISBN-MET-003", "Future Book", "Someone", 2025));
+        MeterRegistry registry = new SimpleMeterRegistry();
+        new BookStoreMetrics(bookStore).bindTo(registry);
+
+        bookStore.buyBook("ISBN-MET-001", 2, "reader@example.com", "12 Main St");
+        bookStore.buyBook("ISBN-MET-002", 1, "reader@example.com", "12 Main St");
+        assertThrows(IllegalArgumentException.class, () -> bookStore.buyBook("ISBN-MET-404", 1, "reader@example.com", "12 Main St"));
+        assertThrows(IllegalArgumentException.class, () -> bookStore.buyBook("ISBN-MET-003", 1, "reader@example.com", "12 Main St"));
+        assertThrows(IllegalArgumentException.class, () -> bookStore.buyBook("ISBN-MET-001", 10, "reader@example.com", "12 Main St"));
+
+        assertEquals(2, registry.get("bookstore.purchase.phase").tag("phase", "lookup").timer().count());
+        assertEquals(1, registry.get("bookstore.purchase.phase").tag("phase", "reservation").timer().count());
+        assertEquals(2, registry.get("bookstore.purchase.phase").tag("phase", "fulfilment").timer().count());
+        assertEquals(1, registry.get("bookstore.purchase.failures").tag("reason", "not_found").counter().count());
+        assertEquals(1, registry.get("bookstore.purchase.failures").tag("reason", "not_for_sale").counter().count());
+        assertEquals(1, registry.get("bookstore.purchase.failures").tag("reason", "insufficient_stock").counter().count());
+        assertEquals(3, registry.get("bookstore.inventory.paper.stock").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Test Fulfilment Failure Is Counted")
+    void testFulfilmentFailureIsCounted() {
+        ShippingService carrierDown = (book, quantity, address) -> {
+            throw new IllegalStateException("Carrier down");
+        };
+        BookStore bookStore = new BookStore(carrierDown, (book, email) -> { });
+        bookStore.addBook(new PaperBook("ISBN-MET-101", "Clean Code", "Robert C. Martin", 2008, 42.99, 5));
+        MeterRegistry registry = new SimpleMeterRegistry();
+        new BookStoreMetrics(bookStore).bindTo(registry);
+
+        assertThrows(IllegalStateException.class, () -> bookStore.buyBook("ISBN-MET-101", 1, "reader@example.com", "12 Main St"));
+
+        assertEquals(1, registry.get("bookstore.purchase.failures").tag("reason", "fulfilment_failed").counter().count());
+        assertEquals(0, registry.get("bookstore.purchase.phase").tag("phase", "lookup").timer().count());
+    }
+
+    @Test
+    @DisplayName("Test Inventory Gauges Follow Changes")
+    void testInventoryGaugesFollowChanges() {
+        BookStore bookStore = new BookStore((book, quantity, address) -> { }, (book, email) -> { });
+        bookStore.addBook(new PaperBook("ISBN-MET-201", "Old Paper", "Someone", 1900, 10.00, 4));
+        MeterRegistry registry = new SimpleMeterRegistry();
+        new BookStoreMetrics(bookStore).bindTo(registry);
+
+        bookStore.addBook(new PaperBook("ISBN-MET-202", "New Paper", "Someone", 2024, 10.00, 6));
+        bookStore.addBook(new EBook("ISBN-MET-203", "Digital", "Someone", 2024, 5.00, "PDF"));
+        bookStore.updateBook(new EBook("ISBN-MET-202", "New Paper, Digital Edition", "Someone", 2024, 5.00, "EPUB"));
+        bookStore.removeOutdatedBooks(50);
+        bookStore.restoreInventory(List.of(new ShowcaseBook("ISBN-MET-204", "Preview", "Someone", 2026)));
+
+        assertEquals(0, registry.get("bookstore.inventory.books").tag("type", "Paper Book").gauge().value());
+        assertEquals(2, registry.get("bookstore.inventory.books").tag("type", "EBook").gauge().value());
+        assertEquals(1, registry.get("bookstore.inventory.books").tag("type", "Showcase/Demo Book").gauge().value());
+        assertEquals(0, registry.get("bookstore.inventory.paper.stock").gauge().value());
+    }
+}
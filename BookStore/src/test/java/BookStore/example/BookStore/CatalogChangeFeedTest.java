@@ -0,0 +1,235 @@
+package BookStore.example.BookStore;
+
+import BookStore.example.BookStore.model.*;
+import BookStore.example.BookStore.service.BookStore;
+import BookStore.example.BookStore.service.CatalogChangeFeed;
+import BookStore.example.BookStore.service.CatalogEvent;
+import BookStore.example.BookStore.service.CatalogEventSink;
+import BookStore.example.BookStore.service.InventoryListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+@DisplayName("Quantum Book Store Change Feed Test")
+public class CatalogChangeFeedTest {
+
+    private BookStore bookStore;
+    private CatalogChangeFeed changeFeed;
+
+    @BeforeEach
+    void setUp() {
+        bookStore = new BookStore((book, quantity, address) -> { }, (book, email) -> { });
+        changeFeed = new CatalogChangeFeed(bookStore, Duration.ofMillis(200), 5, 10, 2, Duration.ofMinutes(1));
+        bookStore.addInventoryListener(changeFeed);
+    }
+
+    @AfterEach
+    void tearDown() {
+        changeFeed.close();
+    }
+
+    // Collects every event a subscriber is sent
+    private static class RecordingSink implements CatalogEventSink {
+        final BlockingQueue<CatalogEvent> events = new LinkedBlockingQueue<>();
+        volatile boolean closed;
+
+        @Override
+        public void send(List<CatalogEvent> batch) throws IOException {
+            events.addAll(batch);
+        }
+
+        @Override
+        public void closed() {
+            closed = true;
+        }
+
+        CatalogEvent next() throws InterruptedException {
+            CatalogEvent event = events.poll(5, TimeUnit.SECONDS);
+            assertNotNull(event, "No catalog event arrived");
+            return event;
+        }
+    }
+
+    @Test
+    @DisplayName("Test Added Updated Removed And Stock Events")
+    void testAddedUpdatedRemovedAndStockEvents() throws InterruptedException {
+        RecordingSink sink = new RecordingSink();
+        changeFeed.subscribe(sink);
+
+        bookStore.addBook(new PaperBook("ISBN-FEED-001", "Clean Code", "Robert C. Martin", 2008, 42.99, 10));
+        CatalogEvent added = sink.next();
+        assertEquals(CatalogEvent.Type.ADDED, added.getType());
+        assertEquals("Clean Code", added.getBook().get("title"));
+        assertEquals(10, added.getBook().get("stock"));
+
+        bookStore.buyBook("ISBN-FEED-001", 2, "reader@example.com", "12 Main St");
+        CatalogEvent stock = sink.next();
+        assertEquals(CatalogEvent.Type.STOCK, stock.getType());
+        assertEquals(8, stock.getBook().get("stock"));
+        assertNull(stock.getBook().get("title"));
+
+        bookStore.updateBook(new PaperBook("ISBN-FEED-001", "Clean Code (2nd ed.)", "Robert C. Martin", 2008, 44.99, 8));
+        CatalogEvent updated = sink.next();
+        assertEquals(CatalogEvent.Type.UPDATED, updated.getType());
+        assertEquals(4499L, updated.getBook().get("priceCents"));
+
+        bookStore.removeOutdatedBooks(5);
+        CatalogEvent removed = sink.next();
+        assertEquals(CatalogEvent.Type.REMOVED, removed.getType());
+        assertEquals("ISBN-FEED-001", removed.getIsbn());
+    }
+
+    @Test
+    @DisplayName("Test Rapid Stock Updates Are Coalesced")
+    void testRapidStockUpdatesAreCoalesced() throws InterruptedException {
+        bookStore.addBook(new PaperBook("ISBN-FEED-002", "Refactoring", "Martin Fowler", 2018, 39.99, 500));
+        Thread.sleep(300);
+        RecordingSink sink = new RecordingSink();
+        changeFeed.subscribe(sink);
+
+        for (int i = 0; i < 100; i++) {
+            bookStore.buyBook("ISBN-FEED-002", 1, "reader@example.com", "12 Main St");
+        }
+        List<CatalogEvent> stockEvents = new ArrayList<>();
+        do {
+            stockEvents.add(sink.next());
+        } while (!Integer.valueOf(400).equals(stockEvents.get(stockEvents.size() - 1).getBook().get("stock")));
+        // 100 sales inside one or two dispatch intervals
+        assertTrue(stockEvents.size() <= 2, "Expected coalesced stock events, got " + stockEvents.size());
+        assertTrue(changeFeed.getEventsPublished() <= 3);
+    }
+
+    @Test
+    @DisplayName("Test Slow Subscriber Overflows Into Resync Without Holding Back Others")
+    void testSlowSubscriberOverflowsIntoResync() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingQueue<CatalogEvent> slowEvents = new LinkedBlockingQueue<>();
+        changeFeed.subscribe(events -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            slowEvents.addAll(events);
+        });
+        RecordingSink fast = new RecordingSink();
+        changeFeed.subscribe(fast);
+
+        // The slow subscriber is stuck sending this one while the rest pile up behind it
+        bookStore.addBook(new EBook("ISBN-FEED-100", "First", "Someone", 2020, 1.00, "PDF"));
+        assertEquals("ISBN-FEED-100", fast.next().getIsbn());
+        // Each burst fits a buffer of five, but two of them do not
+        for (int burst = 0; burst < 2; burst++) {
+            for (int i = 0; i < 4; i++) {
+                bookStore.addBook(new EBook("ISBN-FEED-" + burst + i, "Book " + burst + i, "Someone", 2020, 1.00, "PDF"));
+            }
+            for (int i = 0; i < 4; i++) {
+                assertEquals(CatalogEvent.Type.ADDED, fast.next().getType());
+            }
+        }
+        for (int i = 0; i < 50 && changeFeed.getResyncs() == 0; i++) {
+            Thread.sleep(100);
+        }
+        assertEquals(1, changeFeed.getResyncs());
+
+        release.countDown();
+        assertEquals("ISBN-FEED-100", slowEvents.poll(5, TimeUnit.SECONDS).getIsbn());
+        assertEquals(CatalogEvent.Type.RESYNC, slowEvents.poll(5, TimeUnit.SECONDS).getType());
+    }
+
+    @Test
+    @DisplayName("Test Overlapping Writers Publish Only Once Both Are Visible")
+    void testOverlappingWritersPublishOnceBothAreVisible() throws Exception {
+        bookStore.addBook(new PaperBook("ISBN-FEED-300", "Draft", "Someone", 2020, 10.00, 5));
+        RecordingSink sink = new RecordingSink();
+        changeFeed.subscribe(sink);
+        assertEquals(CatalogEvent.Type.ADDED, sink.next().getType());
+
+        // The first writer is held just before the feed hears its change is readable, the second
+        // inside its update, after the feed has seen it begin
+        CountDownLatch firstHeld = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        CountDownLatch secondHeld = new CountDownLatch(1);
+        CountDownLatch releaseSecond = new CountDownLatch(1);
+        bookStore.removeInventoryListener(changeFeed);
+        bookStore.addInventoryListener(new InventoryListener() {
+            @Override
+            public void bookChanged(String isbn) {
+                if (Thread.currentThread().getName().equals("first-writer")) {
+                    firstHeld.countDown();
+                    await(releaseFirst);
+                }
+            }
+        });
+        bookStore.addInventoryListener(changeFeed);
+        bookStore.addInventoryListener(new InventoryListener() {
+            @Override
+            public void bookUpdated(Book oldBook, Book newBook) {
+                if (Thread.currentThread().getName().equals("second-writer")) {
+                    secondHeld.countDown();
+                    await(releaseSecond);
+                }
+            }
+        });
+
+        Thread first = Thread.ofPlatform().name("first-writer").start(() ->
+                bookStore.updateBook(new PaperBook("ISBN-FEED-300", "First", "Someone", 2020, 10.00, 5)));
+        assertTrue(firstHeld.await(5, TimeUnit.SECONDS));
+        Thread second = Thread.ofPlatform().name("second-writer").start(() ->
+                bookStore.updateBook(new PaperBook("ISBN-FEED-300", "Second", "Someone", 2020, 10.00, 5)));
+        assertTrue(secondHeld.await(5, TimeUnit.SECONDS));
+
+        // The first change is readable but the second is not, so nothing goes out yet
+        releaseFirst.countDown();
+        first.join();
+        assertNull(sink.events.poll(600, TimeUnit.MILLISECONDS));
+
+        releaseSecond.countDown();
+        second.join();
+        CatalogEvent updated = sink.next();
+        assertEquals(CatalogEvent.Type.UPDATED, updated.getType());
+        assertEquals("Second", updated.getBook().get("title"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    @DisplayName("Test Failed Send Drops The Subscriber")
+    void testFailedSendDropsTheSubscriber() throws InterruptedException {
+        RecordingSink healthy = new RecordingSink();
+        changeFeed.subscribe(healthy);
+        RecordingSink broken = new RecordingSink() {
+            @Override
+            public void send(List<CatalogEvent> batch) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+        changeFeed.subscribe(broken);
+        assertEquals(2, changeFeed.getSubscriberCount());
+
+        bookStore.addBook(new EBook("ISBN-FEED-200", "Gone", "Someone", 2020, 1.00, "PDF"));
+        healthy.next();
+        for (int i = 0; i < 50 && !broken.closed; i++) {
+            Thread.sleep(100);
+        }
+        assertTrue(broken.closed);
+        assertEquals(1, changeFeed.getSubscriberCount());
+    }
+}
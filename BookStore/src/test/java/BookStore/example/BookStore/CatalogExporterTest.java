@@ -0,0 +1,94 @@
+package BookStore.example.BookStore;
+
+import BookStore.example.BookStore.model.*;
+import BookStore.example.BookStore.service.BookStore;
+import BookStore.example.BookStore.service.CatalogExporter;
+import BookStore.example.BookStore.service.CatalogImporter;
+import BookStore.example.BookStore.service.ImportReport;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@DisplayName("Quantum Book Store Catalog Export Test")
+public class CatalogExporterTest {
+
+    private final BookStore bookStore = new BookStore((book, quantity, address) -> { }, (book, email) -> { });
+
+    @Test
+    @DisplayName("Test Export Round Trips Through Import")
+    void testExportRoundTripsThroughImport() throws IOException {
+        bookStore.addBook(new PaperBook("ISBN-EXP-003", "Clean Code", "Robert C. Martin", 2008, 42.99, 7));
+        bookStore.addBook(new EBook("ISBN-EXP-001", "Refactoring", "Martin Fowler", 2018, 39.99, "PDF"));
+        bookStore.addBook(new ShowcaseBook("ISBN-EXP-002", "Future Book", "Someone", 2026));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = new CatalogExporter(bookStore, 2).exportBooks(out);
+        String export = out.toString(StandardCharsets.UTF_8);
+
+        assertEquals(3, written);
+        String[] lines = export.split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].contains("\"isbn\":\"ISBN-EXP-001\""));
+        assertTrue(lines[2].contains("\"stock\":7"));
+        assertFalse(lines[1].contains("price"));
+
+        BookStore copy = new BookStore((book, quantity, address) -> { }, (book, email) -> { });
+        ImportReport report = new CatalogImporter(copy, 100, 10).importBooks(new StringReader(export), CatalogImporter.Format.NDJSON);
+        assertEquals(3, report.getImported());
+        assertEquals(7, ((PaperBook) copy.getBook("ISBN-EXP-003")).getStock());
+        assertEquals("PDF", ((EBook) copy.getBook("ISBN-EXP-001")).getFileType());
+        assertInstanceOf(ShowcaseBook.class, copy.getBook("ISBN-EXP-002"));
+    }
+
+    @Test
+    @DisplayName("Test Records Are Not Torn By Concurrent Updates")
+    void testRecordsAreNotTornByConcurrentUpdates() throws Exception {
+        for (int i = 0; i < 200; i++) {
+            bookStore.addBook(versionA(i));
+        }
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread writer = new Thread(() -> {
+            for (int round = 0; running.get(); round++) {
+                for (int i = 0; i < 200; i++) {
+                    bookStore.updateBook(round % 2 == 0 ? versionB(i) : versionA(i));
+                }
+            }
+        });
+        writer.start();
+
+        ObjectMapper mapper = new ObjectMapper();
+        try {
+            for (int export = 0; export < 20; export++) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                new CatalogExporter(bookStore, 50).exportBooks(out);
+                String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+                assertEquals(200, lines.length);
+                for (String line : lines) {
+                    JsonNode row = mapper.readTree(line);
+                    boolean isA = row.get("title").asText().endsWith("A");
+                    assertEquals(isA ? 10.0 : 20.0, row.get("price").asDouble(), line);
+                    assertEquals(isA ? "PDF" : "EPUB", row.get("fileType").asText(), line);
+                }
+            }
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+    }
+
+    private static EBook versionA(int i) {
+        return new EBook(String.format("ISBN-TORN-%03d", i), "Edition A", "Someone", 2020, 10.0, "PDF");
+    }
+
+    private static EBook versionB(int i) {
+        return new EBook(String.format("ISBN-TORN-%03d", i), "Edition B", "Someone", 2021, 20.0, "EPUB");
+    }
+}
@@ -0,0 +1,150 @@
+package BookStore.example.BookStore;
+
+import BookStore.example.BookStore.model.*;
+import BookStore.example.BookStore.service.BookStore;
+import BookStore.example.BookStore.service.CatalogImporter;
+import BookStore.example.BookStore.service.ImportReport;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.List;
+
+@DisplayName("Quantum Book Store Catalog Import Test")
+public class CatalogImporterTest {
+
+    private final BookStore bookStore = new BookStore((book, quantity, address) -> { }, (book, email) -> { });
+
+    @Test
+    @DisplayName("Test NDJSON Import With Error Report")
+    void testNdjsonImportWithErrorReport() throws IOException {
+        bookStore.addBook(new PaperBook("ISBN-IMP-EXISTING", "Existing", "Someone", 2020, 10.00, 1));
+        String feed = """
+                {"type":"paper","isbn":"ISBN-IMP-001","title":"Clean Code","author":"Robert C. Martin","yearPublished":2008,"price":42.99,"stock":7}
+                {"type":"ebook","isbn":"ISBN-IMP-002","title":"Refactoring","author":"Martin Fowler","yearPublished":2018,"price":39.99,"fileType":"PDF","edition":2}
+
+                {"type":"showcase","isbn":"ISBN-IMP-003","title":"Future Book","author":"Someone","yearPublished":2026}
+                {"type":"paper","isbn":"ISBN-IMP-004","title":"Broken"
+                {"type":"paper","isbn":"ISBN-IMP-001","title":"Clean Code Again","yearPublished":2008,"price":1,"stock":1}
+                {"type":"paper","isbn":"ISBN-IMP-EXISTING","title":"Existing","yearPublished":2020,"price":10,"stock":1}
+                {"type":"ebook","isbn":"ISBN-IMP-005","title":"No Format","yearPublished":2020,"price":5}
+                {"type":"audio","isbn":"ISBN-IMP-006","title":"Podcast","yearPublished":2020}
+                {"type":"paper","isbn":"ISBN-IMP-007","title":"Priceless","yearPublished":2020,"price":1e20,"stock":1}
+                {"type":"paper","isbn":"ISBN-IMP-008","title":"After Priceless","yearPublished":2020,"price":3,"stock":1}
+                """;
+
+        ImportReport report = new CatalogImporter(bookStore, 2, 100)
+                .importBooks(new StringReader(feed), CatalogImporter.Format.NDJSON);
+
+        assertEquals(10, report.getRowsRead());
+        assertEquals(4, report.getImported());
+        assertEquals(6, report.getRejected());
+        assertFalse(report.isErrorsTruncated());
+        List<Long> lines = report.getErrors().stream().map(ImportReport.RowError::getLine).toList();
+        assertEquals(List.of(5L, 6L, 7L, 8L, 9L, 10L), lines);
+        assertTrue(report.getErrors().get(0).getMessage().startsWith("Malformed JSON"));
+        assertEquals("Duplicate ISBN earlier in the feed", report.getErrors().get(1).getMessage());
+        assertEquals("ISBN already in inventory", report.getErrors().get(2).getMessage());
+        assertEquals("Missing fileType", report.getErrors().get(3).getMessage());
+        assertEquals("Price is out of range", report.getErrors().get(5).getMessage());
+
+        assertEquals(7, ((PaperBook) bookStore.getBook("ISBN-IMP-001")).getStock());
+        assertEquals("PDF", ((EBook) bookStore.getBook("ISBN-IMP-002")).getFileType());
+        assertInstanceOf(ShowcaseBook.class, bookStore.getBook("ISBN-IMP-003"));
+        assertNotNull(bookStore.getBook("ISBN-IMP-008"));
+        assertEquals(1, bookStore.searchBooks("refactoring", null, null, null, 0, 10).getTotal());
+    }
+
+    @Test
+    @DisplayName("Test CSV Import With Quoted Fields")
+    void testCsvImportWithQuotedFields() throws IOException {
+        String feed = "isbn,type,title,author,yearPublished,price,stock,fileType\r\n" +
+                      "ISBN-CSV-001,paper,\"Patterns, Principles and Practices\",\"Scott \"\"Uncle\"\" Millett\",2015,35.50,3,\r\n" +
+                      "ISBN-CSV-002,ebook,\"Multi\nLine Title\",Someone,2019,9.99,,EPUB\r\n" +
+                      "ISBN-CSV-003,paper,Bad Year,Someone,twenty,1.00,1,\r\n" +
+                      "ISBN-CSV-004,paper,Too Few Fields\r\n" +
+                      "ISBN-CSV-005,paper,Negative Stock,Someone,2020,1.00,-1,\r\n";
+
+        ImportReport report = new CatalogImporter(bookStore, 1000, 100)
+                .importBooks(new StringReader(feed), CatalogImporter.Format.CSV);
+
+        assertEquals(5, report.getRowsRead());
+        assertEquals(2, report.getImported());
+        assertEquals(List.of(5L, 6L, 7L), report.getErrors().stream().map(ImportReport.RowError::getLine).toList());
+        assertEquals("Invalid yearPublished: 'twenty'", report.getErrors().get(0).getMessage());
+        assertEquals("Expected 8 fields but found 3", report.getErrors().get(1).getMessage());
+
+        assertEquals("Patterns, Principles and Practices", bookStore.getBook("ISBN-CSV-001").getTitle());
+        assertEquals("Scott \"Uncle\" Millett", bookStore.getBook("ISBN-CSV-001").getAuthor());
+        assertEquals("Multi\nLine Title", bookStore.getBook("ISBN-CSV-002").getTitle());
+    }
+
+    @Test
+    @DisplayName("Test Error Report Is Capped")
+    void testErrorReportIsCapped() throws IOException {
+        StringBuilder feed = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            feed.append("{\"type\":\"paper\",\"isbn\":\"ISBN-CAP-").append(i).append("\"}\n");
+        }
+
+        ImportReport report = new CatalogImporter(bookStore, 10, 5)
+                .importBooks(new StringReader(feed.toString()), CatalogImporter.Format.NDJSON);
+
+        assertEquals(50, report.getRejected());
+        assertEquals(5, report.getErrors().size());
+        assertTrue(report.isErrorsTruncated());
+    }
+
+    @Test
+    @DisplayName("Test Bulk Import Throughput")
+    void testBulkImportThroughput() throws IOException {
+        int rows = 200_000;
+        Reader feed = new GeneratedFeed(rows);
+
+        long start = System.nanoTime();
+        ImportReport report = new CatalogImporter(bookStore, 1000, 100).importBooks(feed, CatalogImporter.Format.NDJSON);
+        long elapsedNanos = System.nanoTime() - start;
+
+        assertEquals(rows, report.getImported());
+        assertEquals(rows, bookStore.getAllBooks().size());
+        System.out.println("Quantum book store - Imported " + rows + " books at " +
+                           (long) (rows / (elapsedNanos / 1e9)) + " books/s");
+    }
+
+    // Produces NDJSON rows on demand so the feed itself never sits in memory
+    private static class GeneratedFeed extends Reader {
+        private final int rows;
+        private int row;
+        private String current = "";
+        private int offset;
+
+        GeneratedFeed(int rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public int read(char[] buffer, int off, int len) {
+            if (offset == current.length()) {
+                if (row == rows) {
+                    return -1;
+                }
+                current = "{\"type\":\"paper\",\"isbn\":\"ISBN-GEN-" + row + "\",\"title\":\"Generated Book " + row +
+                          "\",\"author\":\"Author " + (row % 500) + "\",\"yearPublished\":" + (1990 + row % 35) +
+                          ",\"price\":19.99,\"stock\":" + (row % 50) + "}\n";
+                offset = 0;
+                row++;
+            }
+            int count = Math.min(len, current.length() - offset);
+            current.getChars(offset, offset + count, buffer, off);
+            offset += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package BookStore.example.BookStore;
+
+import BookStore.example.BookStore.model.*;
+import BookStore.example.BookStore.service.BookProjection;
+import BookStore.example.BookStore.service.BookStore;
+import BookStore.example.BookStore.service.CachedResponse;
+import BookStore.example.BookStore.service.CatalogResponseCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+@DisplayName("Quantum Book Store Response Cache Test")
+public class CatalogResponseCacheTest {
+
+    private BookStore bookStore;
+    private CatalogResponseCache responseCache;
+
+    @BeforeEach
+    void setUp() {
+        bookStore = new BookStore((book, quantity, address) -> { }, (book, email) -> { });
+        responseCache = new CatalogResponseCache(bookStore, new ObjectMapper(), 100, 100);
+        bookStore.addInventoryListener(responseCache);
+        bookStore.addBook(new PaperBook("ISBN-CACHE-001", "Clean Code", "Robert C. Martin", 2008, 42.99, 10));
+        bookStore.addBook(new EBook("ISBN-CACHE-002", "Refactoring", "Martin Fowler", 2018, 39.99, "PDF"));
+    }
+
+    @Test
+    @DisplayName("Test Book Detail Is Served From Cache Until The Book Changes")
+    void testBookDetailIsServedFromCacheUntilTheBookChanges() {
+        CachedResponse first = responseCache.getBook("ISBN-CACHE-001");
+        assertSame(first, responseCache.getBook(" ISBN-CACHE-001"));
+        assertTrue(new String(first.getBody(), StandardCharsets.UTF_8).contains("\"stock\":10"));
+        assertTrue(first.matches(first.getEtag()));
+        assertTrue(first.matches("\"other\", W/" + first.getEtag()));
+        assertTrue(first.matches("*"));
+        assertFalse(first.matches("\"other\""));
+        assertFalse(first.matches(null));
+        assertNull(responseCache.getBook("ISBN-CACHE-404"));
+
+        // A sale of another book leaves this one cached
+        CachedResponse eBook = responseCache.getBook("ISBN-CACHE-002");
+        bookStore.buyBook("ISBN-CACHE-001", 3, "reader@example.com", "12 Main St");
+        assertSame(eBook, responseCache.getBook("ISBN-CACHE-002"));
+
+        CachedResponse afterSale = responseCache.getBook("ISBN-CACHE-001");
+        assertNotSame(first, afterSale);
+        assertNotEquals(first.getEtag(), afterSale.getEtag());
+        assertFalse(afterSale.matches(first.getEtag()));
+        assertTrue(new String(afterSale.getBody(), StandardCharsets.UTF_8).contains("\"stock\":7"));
+
+        bookStore.updateBook(new EBook("ISBN-CACHE-002", "Refactoring", "Martin Fowler", 2018, 29.99, "EPUB"));
+        assertTrue(new String(responseCache.getBook("ISBN-CACHE-002").getBody(), StandardCharsets.UTF_8).contains("EPUB"));
+
+        bookStore.removeOutdatedBooks(5);
+        assertNull(responseCache.getBook("ISBN-CACHE-001"));
+    }
+
+    @Test
+    @DisplayName("Test Listing Pages Are Rebuilt Only When A Change Reaches Them")
+    void testListingPagesAreRebuiltOnlyWhenAChangeReachesThem() {
+        Set<String> stock = BookProjection.parseFields("isbn,stock");
+        Set<String> titles = BookProjection.parseFields("isbn,title");
+        CachedResponse first = responseCache.getPage(null, 1, stock);
+        CachedResponse second = responseCache.getPage("ISBN-CACHE-001", 1, stock);
+        CachedResponse firstTitles = responseCache.getPage(null, 1, titles);
+        assertSame(first, responseCache.getPage(null, 1, stock));
+        assertEquals("ISBN-CACHE-001", first.getNextIsbn());
+        assertNull(second.getNextIsbn());
+        assertEquals("[{\"isbn\":\"ISBN-CACHE-001\",\"stock\":10}]", new String(first.getBody(), StandardCharsets.UTF_8));
+
+        // A sale rebuilds the page holding the book, but neither the next page nor pages without stock
+        bookStore.buyBook("ISBN-CACHE-001", 1, "reader@example.com", "12 Main St");
+        CachedResponse afterSale = responseCache.getPage(null, 1, stock);
+        assertNotSame(first, afterSale);
+        assertEquals("[{\"isbn\":\"ISBN-CACHE-001\",\"stock\":9}]", new String(afterSale.getBody(), StandardCharsets.UTF_8));
+        assertSame(second, responseCache.getPage("ISBN-CACHE-001", 1, stock));
+        assertSame(firstTitles, responseCache.getPage(null, 1, titles));
+
+        // E-books have no stock, so their sales change nothing that is cached
+        bookStore.buyBook("ISBN-CACHE-002", 1, "reader@example.com", "");
+        assertSame(second, responseCache.getPage("ISBN-CACHE-001", 1, stock));
+
+        // A new title lands on the open-ended last page and shifts nothing before it
+        bookStore.addBook(new EBook("ISBN-CACHE-003", "Patterns", "Erich Gamma", 1994, 49.99, "PDF"));
+        assertSame(afterSale, responseCache.getPage(null, 1, stock));
+        assertNotSame(second, responseCache.getPage("ISBN-CACHE-001", 1, stock));
+        assertEquals("ISBN-CACHE-002", responseCache.getPage("ISBN-CACHE-001", 1, stock).getNextIsbn());
+    }
+
+    @Test
+    @DisplayName("Test Catalog Is Spliced From Pages And Tagged By Them")
+    void testCatalogIsSplicedFromPagesAndTaggedByThem() {
+        List<Book> catalog = new ArrayList<>();
+        for (int i = 0; i < CatalogResponseCache.CATALOG_PAGE + 10; i++) {
+            catalog.add(new PaperBook(String.format("ISBN-BULK-%05d", i), "Bulk " + i, "Someone", 2020, 1.00, 5));
+        }
+        bookStore.addBooks(catalog);
+        CachedResponse whole = responseCache.getCatalog(null);
+        assertSame(whole, responseCache.getCatalog(null));
+        CachedResponse head = responseCache.getPage(null, CatalogResponseCache.CATALOG_PAGE, null);
+        CachedResponse tail = responseCache.getPage(head.getNextIsbn(), CatalogResponseCache.CATALOG_PAGE, null);
+        assertNull(tail.getNextIsbn());
+
+        String body = new String(whole.getBody(), StandardCharsets.UTF_8);
+        String headBody = new String(head.getBody(), StandardCharsets.UTF_8);
+        String tailBody = new String(tail.getBody(), StandardCharsets.UTF_8);
+        assertEquals(headBody.substring(0, headBody.length() - 1) + "," + tailBody.substring(1), body);
+        assertTrue(body.indexOf("ISBN-BULK-00000") < body.indexOf("ISBN-CACHE-001"));
+        assertTrue(body.indexOf("ISBN-CACHE-001") < body.indexOf("ISBN-CACHE-002"));
+
+        // A sale near the end rebuilds the last page only, and the catalog gets a new tag
+        bookStore.buyBook("ISBN-CACHE-001", 1, "reader@example.com", "12 Main St");
+        CachedResponse afterSale = responseCache.getCatalog(null);
+        assertNotEquals(whole.getEtag(), afterSale.getEtag());
+        assertFalse(Arrays.equals(whole.getBody(), afterSale.getBody()));
+        assertSame(head, responseCache.getPage(null, CatalogResponseCache.CATALOG_PAGE, null));
+        assertNotSame(tail, responseCache.getPage(head.getNextIsbn(), CatalogResponseCache.CATALOG_PAGE, null));
+
+        // A projection without stock keeps its catalog across the sale
+        Set<String> titles = BookProjection.parseFields("isbn,title");
+        CachedResponse titleCatalog = responseCache.getCatalog(titles);
+        bookStore.buyBook("ISBN-BULK-00001", 1, "reader@example.com", "12 Main St");
+        assertSame(titleCatalog, responseCache.getCatalog(titles));
+        assertTrue(afterSale.matches(afterSale.getEtag()));
+        assertNotSame(afterSale, responseCache.getCatalog(null));
+    }
+}
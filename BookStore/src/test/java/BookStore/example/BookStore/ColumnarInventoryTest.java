@@ -0,0 +1,205 @@
+package BookStore.example.BookStore;
+
+import BookStore.example.BookStore.model.*;
+import BookStore.example.BookStore.service.BookStore;
+import BookStore.example.BookStore.service.CatalogPage;
+import BookStore.example.BookStore.service.ColumnarInventory;
+import BookStore.example.BookStore.service.DeliveryLine;
+import BookStore.example.BookStore.service.FulfilmentService;
+import BookStore.example.BookStore.service.ShipmentLine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@DisplayName("Quantum Book Store Columnar Inventory Test")
+public class ColumnarInventoryTest {
+
+    private ColumnarInventory inventory;
+    private BookStore bookStore;
+
+    @BeforeEach
+    void setUp() {
+        inventory = new ColumnarInventory();
+        bookStore = new BookStore(new FulfilmentService() {
+            @Override
+            public void shipPaperBooks(List<ShipmentLine> lines, String address) {
+            }
+
+            @Override
+            public void deliverEBooks(List<DeliveryLine> lines, String email) {
+            }
+        }, inventory);
+    }
+
+    @Test
+    @DisplayName("Test Books Round Trip Through Columns")
+    void testBooksRoundTripThroughColumns() {
+        bookStore.addBook(new PaperBook("ISBN-COL-001", "Clean Code", "Robert C. Martin", 2008, 42.99, 10));
+        bookStore.addBook(new EBook("ISBN-COL-002", "Refactoring – 2nd Edition", "Martin Fowler", 2018, 39.99, "PDF"));
+        bookStore.addBook(new ShowcaseBook("ISBN-COL-003", "Future Book", "Martin Fowler", 2025));
+
+        PaperBook paperBook = (PaperBook) bookStore.getBook("ISBN-COL-001");
+        assertEquals("Clean Code", paperBook.getTitle());
+        assertEquals("Robert C. Martin", paperBook.getAuthor());
+        assertEquals(2008, paperBook.getYearPublished());
+        assertEquals(4299, paperBook.getPriceCents());
+        assertEquals(10, paperBook.getStock());
+        assertEquals("Paper Book", paperBook.getBookType());
+
+        EBook eBook = (EBook) bookStore.getBook("ISBN-COL-002");
+        assertEquals("Refactoring – 2nd Edition", eBook.getTitle());
+        assertEquals("PDF", eBook.getFileType());
+        assertInstanceOf(ShowcaseBook.class, bookStore.getBook("ISBN-COL-003"));
+        assertFalse(bookStore.getBook("ISBN-COL-003").isAvailableForPurchase());
+        assertNull(bookStore.getBook("ISBN-COL-404"));
+
+        assertEquals(3, bookStore.getAllBooks().size());
+        assertEquals(bookStore.getBook("ISBN-COL-001"), bookStore.getBook("ISBN-COL-001"));
+        assertEquals(2, bookStore.searchBooks("fowler", null, null, null, 0, 10).getTotal());
+    }
+
+    @Test
+    @DisplayName("Test Purchases Update The Stock Column")
+    void testPurchasesUpdateTheStockColumn() {
+        bookStore.addBook(new PaperBook("ISBN-COL-101", "Clean Code", "Robert C. Martin", 2008, 42.99, 10));
+
+        assertEquals(12897, bookStore.buyBook("ISBN-COL-101", 3, "reader@example.com", "12 Main St"));
+        assertEquals(7, ((PaperBook) bookStore.getBook("ISBN-COL-101")).getStock());
+        assertThrows(IllegalArgumentException.class,
+                     () -> bookStore.buyBook("ISBN-COL-101", 8, "reader@example.com", "12 Main St"));
+
+        PaperBook view = (PaperBook) bookStore.getBook("ISBN-COL-101");
+        view.setStock(20);
+        view.setPrice(10.5);
+        PaperBook reread = (PaperBook) bookStore.getBook("ISBN-COL-101");
+        assertEquals(20, reread.getStock());
+        assertEquals(1050, reread.getPriceCents());
+    }
+
+    @Test
+    @DisplayName("Test Replaced Book Views Detach From The Row")
+    void testReplacedBookViewsDetachFromTheRow() {
+        bookStore.addBook(new PaperBook("ISBN-COL-201", "Clean Code", "Robert C. Martin", 2008, 42.99, 10));
+        PaperBook before = (PaperBook) bookStore.getBook("ISBN-COL-201");
+        assertTrue(before.tryReserve(4));
+
+        bookStore.updateBook(new PaperBook("ISBN-COL-201", "Clean Code", "Robert C. Martin", 2008, 45.99, 50));
+
+        // The in-flight reservation finishes against the replaced book, as it would with heap objects
+        assertEquals(6, before.commit(4));
+        PaperBook after = (PaperBook) bookStore.getBook("ISBN-COL-201");
+        assertNotEquals(before, after);
+        assertEquals(50, after.getStock());
+        assertEquals(50, after.getAvailableStock());
+        assertEquals(4599, after.getPriceCents());
+    }
+
+    @Test
+    @DisplayName("Test Removal Reuses Rows")
+    void testRemovalReusesRows() {
+        int currentYear = Year.now().getValue();
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            int year = i % 2 == 0 ? currentYear - 20 : currentYear;
+            books.add(new PaperBook(String.format("ISBN-COL-%06d", i), "Title " + i, "Author " + (i % 100), year, 9.99, 5));
+        }
+        assertTrue(bookStore.addBooks(books).isEmpty());
+        assertEquals(20_000, inventory.size());
+
+        assertEquals(10_000, bookStore.removeOutdatedBooks(10).size());
+        assertEquals(10_000, inventory.size());
+        assertNull(bookStore.getBook("ISBN-COL-000000"));
+        assertEquals("Title 1", bookStore.getBook("ISBN-COL-000001").getTitle());
+
+        bookStore.addBook(new EBook("ISBN-COL-000000", "Back Again", "Author 0", currentYear, 1.0, "EPUB"));
+        assertEquals("Back Again", bookStore.getBook("ISBN-COL-000000").getTitle());
+
+        CatalogPage page = bookStore.listBooks(null, 3);
+        assertEquals(List.of("ISBN-COL-000000", "ISBN-COL-000001", "ISBN-COL-000003"),
+                     page.getBooks().stream().map(Book::getIsbn).toList());
+    }
+
+    @Test
+    @DisplayName("Test Unsupported Book Types Are Rejected")
+    void testUnsupportedBookTypesAreRejected() {
+        Book custom = new PaperBook("ISBN-COL-301", "Signed Copy", "Someone", 2020, 100.0, 1) {
+            @Override
+            public String getBookType() {
+                return "Signed Paper Book";
+            }
+        };
+        assertThrows(IllegalArgumentException.class, () -> bookStore.addBook(custom));
+        assertThrows(IllegalArgumentException.class, () -> bookStore.addBook(
+                new PaperBook("ISBN-COL-302", "Too Many", "Someone", 2020, 1.0, ColumnarInventory.MAX_STOCK + 1)));
+        assertTrue(inventory.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Test Views Held Across A Full Generation Cycle Never Touch A Later Book")
+    void testStaleViewsNeverMatchLaterBooks() {
+        inventory.put("ISBN-COL-901", new EBook("ISBN-COL-901", "Old Edition", "Someone", 2020, 10.00, "PDF"));
+        inventory.put("ISBN-COL-902", new PaperBook("ISBN-COL-902", "Old Edition", "Someone", 2020, 10.00, 5));
+        EBook staleEBook = (EBook) inventory.get("ISBN-COL-901");
+        PaperBook stalePaper = (PaperBook) inventory.get("ISBN-COL-902");
+        // 65,536 retirements would bring a 16-bit generation back to where the views were taken
+        for (int i = 0; i < 65_536; i++) {
+            inventory.put("ISBN-COL-901", new EBook("ISBN-COL-901", "New Edition", "Someone", 2020, 20.00, "EPUB"));
+            inventory.remove("ISBN-COL-902");
+            inventory.put("ISBN-COL-902", new PaperBook("ISBN-COL-902", "New Edition", "Someone", 2020, 20.00, 50));
+        }
+
+        staleEBook.setPrice(1.00);
+        staleEBook.setFileType("MOBI");
+        assertTrue(stalePaper.tryReserve(5));
+        stalePaper.commit(5);
+
+        EBook eBook = (EBook) inventory.get("ISBN-COL-901");
+        assertNotEquals(staleEBook, eBook);
+        assertEquals(2000, eBook.getPriceCents());
+        assertEquals("EPUB", eBook.getFileType());
+        PaperBook paperBook = (PaperBook) inventory.get("ISBN-COL-902");
+        assertNotEquals(stalePaper, paperBook);
+        assertEquals(50, paperBook.getAvailableStock());
+        assertEquals(2, inventory.size());
+    }
+
+    @Test
+    @DisplayName("Test Concurrent Purchases Never Oversell")
+    void testConcurrentPurchasesNeverOversell() throws InterruptedException {
+        bookStore.addBook(new PaperBook("ISBN-COL-401", "Clean Code", "Robert C. Martin", 2008, 42.99, 1000));
+        int threads = 8;
+        AtomicInteger sold = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 200; i++) {
+                    try {
+                        bookStore.buyBook("ISBN-COL-401", 1, "reader@example.com", "12 Main St");
+                        sold.incrementAndGet();
+                    } catch (IllegalArgumentException soldOut) {
+                        // Expected once the stock is gone
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(1000, sold.get());
+        assertEquals(0, ((PaperBook) bookStore.getBook("ISBN-COL-401")).getStock());
+    }
+}
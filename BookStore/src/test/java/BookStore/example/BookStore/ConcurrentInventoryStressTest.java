@@ -0,0 +1,157 @@
+package BookStore.example.BookStore;
+
+import BookStore.example.BookStore.model.*;
+import BookStore.example.BookStore.service.BookStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@DisplayName("Quantum Book Store Concurrent Inventory Stress Test")
+public class ConcurrentInventoryStressTest {
+
+    private static final int STOCK = 2_000;
+    private static final int BUYS_PER_THREAD = 1_000;
+
+    private BookStore bookStore;
+
+    @BeforeEach
+    void setUp() {
+        // No-op fulfilment so the measurement is dominated by the inventory itself
+        bookStore = new BookStore((book, quantity, address) -> { }, (book, email) -> { });
+    }
+
+    @Test
+    @DisplayName("Test Concurrent Buyers Never Oversell Stock")
+    void testConcurrentBuyersNeverOversell() throws Exception {
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+        PaperBook hotBook = new PaperBook("ISBN-HOT-001", "Bestseller", "Popular Author", 2024, 10.00, STOCK);
+        bookStore.addBook(hotBook);
+
+        int sold = runBuyers(threads, "ISBN-HOT-001");
+
+        System.out.println("Quantum book store - " + threads + " threads sold " + sold + " of " + STOCK + " copies");
+        assertEquals(STOCK, sold);
+        assertEquals(0, hotBook.getStock());
+        assertFalse(hotBook.isAvailableForPurchase());
+    }
+
+    @Test
+    @DisplayName("Test Reads And Purges While Buying")
+    void testReadsAndPurgesWhileBuying() throws Exception {
+        int threads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 2);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger sold = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        PaperBook hotBook = new PaperBook("ISBN-HOT-002", "Bestseller", "Popular Author", 2024, 10.00, STOCK);
+        bookStore.addBook(hotBook);
+
+        try {
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < BUYS_PER_THREAD; i++) {
+                        try {
+                            bookStore.buyBook("ISBN-HOT-002", 1, "buyer@example.com", "1 Stress St");
+                            sold.incrementAndGet();
+                        } catch (IllegalArgumentException e) {
+                            // Sold out
+                        }
+                    }
+                    return null;
+                }));
+            }
+            // Writer churns old books in and out while readers iterate the inventory
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 500; i++) {
+                    bookStore.addBook(new EBook("ISBN-OLD-" + i, "Legacy " + i, "Old Author", 1990, 5.00, "PDF"));
+                    bookStore.removeOutdatedBooks(10);
+                }
+                return null;
+            }));
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 500; i++) {
+                    for (Book book : bookStore.getAllBooks()) {
+                        assertNotNull(book.getIsbn());
+                    }
+                }
+                return null;
+            }));
+
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(STOCK, sold.get() + hotBook.getStock());
+        assertNotNull(bookStore.getBook("ISBN-HOT-002"));
+    }
+
+    @Test
+    @DisplayName("Test Throughput Across Thread Counts")
+    void testThroughputAcrossThreadCounts() throws Exception {
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads <= cores; threads *= 2) {
+            // One ISBN per thread so the numbers reflect the map, not a single hot counter
+            for (int t = 0; t < threads; t++) {
+                bookStore.addBook(new PaperBook("ISBN-TP-" + threads + "-" + t, "Title", "Author", 2024, 1.00, BUYS_PER_THREAD));
+            }
+            final int threadCount = threads;
+            long started = System.nanoTime();
+            int sold = runBuyers(threads, t -> "ISBN-TP-" + threadCount + "-" + t);
+            long elapsed = System.nanoTime() - started;
+
+            assertEquals(threads * BUYS_PER_THREAD, sold);
+            System.out.printf("Quantum book store - %d thread(s): %.0f buys/sec%n",
+                              threads, sold / (elapsed / 1_000_000_000.0));
+        }
+    }
+
+    private int runBuyers(int threads, String isbn) throws Exception {
+        return runBuyers(threads, t -> isbn);
+    }
+
+    private int runBuyers(int threads, java.util.function.IntFunction<String> isbnForThread) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger sold = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        try {
+            for (int t = 0; t < threads; t++) {
+                String isbn = isbnForThread.apply(t);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < BUYS_PER_THREAD; i++) {
+                        try {
+                            bookStore.buyBook(isbn, 1, "buyer@example.com", "1 Stress St");
+                            sold.incrementAndGet();
+                        } catch (IllegalArgumentException e) {
+                            // Sold out
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return sold.get();
+    }
+}
@@ -0,0 +1,159 @@
+package BookStore.example.BookStore;
+
+import BookStore.example.BookStore.model.*;
+import BookStore.example.BookStore.service.BookStore;
+import BookStore.example.BookStore.service.FulfilmentPipeline;
+import BookStore.example.BookStore.service.FulfilmentStageMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+@DisplayName("Quantum Book Store Fulfilment Pipeline Test")
+public class FulfilmentPipelineTest {
+
+    private FulfilmentPipeline pipeline;
+
+    @AfterEach
+    void tearDown() {
+        if (pipeline != null) {
+            pipeline.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Test Slow Mail Relay Does Not Block Checkout")
+    void testSlowMailDoesNotBlockCheckout() throws Exception {
+        AtomicInteger sent = new AtomicInteger();
+        pipeline = new FulfilmentPipeline((book, quantity, address) -> { },
+                                          (book, email) -> {
+                                              sleep(20);
+                                              sent.incrementAndGet();
+                                          },
+                                          4, 100, 3, Duration.ofMillis(10));
+        BookStore bookStore = new BookStore(pipeline);
+        bookStore.addBook(new EBook("ISBN-ASYNC-001", "Async Patterns", "Async Author", 2023, 10.00, "PDF"));
+
+        long started = System.nanoTime();
+        long amount = bookStore.buyBook("ISBN-ASYNC-001", 20, "reader@example.com", "");
+        long checkoutMillis = (System.nanoTime() - started) / 1_000_000;
+
+        assertEquals(20000, amount);
+        // 20 sends at 20ms each would take 400ms inline
+        assertTrue(checkoutMillis < 200, "Checkout took " + checkoutMillis + "ms");
+
+        awaitTrue(() -> sent.get() == 20);
+        // All copies of one order travel as a single mail job
+        FulfilmentStageMetrics mail = pipeline.getMetrics().get("mail");
+        assertEquals(1, mail.getSubmitted());
+        assertEquals(1, mail.getCompleted());
+        assertEquals(0, mail.getFailed());
+    }
+
+    @Test
+    @DisplayName("Test Failed Shipments Are Retried With Backoff")
+    void testFailedShipmentsAreRetried() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        pipeline = new FulfilmentPipeline((book, quantity, address) -> {
+                                              if (calls.incrementAndGet() < 3) {
+                                                  throw new IllegalStateException("Carrier unavailable");
+                                              }
+                                          },
+                                          (book, email) -> { },
+                                          1, 10, 5, Duration.ofMillis(5));
+        BookStore bookStore = new BookStore(pipeline);
+        PaperBook book = new PaperBook("ISBN-ASYNC-002", "Retry Handbook", "Retry Author", 2023, 15.00, 5);
+        bookStore.addBook(book);
+
+        bookStore.buyBook("ISBN-ASYNC-002", 2, "buyer@example.com", "9 Retry Rd");
+        assertEquals(3, book.getStock());
+
+        awaitTrue(() -> pipeline.getMetrics().get("shipping").getCompleted() == 1);
+        FulfilmentStageMetrics shipping = pipeline.getMetrics().get("shipping");
+        assertEquals(2, shipping.getRetried());
+        assertEquals(0, shipping.getFailed());
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    @DisplayName("Test Exhausted Retries Are Counted As Failures")
+    void testExhaustedRetriesAreCounted() throws Exception {
+        pipeline = new FulfilmentPipeline((book, quantity, address) -> {
+                                              throw new IllegalStateException("Carrier down");
+                                          },
+                                          (book, email) -> { },
+                                          1, 10, 3, Duration.ofMillis(1));
+        BookStore bookStore = new BookStore(pipeline);
+        bookStore.addBook(new PaperBook("ISBN-ASYNC-003", "Lost Parcel", "Carrier Author", 2023, 15.00, 5));
+
+        bookStore.buyBook("ISBN-ASYNC-003", 1, "buyer@example.com", "404 Nowhere");
+
+        awaitTrue(() -> pipeline.getMetrics().get("shipping").getFailed() == 1);
+        assertEquals(2, pipeline.getMetrics().get("shipping").getRetried());
+    }
+
+    @Test
+    @DisplayName("Test Retry Into A Full Queue Is Counted As A Failure")
+    void testRetryIntoAFullQueueIsCounted() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Queue<String> callers = new ConcurrentLinkedQueue<>();
+        pipeline = new FulfilmentPipeline((book, quantity, address) -> {
+                                              callers.add(Thread.currentThread().getName());
+                                              if (address.equals("404 Nowhere")) {
+                                                  throw new IllegalStateException("Carrier down");
+                                              }
+                                              await(release);
+                                          },
+                                          (book, email) -> { },
+                                          1, 1, 3, Duration.ofMillis(50));
+        BookStore bookStore = new BookStore(pipeline);
+        for (int i = 1; i <= 3; i++) {
+            bookStore.addBook(new PaperBook("ISBN-ASYNC-01" + i, "Parcel " + i, "Carrier Author", 2023, 15.00, 5));
+        }
+
+        bookStore.buyBook("ISBN-ASYNC-011", 1, "buyer@example.com", "404 Nowhere");
+        awaitTrue(() -> callers.size() == 1);
+        // The only worker is held and the queue is full when the retry comes due
+        bookStore.buyBook("ISBN-ASYNC-012", 1, "buyer@example.com", "1 Held Rd");
+        awaitTrue(() -> callers.size() == 2);
+        bookStore.buyBook("ISBN-ASYNC-013", 1, "buyer@example.com", "2 Queued Rd");
+
+        awaitTrue(() -> pipeline.getMetrics().get("shipping").getFailed() == 1);
+        release.countDown();
+        awaitTrue(() -> pipeline.getMetrics().get("shipping").getCompleted() == 2);
+        assertEquals(1, pipeline.getMetrics().get("shipping").getRetried());
+        assertTrue(callers.stream().allMatch(name -> name.startsWith("fulfilment-shipping-")), callers.toString());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for fulfilment");
+            Thread.sleep(5);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package BookStore.example.BookStore;
+
+import BookStore.example.BookStore.model.*;
+import BookStore.example.BookStore.persistence.InventoryJournal;
+import BookStore.example.BookStore.persistence.InventoryPersistence;
+import BookStore.example.BookStore.service.BookStore;
+import BookStore.example.BookStore.service.InventoryListener;
+import BookStore.example.BookStore.service.MailService;
+import BookStore.example.BookStore.service.ShippingService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+@DisplayName("Quantum Book Store Inventory Persistence Test")
+public class InventoryPersistenceTest {
+
+    private static final int SEGMENT_BYTES = 1 << 20;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Test Inventory Survives Restart")
+    void testInventorySurvivesRestart() throws IOException {
+        BookStore bookStore = newBookStore();
+        try (InventoryPersistence persistence = open(bookStore, InventoryJournal.Durability.ASYNC)) {
+            bookStore.addBook(new PaperBook("ISBN-WAL-001", "Clean Code", "Robert C. Martin", 2008, 42.99, 10));
+            bookStore.addBook(new EBook("ISBN-WAL-002", "Refactoring", "Martin Fowler", 2018, 39.99, "PDF"));
+            bookStore.addBook(new ShowcaseBook("ISBN-WAL-003", "Future Book", "Someone", 2025));
+            bookStore.buyBook("ISBN-WAL-001", 3, "reader@example.com", "12 Main St");
+
+            // Later sales land both in the snapshot and in the journal tail it leaves behind
+            persistence.snapshot();
+            bookStore.buyBook("ISBN-WAL-001", 2, "reader@example.com", "12 Main St");
+            bookStore.updateBook(new EBook("ISBN-WAL-002", "Refactoring, 2nd Edition", "Martin Fowler", 2018, 44.99, "EPUB"));
+            bookStore.addBook(new PaperBook("ISBN-WAL-004", "Old Manuscript", "Anonymous", 1500, 99.99, 1));
+            bookStore.removeOutdatedBooks(200);
+        }
+
+        BookStore restarted = newBookStore();
+        try (InventoryPersistence ignored = open(restarted, InventoryJournal.Durability.ASYNC)) {
+            assertEquals(3, restarted.getAllBooks().size());
+            assertEquals(5, ((PaperBook) restarted.getBook("ISBN-WAL-001")).getStock());
+            assertEquals("Refactoring, 2nd Edition", restarted.getBook("ISBN-WAL-002").getTitle());
+            assertEquals(4499, restarted.getBook("ISBN-WAL-002").getPriceCents());
+            assertEquals("EPUB", ((EBook) restarted.getBook("ISBN-WAL-002")).getFileType());
+            assertInstanceOf(ShowcaseBook.class, restarted.getBook("ISBN-WAL-003"));
+            assertNull(restarted.getBook("ISBN-WAL-004"));
+            assertEquals(1, restarted.searchBooks("refactoring", null, null, null, 0, 10).getTotal());
+
+            // The recovered store keeps journaling
+            restarted.buyBook("ISBN-WAL-001", 5, "reader@example.com", "12 Main St");
+        }
+
+        BookStore again = newBookStore();
+        try (InventoryPersistence ignored = open(again, InventoryJournal.Durability.ASYNC)) {
+            assertEquals(0, ((PaperBook) again.getBook("ISBN-WAL-001")).getStock());
+        }
+    }
+
+    @Test
+    @DisplayName("Test Snapshot From The First Format Is Still Read")
+    void testFirstFormatSnapshotIsStillRead() throws IOException {
+        // Version 1 held each price as a double
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(content);
+        out.writeInt(0x51425354);
+        out.writeInt(1);
+        out.writeLong(0);
+        out.writeBoolean(true);
+        out.writeByte(1);
+        for (String text : List.of("ISBN-WAL-050", "Clean Code", "Robert C. Martin")) {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        out.writeInt(2008);
+        out.writeDouble(42.99);
+        out.writeInt(7);
+        out.writeBoolean(false);
+        out.writeInt(1);
+        CRC32 crc = new CRC32();
+        crc.update(content.toByteArray());
+        out.writeInt((int) crc.getValue());
+        Files.write(directory.resolve(String.format("snapshot-%020d.bin", 0)), content.toByteArray());
+
+        BookStore bookStore = newBookStore();
+        try (InventoryPersistence ignored = open(bookStore, InventoryJournal.Durability.ASYNC)) {
+            assertEquals(4299, bookStore.getBook("ISBN-WAL-050").getPriceCents());
+            assertEquals(7, ((PaperBook) bookStore.getBook("ISBN-WAL-050")).getStock());
+        }
+    }
+
+    @Test
+    @DisplayName("Test Torn Journal Tail Is Ignored")
+    void testTornJournalTailIsIgnored() throws IOException {
+        BookStore bookStore = newBookStore();
+        try (InventoryPersistence persistence = open(bookStore, InventoryJournal.Durability.SYNC)) {
+            bookStore.addBook(new PaperBook("ISBN-WAL-101", "Clean Code", "Robert C. Martin", 2008, 42.99, 10));
+            bookStore.buyBook("ISBN-WAL-101", 4, "reader@example.com", "12 Main St");
+            // SYNC waits for the disk after the store releases the entry, but before buyBook returns
+            assertEquals(persistence.getLastSeq(), persistence.getDurableSeq());
+        }
+
+        // Simulate a crash halfway through the last record: corrupt the byte the sale's stock ended on
+        Path segment = segments().get(0);
+        long end = lastRecordEnd(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] { 0x7f }), end - 1);
+        }
+
+        BookStore restarted = newBookStore();
+        try (InventoryPersistence ignored = open(restarted, InventoryJournal.Durability.SYNC)) {
+            assertEquals(10, ((PaperBook) restarted.getBook("ISBN-WAL-101")).getStock());
+        }
+    }
+
+    @Test
+    @DisplayName("Test Changes After A Torn Tail Survive The Next Restart")
+    void testChangesAfterATornTailSurviveTheNextRestart() throws IOException {
+        BookStore bookStore = newBookStore();
+        try (InventoryPersistence ignored = open(bookStore, InventoryJournal.Durability.SYNC)) {
+            bookStore.addBook(new PaperBook("ISBN-WAL-151", "Clean Code", "Robert C. Martin", 2008, 42.99, 10));
+            bookStore.buyBook("ISBN-WAL-151", 4, "reader@example.com", "12 Main St");
+        }
+        Path torn = segments().get(0);
+        try (FileChannel channel = FileChannel.open(torn, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] { 0x7f }), lastRecordEnd(torn) - 1);
+        }
+
+        // The journal goes on in a new segment after the last good record
+        BookStore restarted = newBookStore();
+        try (InventoryPersistence ignored = open(restarted, InventoryJournal.Durability.SYNC)) {
+            restarted.addBook(new EBook("ISBN-WAL-152", "Refactoring", "Martin Fowler", 2018, 39.99, "PDF"));
+            restarted.buyBook("ISBN-WAL-151", 1, "reader@example.com", "12 Main St");
+        }
+        List<Path> written = segments();
+
+        BookStore again = newBookStore();
+        try (InventoryPersistence ignored = open(again, InventoryJournal.Durability.SYNC)) {
+            assertEquals(2, again.getAllBooks().size());
+            assertNotNull(again.getBook("ISBN-WAL-152"));
+            assertEquals(9, ((PaperBook) again.getBook("ISBN-WAL-151")).getStock());
+        }
+        assertTrue(segments().containsAll(written));
+    }
+
+    @Test
+    @DisplayName("Test Snapshot Compacts The Journal")
+    void testSnapshotCompactsTheJournal() throws IOException {
+        BookStore bookStore = newBookStore();
+        try (InventoryPersistence ignored = open(bookStore, InventoryJournal.Durability.ASYNC)) {
+            bookStore.addBook(new PaperBook("ISBN-WAL-201", "Clean Code", "Robert C. Martin", 2008, 42.99, 10));
+        }
+        try (InventoryPersistence persistence = open(newBookStore(), InventoryJournal.Durability.ASYNC)) {
+            assertEquals(2, segments().size());
+            assertEquals(1, persistence.snapshot());
+            assertEquals(1, segments().size());
+        }
+
+        BookStore restarted = newBookStore();
+        try (InventoryPersistence ignored = open(restarted, InventoryJournal.Durability.ASYNC)) {
+            assertEquals(10, ((PaperBook) restarted.getBook("ISBN-WAL-201")).getStock());
+        }
+    }
+
+    @Test
+    @DisplayName("Test Snapshot Keeps Changes That Were Journaled But Not Yet Visible")
+    void testSnapshotKeepsChangesInFlight() throws Exception {
+        BookStore bookStore = newBookStore();
+        CountDownLatch journaled = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try (InventoryPersistence persistence = open(bookStore, InventoryJournal.Durability.ASYNC)) {
+            bookStore.addBook(new PaperBook("ISBN-WAL-401", "Clean Code", "Robert C. Martin", 2008, 42.99, 10));
+            // Registered after persistence, so it holds the add inside the store's compute once journaled
+            bookStore.addInventoryListener(new InventoryListener() {
+                @Override
+                public void bookAdded(Book book) {
+                    journaled.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            Thread writer = new Thread(() -> bookStore.addBook(
+                    new PaperBook("ISBN-WAL-402", "Refactoring", "Martin Fowler", 2018, 47.99, 5)));
+            writer.start();
+            assertTrue(journaled.await(5, TimeUnit.SECONDS));
+
+            assertEquals(1, persistence.snapshot());
+            release.countDown();
+            writer.join();
+        }
+
+        BookStore restarted = newBookStore();
+        try (InventoryPersistence ignored = open(restarted, InventoryJournal.Durability.ASYNC)) {
+            assertEquals(10, ((PaperBook) restarted.getBook("ISBN-WAL-401")).getStock());
+            assertEquals(5, ((PaperBook) restarted.getBook("ISBN-WAL-402")).getStock());
+        }
+    }
+
+    @Test
+    @DisplayName("Test Sale Of A Replaced Book Does Not Lower The Replacement's Stock")
+    void testSaleOfReplacedBookIsNotReplayedOntoReplacement() throws IOException {
+        AtomicReference<BookStore> store = new AtomicReference<>();
+        // The restock lands while the sale of the old book is being shipped, before it commits
+        BookStore bookStore = new BookStore((book, quantity, address) -> store.get().updateBook(
+                new PaperBook("ISBN-WAL-501", "Clean Code", "Robert C. Martin", 2008, 42.99, 50)), new SilentMail());
+        store.set(bookStore);
+        try (InventoryPersistence ignored = open(bookStore, InventoryJournal.Durability.ASYNC)) {
+            bookStore.addBook(new PaperBook("ISBN-WAL-501", "Clean Code", "Robert C. Martin", 2008, 42.99, 10));
+            assertEquals(12897, bookStore.buyBook("ISBN-WAL-501", 3, "reader@example.com", "12 Main St"));
+            assertEquals(50, ((PaperBook) bookStore.getBook("ISBN-WAL-501")).getStock());
+        }
+
+        BookStore restarted = newBookStore();
+        try (InventoryPersistence ignored = open(restarted, InventoryJournal.Durability.ASYNC)) {
+            assertEquals(50, ((PaperBook) restarted.getBook("ISBN-WAL-501")).getStock());
+        }
+    }
+
+    @Test
+    @DisplayName("Test Journaling Overhead Per Purchase")
+    void testJournalingOverheadPerPurchase() throws IOException {
+        int purchases = 20_000;
+        BookStore bookStore = newBookStore();
+        try (InventoryPersistence persistence = open(bookStore, InventoryJournal.Durability.ASYNC)) {
+            bookStore.addBook(new PaperBook("ISBN-WAL-301", "Clean Code", "Robert C. Martin", 2008, 42.99, purchases));
+            long start = System.nanoTime();
+            for (int i = 0; i < purchases; i++) {
+                bookStore.buyBook("ISBN-WAL-301", 1, "reader@example.com", "12 Main St");
+            }
+            long nanosPerPurchase = (System.nanoTime() - start) / purchases;
+            System.out.println("Quantum book store - Journaled purchase: " + nanosPerPurchase + " ns per buyBook, " +
+                               persistence.getLastSeq() + " journal entries");
+            assertEquals(purchases + 1, persistence.getLastSeq());
+        }
+
+        BookStore restarted = newBookStore();
+        long start = System.nanoTime();
+        try (InventoryPersistence ignored = open(restarted, InventoryJournal.Durability.ASYNC)) {
+            System.out.println("Quantum book store - Replayed " + (purchases + 1) + " journal entries in " +
+                               TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+            assertEquals(0, ((PaperBook) restarted.getBook("ISBN-WAL-301")).getStock());
+        }
+    }
+
+    private InventoryPersistence open(BookStore bookStore, InventoryJournal.Durability durability) throws IOException {
+        return new InventoryPersistence(directory, bookStore, SEGMENT_BYTES, durability, Duration.ofMillis(2), Duration.ZERO);
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith("journal-")).sorted().toList();
+        }
+    }
+
+    // Records are length-prefixed with a 17 byte header; walk them to find where the last one ends
+    private static long lastRecordEnd(Path segment) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(segment));
+        long end = 0;
+        while (buffer.remaining() >= 17) {
+            int length = buffer.getInt(buffer.position());
+            if (length <= 0) {
+                break;
+            }
+            buffer.position(buffer.position() + 17 + length);
+            end = buffer.position();
+        }
+        return end;
+    }
+
+    private static BookStore newBookStore() {
+        return new BookStore(new SilentShipping(), new SilentMail());
+    }
+
+    private static class SilentShipping implements ShippingService {
+        @Override
+        public void shipBook(PaperBook book, int quantity, String address) {
+        }
+    }
+
+    private static class SilentMail implements MailService {
+        @Override
+        public void sendEBook(EBook book, String email) {
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package BookStore.example.BookStore;
+
+import BookStore.example.BookStore.model.*;
+import BookStore.example.BookStore.service.BookStore;
+import BookStore.example.BookStore.service.ColumnarInventory;
+import BookStore.example.BookStore.service.DeliveryLine;
+import BookStore.example.BookStore.service.FulfilmentService;
+import BookStore.example.BookStore.service.OrderLine;
+import BookStore.example.BookStore.service.ShipmentLine;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+@DisplayName("Quantum Book Store ISBN Key Test")
+public class IsbnTest {
+
+    @Test
+    @DisplayName("Test ISBN Forms Pack To One Key")
+    void testIsbnFormsPackToOneKey() {
+        long packed = 9780134685991L;
+        assertEquals(packed, Isbn.pack("9780134685991"));
+        assertEquals(packed, Isbn.pack("978-0-13-468599-1"));
+        assertEquals(packed, Isbn.pack(" 978 0 13 468599 1 "));
+        assertEquals(packed, Isbn.pack("0-13-468599-7"));
+        assertEquals(9780804429573L, Isbn.pack("0-8044-2957-X"));
+        assertEquals(9791090636071L, Isbn.pack("979-10-90636-07-1"));
+
+        assertEquals(Isbn.canonical("0134685997"), Isbn.canonical("978-0-13-468599-1"));
+        assertEquals("9780134685991", Isbn.canonical("0-13-468599-7"));
+    }
+
+    @Test
+    @DisplayName("Test Invalid ISBNs Fall Back To Their Text")
+    void testInvalidIsbnsFallBackToTheirText() {
+        assertEquals(Isbn.NOT_AN_ISBN, Isbn.pack("978-0-13-468599-2"));
+        assertEquals(Isbn.NOT_AN_ISBN, Isbn.pack("0-13-468599-8"));
+        assertEquals(Isbn.NOT_AN_ISBN, Isbn.pack("1230134685991"));
+        assertEquals(Isbn.NOT_AN_ISBN, Isbn.pack("978013468599X"));
+        assertEquals(Isbn.NOT_AN_ISBN, Isbn.pack("-9780134685991"));
+        assertEquals(Isbn.NOT_AN_ISBN, Isbn.pack("ISBN-001"));
+        assertEquals(Isbn.NOT_AN_ISBN, Isbn.pack(""));
+
+        assertEquals("ISBN-001", Isbn.canonical("  ISBN-001 "));
+        assertEquals("978-0-13-468599-2", Isbn.canonical("978-0-13-468599-2"));
+    }
+
+    @Test
+    @DisplayName("Test Any ISBN Form Finds The Book")
+    void testAnyIsbnFormFindsTheBook() {
+        assertAnyIsbnFormFindsTheBook(new BookStore((book, quantity, address) -> { }, (book, email) -> { }));
+    }
+
+    private static void assertAnyIsbnFormFindsTheBook(BookStore bookStore) {
+        bookStore.addBook(new PaperBook("978-0-13-468599-1", "Effective Java", "Joshua Bloch", 2018, 45.00, 10));
+        bookStore.addBook(new EBook("ISBN-001", "Clean Code", "Robert C. Martin", 2008, 30.00, "PDF"));
+
+        Book book = bookStore.getBook("0134685997");
+        assertNotNull(book);
+        assertEquals("9780134685991", book.getIsbn());
+        assertEquals(book, bookStore.getBook("978 0 13 468599 1"));
+        assertNotNull(bookStore.getBook(" ISBN-001"));
+        assertNull(bookStore.getBook("978-0-13-468599-2"));
+
+        // Another form of the same ISBN is a duplicate, not a second book
+        bookStore.addBook(new PaperBook("9780134685991", "Effective Java (copy)", "Joshua Bloch", 2018, 1.00, 1));
+        assertEquals(2, bookStore.getAllBooks().size());
+        assertEquals("Effective Java", bookStore.getBook("9780134685991").getTitle());
+
+        assertEquals(9000, bookStore.buyBook("0-13-468599-7", 2, "reader@example.com", "12 Main St"));
+        assertEquals(13500, bookStore.checkout(List.of(new OrderLine("978-0-13-468599-1", 1),
+                                                       new OrderLine("0134685997", 2)),
+                                               "reader@example.com", "12 Main St"));
+        assertEquals(5, ((PaperBook) bookStore.getBook("9780134685991")).getStock());
+    }
+
+    @Test
+    @DisplayName("Test Columnar Inventory Stores Packed ISBNs")
+    void testColumnarInventoryStoresPackedIsbns() {
+        ColumnarInventory inventory = new ColumnarInventory();
+        BookStore bookStore = new BookStore(new FulfilmentService() {
+            @Override
+            public void shipPaperBooks(List<ShipmentLine> lines, String address) {
+            }
+
+            @Override
+            public void deliverEBooks(List<DeliveryLine> lines, String email) {
+            }
+        }, inventory);
+        assertAnyIsbnFormFindsTheBook(bookStore);
+        assertNotNull(inventory.get("0-13-468599-7"));
+        assertEquals(List.of("9780134685991", "ISBN-001"),
+                     inventory.keySet().stream().sorted().toList());
+    }
+}
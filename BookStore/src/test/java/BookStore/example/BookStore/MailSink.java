@@ -0,0 +1,64 @@
+package BookStore.example.BookStore;
+
+import BookStore.example.BookStore.model.EBook;
+import BookStore.example.BookStore.service.DeliveryLine;
+import BookStore.example.BookStore.service.MailService;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+// Local stand-in for an SMTP relay: records every message and charges a fixed latency per message.
+// failNext makes the next sends throw, as a relay that is briefly down would
+class MailSink implements MailService {
+    private final long latencyNanos;
+    private final ConcurrentLinkedQueue<Message> messages = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger failures = new AtomicInteger();
+
+    MailSink(long latencyNanos) {
+        this.latencyNanos = latencyNanos;
+    }
+
+    @Override
+    public void sendEBook(EBook book, String email) {
+        sendEBooks(List.of(new DeliveryLine(book, 1)), email);
+    }
+
+    @Override
+    public void sendEBooks(List<DeliveryLine> lines, String email) {
+        if (failures.getAndUpdate(remaining -> Math.max(0, remaining - 1)) > 0) {
+            throw new IllegalStateException("Relay unavailable");
+        }
+        if (latencyNanos > 0) {
+            LockSupport.parkNanos(latencyNanos);
+        }
+        messages.add(new Message(email, lines.stream().mapToInt(DeliveryLine::getQuantity).sum()));
+    }
+
+    void failNext(int sends) {
+        failures.set(sends);
+    }
+
+    int messageCount() {
+        return messages.size();
+    }
+
+    int bookCount() {
+        return messages.stream().mapToInt(message -> message.books).sum();
+    }
+
+    long messagesTo(String email) {
+        return messages.stream().filter(message -> message.email.equals(email)).count();
+    }
+
+    static final class Message {
+        final String email;
+        final int books;
+
+        Message(String email, int books) {
+            this.email = email;
+            this.books = books;
+        }
+    }
+}
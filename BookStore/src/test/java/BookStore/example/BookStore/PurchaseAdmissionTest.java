@@ -0,0 +1,115 @@
+package BookStore.example.BookStore;
+
+import BookStore.example.BookStore.model.*;
+import BookStore.example.BookStore.service.BookStore;
+import BookStore.example.BookStore.service.PurchaseAdmission;
+import BookStore.example.BookStore.service.PurchaseAdmission.Decision;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.*;
+
+@DisplayName("Quantum Book Store Purchase Admission Test")
+public class PurchaseAdmissionTest {
+
+    private BookStore bookStore;
+    private PurchaseAdmission admission;
+
+    @BeforeEach
+    void setUp() {
+        bookStore = new BookStore((book, quantity, address) -> { }, (book, email) -> { });
+        // One copy a second per ISBN with a burst of five, one a second per client with a burst of three
+        admission = new PurchaseAdmission(bookStore, 1, 5, 1, 3, 2, 2, Duration.ofSeconds(5));
+        bookStore.addInventoryListener(admission);
+    }
+
+    @AfterEach
+    void tearDown() {
+        admission.close();
+    }
+
+    @Test
+    @DisplayName("Test Sold Out Books Are Rejected Until Restocked")
+    void testSoldOutBooksAreRejectedUntilRestocked() {
+        bookStore.addBook(new PaperBook("978-0-13-468599-1", "Effective Java", "Joshua Bloch", 2018, 45.00, 1));
+        assertEquals(Decision.ADMITTED_IN_LINE, admission.admit("9780134685991", "client-1"));
+        bookStore.buyBook("9780134685991", 1, "reader@example.com", "12 Main St");
+        admission.leave("9780134685991");
+
+        assertTrue(admission.isSoldOut("978-0-13-468599-1"));
+        assertEquals(Decision.SOLD_OUT, admission.admit("978-0-13-468599-1", "client-2"));
+
+        bookStore.updateBook(new PaperBook("9780134685991", "Effective Java", "Joshua Bloch", 2018, 45.00, 50));
+        assertFalse(admission.isSoldOut("9780134685991"));
+        assertEquals(Decision.ADMITTED, admission.admit("9780134685991", "client-2"));
+        assertEquals(1, admission.getDecisionCount(Decision.SOLD_OUT));
+    }
+
+    @Test
+    @DisplayName("Test Rate Limits Per Client And Per ISBN")
+    void testRateLimitsPerClientAndPerIsbn() {
+        bookStore.addBook(new EBook("ISBN-ADMIT-001", "Spring Boot in Action", "Craig Walls", 2015, 29.99, "PDF"));
+        for (int i = 0; i < 3; i++) {
+            assertEquals(Decision.ADMITTED, admission.admit("ISBN-ADMIT-001", "greedy"));
+        }
+        assertEquals(Decision.CLIENT_RATE_LIMITED, admission.admit("ISBN-ADMIT-001", "greedy"));
+
+        // The ISBN bucket took three of its five tokens from the greedy client
+        assertEquals(Decision.ADMITTED, admission.admit("ISBN-ADMIT-001", "other-1"));
+        assertEquals(Decision.ADMITTED, admission.admit("ISBN-ADMIT-001", "other-2"));
+        assertEquals(Decision.ISBN_RATE_LIMITED, admission.admit("ISBN-ADMIT-001", "other-3"));
+
+        // Other books have their own bucket
+        bookStore.addBook(new EBook("ISBN-ADMIT-002", "Designing Data-Intensive Applications", "Martin Kleppmann", 2017, 39.99, "EPUB"));
+        assertEquals(Decision.ADMITTED, admission.admit("ISBN-ADMIT-002", "other-3"));
+    }
+
+    @Test
+    @DisplayName("Test Last Copies Go To Buyers One At A Time")
+    void testLastCopiesGoToBuyersOneAtATime() throws Exception {
+        bookStore.addBook(new PaperBook("ISBN-ADMIT-003", "Clean Code", "Robert C. Martin", 2008, 42.99, 5));
+        assertEquals(Decision.ADMITTED, admission.admit("ISBN-ADMIT-003", "first"));
+        bookStore.buyBook("ISBN-ADMIT-003", 3, "reader@example.com", "12 Main St");
+
+        // Two copies left: the first buyer holds the line, two more wait and a third is turned away
+        assertEquals(Decision.ADMITTED_IN_LINE, admission.admit("ISBN-ADMIT-003", "second"));
+        ExecutorService waiting = Executors.newFixedThreadPool(2);
+        try {
+            Future<Decision> third = waiting.submit(() -> admission.admit("ISBN-ADMIT-003", "third"));
+            Future<Decision> fourth = waiting.submit(() -> admission.admit("ISBN-ADMIT-003", "fourth"));
+            Thread.sleep(200);
+            assertFalse(third.isDone());
+            assertEquals(Decision.LINE_FULL, admission.admit("ISBN-ADMIT-003", "fifth"));
+
+            // The holder buys the last two copies, so whoever is let in next finds the book sold out
+            bookStore.buyBook("ISBN-ADMIT-003", 2, "reader@example.com", "12 Main St");
+            admission.leave("ISBN-ADMIT-003");
+            assertEquals(List.of(Decision.SOLD_OUT, Decision.SOLD_OUT),
+                         List.of(third.get(5, TimeUnit.SECONDS), fourth.get(5, TimeUnit.SECONDS)));
+        } finally {
+            waiting.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Test Line Wait Is Bounded")
+    void testLineWaitIsBounded() {
+        PurchaseAdmission impatient = new PurchaseAdmission(bookStore, 0, 1, 0, 1, 10, 10, Duration.ofMillis(50));
+        try {
+            bookStore.addBook(new PaperBook("ISBN-ADMIT-004", "Refactoring", "Martin Fowler", 2018, 39.99, 3));
+            bookStore.addInventoryListener(impatient);
+            bookStore.updateBook(new PaperBook("ISBN-ADMIT-004", "Refactoring", "Martin Fowler", 2018, 39.99, 3));
+            assertEquals(Decision.ADMITTED_IN_LINE, impatient.admit("ISBN-ADMIT-004", "holder"));
+            assertEquals(Decision.LINE_TIMEOUT, impatient.admit("ISBN-ADMIT-004", "waiter"));
+            impatient.leave("ISBN-ADMIT-004");
+            assertEquals(Decision.ADMITTED_IN_LINE, impatient.admit("ISBN-ADMIT-004", "waiter"));
+        } finally {
+            impatient.close();
+        }
+    }
+}
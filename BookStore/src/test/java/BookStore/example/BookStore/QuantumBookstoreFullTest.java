@@ -1,13 +1,21 @@
 package BookStore.example.BookStore;
 
 import BookStore.example.BookStore.model.*;
+import BookStore.example.BookStore.service.BookProjection;
 import BookStore.example.BookStore.service.BookStore;
+import BookStore.example.BookStore.service.CatalogPage;
+import BookStore.example.BookStore.service.OrderLine;
+import BookStore.example.BookStore.service.PurchaseFailure;
+import BookStore.example.BookStore.service.PurchaseResult;
+import BookStore.example.BookStore.service.SearchResults;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.time.Year;
 import java.util.List;
+import java.util.Map;
 
 @DisplayName("Quantum Book Store Full Test Suite")
 public class QuantumBookstoreFullTest {
@@ -78,7 +86,7 @@ public class QuantumBookstoreFullTest {
         Book updatedBookInInventory = bookStore.getBook("ISBN-DUP-001");
         assertEquals("Updated Java Book", updatedBookInInventory.getTitle());
         assertEquals("Updated Author", updatedBookInInventory.getAuthor());
-        assertEquals(65.99, updatedBookInInventory.getPrice(), 0.01);
+        assertEquals(6599, updatedBookInInventory.getPriceCents());
         
         // Test addOrUpdateBook functionality
         PaperBook newBook = new PaperBook("ISBN-NEW-DUP", "Brand New Book", 
@@ -90,7 +98,7 @@ public class QuantumBookstoreFullTest {
                                                "New Author", 2023, 49.99, 8);
         bookStore.addOrUpdateBook(anotherUpdate);
         assertEquals("Updated New Book", bookStore.getBook("ISBN-NEW-DUP").getTitle());
-        assertEquals(49.99, bookStore.getBook("ISBN-NEW-DUP").getPrice(), 0.01);
+        assertEquals(4999, bookStore.getBook("ISBN-NEW-DUP").getPriceCents());
     }
 
     @Test
@@ -126,6 +134,26 @@ public class QuantumBookstoreFullTest {
         assertNotNull(bookStore.getBook("ISBN-NEW-001"));
     }
 
+    @Test
+    @DisplayName("Test Outdated Purge Follows Year Updates")
+    void testOutdatedPurgeFollowsYearUpdates() {
+        System.out.println("\nQuantum book store - Testing: Outdated Purge Follows Year Updates");
+
+        bookStore.addBook(new PaperBook("ISBN-YR-001", "Reissued Classic", "Classic Author", 2001, 19.99, 4));
+        bookStore.addBook(new EBook("ISBN-YR-002", "Forgotten Manual", "Manual Author", 2002, 9.99, "PDF"));
+
+        // A new edition moves the book into a recent year bucket
+        bookStore.updateBook(new PaperBook("ISBN-YR-001", "Reissued Classic", "Classic Author", Year.now().getValue(), 24.99, 4));
+
+        List<Book> removedBooks = bookStore.removeOutdatedBooks(10);
+        assertEquals(1, removedBooks.size());
+        assertEquals("ISBN-YR-002", removedBooks.get(0).getIsbn());
+        assertNotNull(bookStore.getBook("ISBN-YR-001"));
+
+        // Nothing left below the cutoff, so a second pass removes nothing
+        assertTrue(bookStore.removeOutdatedBooks(10).isEmpty());
+    }
+
     @Test
     @DisplayName("Test Buying Paper Books")
     void testBuyingPaperBooks() {
@@ -136,8 +164,8 @@ public class QuantumBookstoreFullTest {
         bookStore.addBook(paperBook);
         
         // Test successful purchase
-        double amount = bookStore.buyBook("ISBN-PAPER-001", 2, "test@example.com", "123 Main St");
-        assertEquals(111.98, amount, 0.01);
+        long amount = bookStore.buyBook("ISBN-PAPER-001", 2, "test@example.com", "123 Main St");
+        assertEquals(11198, amount);
         assertEquals(3, paperBook.getStock()); // Stock should be reduced
         
         // Test insufficient stock
@@ -156,12 +184,87 @@ public class QuantumBookstoreFullTest {
         bookStore.addBook(eBook);
         
         // Test successful ebook purchase
-        double amount = bookStore.buyBook("ISBN-EBOOK-001", 1, "customer@example.com", "");
-        assertEquals(39.99, amount, 0.01);
+        long amount = bookStore.buyBook("ISBN-EBOOK-001", 1, "customer@example.com", "");
+        assertEquals(3999, amount);
         
         // Test multiple ebook purchase
-        double multipleAmount = bookStore.buyBook("ISBN-EBOOK-001", 3, "customer@example.com", "");
-        assertEquals(119.97, multipleAmount, 0.01);
+        long multipleAmount = bookStore.buyBook("ISBN-EBOOK-001", 3, "customer@example.com", "");
+        assertEquals(11997, multipleAmount);
+    }
+
+    @Test
+    @DisplayName("Test Multi-Item Checkout")
+    void testMultiItemCheckout() {
+        System.out.println("\nQuantum book store - Testing: Multi-Item Checkout");
+
+        PaperBook first = new PaperBook("ISBN-CART-001", "Domain-Driven Design", "Eric Evans", 2022, 50.00, 5);
+        PaperBook second = new PaperBook("ISBN-CART-002", "Release It!", "Michael Nygard", 2023, 40.00, 1);
+        EBook eBook = new EBook("ISBN-CART-003", "Site Reliability Engineering", "Betsy Beyer", 2021, 20.00, "PDF");
+        bookStore.addBook(first);
+        bookStore.addBook(second);
+        bookStore.addBook(eBook);
+
+        long amount = bookStore.checkout(List.of(new OrderLine("ISBN-CART-002", 1),
+                                                   new OrderLine("ISBN-CART-001", 2),
+                                                   new OrderLine("ISBN-CART-003", 3),
+                                                   new OrderLine("ISBN-CART-001", 1)),
+                                           "cart@example.com", "7 Cart Lane");
+        assertEquals(25000, amount);
+        assertEquals(2, first.getStock());
+        assertEquals(0, second.getStock());
+
+        // One line short of stock fails the whole order and leaves every other line untouched
+        assertThrows(IllegalArgumentException.class, () ->
+                bookStore.checkout(List.of(new OrderLine("ISBN-CART-001", 1),
+                                           new OrderLine("ISBN-CART-002", 1)),
+                                   "cart@example.com", "7 Cart Lane"));
+        assertEquals(2, first.getStock());
+        assertEquals(2, first.getAvailableStock());
+
+        assertThrows(IllegalArgumentException.class, () ->
+                bookStore.checkout(List.of(new OrderLine("ISBN-CART-001", 1),
+                                           new OrderLine("NON-EXISTENT-ISBN", 1)),
+                                   "cart@example.com", "7 Cart Lane"));
+        assertEquals(2, first.getAvailableStock());
+    }
+
+    @Test
+    @DisplayName("Test Checkout Overflow Is Rejected Without Holding Stock")
+    void testCheckoutOverflowIsRejected() {
+        System.out.println("\nQuantum book store - Testing: Checkout Overflow");
+
+        PaperBook paperBook = new PaperBook("ISBN-CART-101", "Designing Data-Intensive Applications", "Martin Kleppmann", 2022, 45.00, 5);
+        EBook priceyEBook = new EBook("ISBN-CART-102", "Priceless", "Someone", 2022, 1e13, "PDF");
+        bookStore.addBook(paperBook);
+        bookStore.addBook(priceyEBook);
+
+        // Two lines for one ISBN whose quantities do not fit an int
+        assertThrows(IllegalArgumentException.class, () ->
+                bookStore.checkout(List.of(new OrderLine("ISBN-CART-101", Integer.MAX_VALUE),
+                                           new OrderLine("ISBN-CART-101", 1)),
+                                   "cart@example.com", "7 Cart Lane"));
+        // A total that does not fit a long
+        assertThrows(IllegalArgumentException.class, () ->
+                bookStore.checkout(List.of(new OrderLine("ISBN-CART-101", 1),
+                                           new OrderLine("ISBN-CART-102", 10_000)),
+                                   "cart@example.com", "7 Cart Lane"));
+        assertEquals(5, paperBook.getStock());
+        assertEquals(5, paperBook.getAvailableStock());
+    }
+
+    @Test
+    @DisplayName("Test Stock Operations Reject Non-Positive Quantities")
+    void testStockOperationsRejectNonPositiveQuantities() {
+        System.out.println("\nQuantum book store - Testing: Non-Positive Stock Quantities");
+
+        PaperBook paperBook = new PaperBook("ISBN-STOCK-001", "Effective Java", "Joshua Bloch", 2018, 45.00, 5);
+        assertTrue(paperBook.tryReserve(2));
+
+        assertThrows(IllegalArgumentException.class, () -> paperBook.tryReserve(-3));
+        assertThrows(IllegalArgumentException.class, () -> paperBook.release(0));
+        assertThrows(IllegalArgumentException.class, () -> paperBook.commit(-1));
+        assertEquals(5, paperBook.getStock());
+        assertEquals(3, paperBook.getAvailableStock());
     }
 
     @Test
@@ -193,6 +296,41 @@ public class QuantumBookstoreFullTest {
         });
     }
 
+    @Test
+    @DisplayName("Test Purchase Results Without Exceptions")
+    void testPurchaseResultsWithoutExceptions() {
+        System.out.println("\nQuantum book store - Testing: Purchase Results Without Exceptions");
+
+        bookStore.addBook(new PaperBook("ISBN-RESULT-001", "Release It!", "Michael Nygard", 2018, 35.00, 3));
+        bookStore.addBook(new EBook("ISBN-RESULT-002", "Java Performance", "Scott Oaks", 2020, 30.00, "PDF"));
+        bookStore.addBook(new ShowcaseBook("ISBN-RESULT-003", "Display Copy", "Someone", 2020));
+
+        PurchaseResult bought = bookStore.tryBuyBook("ISBN-RESULT-001", 2, "test@example.com", "123 Main St");
+        assertTrue(bought.isCompleted());
+        assertNull(bought.getFailure());
+        assertEquals(7000, bought.getAmountCents());
+        assertEquals(1, bought.getRemainingStock());
+
+        PurchaseResult eBook = bookStore.tryBuyBook("ISBN-RESULT-002", 1, "test@example.com", "");
+        assertEquals(3000, eBook.getAmountCents());
+        assertEquals(PurchaseResult.NO_STOCK, eBook.getRemainingStock());
+
+        PurchaseResult tooMany = bookStore.tryBuyBook("ISBN-RESULT-001", 2, "test@example.com", "123 Main St");
+        assertEquals(PurchaseFailure.INSUFFICIENT_STOCK, tooMany.getFailure());
+        assertEquals(1, tooMany.getRemainingStock());
+        bookStore.tryBuyBook("ISBN-RESULT-001", 1, "test@example.com", "123 Main St");
+
+        // Expected failures are shared constants
+        assertSame(bookStore.tryBuyBook("ISBN-RESULT-001", 1, "test@example.com", "123 Main St"),
+                   bookStore.tryBuyBook("ISBN-RESULT-001", 5, "test@example.com", "123 Main St"));
+        assertEquals(0, bookStore.tryBuyBook("ISBN-RESULT-001", 1, "test@example.com", "123 Main St").getRemainingStock());
+        assertSame(bookStore.tryBuyBook("NON-EXISTENT-ISBN", 1, "test@example.com", "123 Main St"),
+                   bookStore.tryBuyBook("ANOTHER-MISSING-ISBN", 1, "test@example.com", "123 Main St"));
+        assertEquals(PurchaseFailure.NOT_FOUND, bookStore.tryBuyBook("NON-EXISTENT-ISBN", 1, "test@example.com", "").getFailure());
+        assertEquals(PurchaseFailure.NOT_FOR_SALE, bookStore.tryBuyBook("ISBN-RESULT-003", 1, "test@example.com", "").getFailure());
+        assertEquals(PurchaseFailure.INVALID_REQUEST, bookStore.tryBuyBook("ISBN-RESULT-002", 0, "test@example.com", "").getFailure());
+    }
+
     @Test
     @DisplayName("Test Book Properties and Author Field")
     void testBookProperties() {
@@ -205,7 +343,8 @@ public class QuantumBookstoreFullTest {
         assertEquals("Effective Java", book.getTitle());
         assertEquals("Joshua Bloch", book.getAuthor());
         assertEquals(2018, book.getYearPublished());
-        assertEquals(49.99, book.getPrice(), 0.01);
+        assertEquals(4999, book.getPriceCents());
+        assertEquals(49.99, book.getPrice());
         assertEquals(10, book.getStock());
         assertTrue(book.isAvailableForPurchase());
         assertEquals("Paper Book", book.getBookType());
@@ -261,6 +400,78 @@ public class QuantumBookstoreFullTest {
         System.out.println("Quantum book store - Custom book type added: " + audioBook);
     }
 
+    @Test
+    @DisplayName("Test Searching Books")
+    void testSearchingBooks() {
+        System.out.println("\nQuantum book store - Testing: Searching Books");
+
+        bookStore.addBook(new PaperBook("ISBN-SR-001", "Clean Code", "Robert C. Martin", 2008, 42.99, 5));
+        bookStore.addBook(new EBook("ISBN-SR-002", "Clean Architecture", "Robert C. Martin", 2017, 29.99, "PDF"));
+        bookStore.addBook(new PaperBook("ISBN-SR-003", "Refactoring", "Martin Fowler", 2018, 47.99, 3));
+        bookStore.addBook(new ShowcaseBook("ISBN-SR-004", "Code Complete", "Steve McConnell", 2004));
+
+        // Prefix match on every query token, title matches ranked above author matches
+        SearchResults results = bookStore.searchBooks("clea co", null, null, null, 0, 10);
+        assertEquals(1, results.getTotal());
+        assertEquals("ISBN-SR-001", results.getResults().get(0).getIsbn());
+
+        results = bookStore.searchBooks("martin", null, null, null, 0, 10);
+        assertEquals(3, results.getTotal());
+
+        // Secondary indexes by type and year
+        results = bookStore.searchBooks("martin", "Paper Book", null, null, 0, 10);
+        assertEquals(2, results.getTotal());
+        results = bookStore.searchBooks(null, null, 2010, null, 0, 10);
+        assertEquals(2, results.getTotal());
+
+        // Pagination; a query without terms lists every book by title
+        results = bookStore.searchBooks("", null, null, null, 0, 3);
+        assertEquals(List.of("Clean Architecture", "Clean Code", "Code Complete"),
+                     results.getResults().stream().map(Book::getTitle).toList());
+        results = bookStore.searchBooks("", null, null, null, 1, 3);
+        assertEquals(4, results.getTotal());
+        assertEquals(1, results.getResults().size());
+        assertEquals("Refactoring", results.getResults().get(0).getTitle());
+        assertEquals(1, bookStore.searchBooks(" ", "Paper Book", null, 2010, 0, 10).getTotal());
+
+        // Index follows updates and removals
+        bookStore.updateBook(new PaperBook("ISBN-SR-003", "Refactoring Databases", "Scott Ambler", 2006, 39.99, 3));
+        assertEquals(0, bookStore.searchBooks("fowler", null, null, null, 0, 10).getTotal());
+        assertEquals(1, bookStore.searchBooks("ambler", null, null, null, 0, 10).getTotal());
+
+        bookStore.removeOutdatedBooks(Year.now().getValue() - 2010);
+        assertEquals(0, bookStore.searchBooks("refactoring", null, null, null, 0, 10).getTotal());
+        assertEquals(1, bookStore.searchBooks("clean", null, null, null, 0, 10).getTotal());
+    }
+
+    @Test
+    @DisplayName("Test Paging Through The Catalog")
+    void testPagingThroughCatalog() {
+        System.out.println("\nQuantum book store - Testing: Paging Through The Catalog");
+
+        for (int i = 1; i <= 4; i++) {
+            bookStore.addBook(new EBook("ISBN-PG-00" + (i * 2), "Paged Book " + i, "Page Author", 2022, 9.99, "PDF"));
+        }
+        bookStore.addBook(new EBook("ISBN-PG-009", "Paged Book 5", "Page Author", 2022, 9.99, "PDF"));
+
+        CatalogPage first = bookStore.listBooks(null, 2);
+        assertEquals(List.of("ISBN-PG-002", "ISBN-PG-004"), first.getBooks().stream().map(Book::getIsbn).toList());
+        assertEquals("ISBN-PG-004", first.getNextIsbn());
+
+        // A book inserted before the cursor does not shift the following page
+        bookStore.addBook(new EBook("ISBN-PG-003", "Late Arrival", "Page Author", 2022, 9.99, "PDF"));
+        CatalogPage second = bookStore.listBooks(first.getNextIsbn(), 2);
+        assertEquals(List.of("ISBN-PG-006", "ISBN-PG-008"), second.getBooks().stream().map(Book::getIsbn).toList());
+
+        CatalogPage last = bookStore.listBooks(second.getNextIsbn(), 2);
+        assertEquals(1, last.getBooks().size());
+        assertNull(last.getNextIsbn());
+
+        Map<String, Object> view = BookProjection.project(first.getBooks().get(0), BookProjection.parseFields("isbn,title,stock"));
+        assertEquals(Map.of("isbn", "ISBN-PG-002", "title", "Paged Book 1"), view);
+        assertThrows(IllegalArgumentException.class, () -> BookProjection.parseFields("isbn,secret"));
+    }
+
     @Test
     @DisplayName("Test Complete Workflow")
     void testCompleteWorkflow() {
@@ -280,10 +491,10 @@ public class QuantumBookstoreFullTest {
         bookStore.displayInventory();
         
         // Purchase some books
-        double paperBookCost = bookStore.buyBook("ISBN-WF-001", 2, "john@example.com", "456 Oak Ave");
-        double eBookCost = bookStore.buyBook("ISBN-WF-002", 1, "jane@example.com", "");
+        long paperBookCost = bookStore.buyBook("ISBN-WF-001", 2, "john@example.com", "456 Oak Ave");
+        long eBookCost = bookStore.buyBook("ISBN-WF-002", 1, "jane@example.com", "");
         
-        System.out.println("Quantum book store - Total purchases: $" + (paperBookCost + eBookCost));
+        System.out.println("Quantum book store - Total purchases: $" + Money.format(paperBookCost + eBookCost));
         
         // Remove outdated books
         List<Book> removedBooks = bookStore.removeOutdatedBooks(12);
@@ -0,0 +1,95 @@
+package BookStore.example.BookStore;
+
+import BookStore.example.BookStore.model.*;
+import BookStore.example.BookStore.service.BookStore;
+import BookStore.example.BookStore.service.OrderLine;
+import BookStore.example.BookStore.service.RevenueLedger;
+import BookStore.example.BookStore.service.RevenueReport;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+@DisplayName("Quantum Book Store Revenue Ledger Test")
+public class RevenueLedgerTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 14);
+
+    @Test
+    @DisplayName("Test Money Is Exact In Cents")
+    void testMoneyIsExactInCents() {
+        assertEquals(1999, Money.ofDecimal(19.99));
+        assertEquals(101, Money.ofDecimal(1.01));
+        assertEquals("0.07", Money.format(7));
+        assertEquals("-12.50", Money.format(-1250));
+        assertEquals("1234567.89", Money.format(123456789));
+        assertThrows(IllegalArgumentException.class, () -> Money.ofDecimal(Double.NaN));
+        assertThrows(ArithmeticException.class, () -> Money.times(Long.MAX_VALUE / 2, 3));
+
+        // Ten 0.10 sales add up to exactly one dollar, which a double total does not
+        BookStore bookStore = new BookStore((book, quantity, address) -> { }, (book, email) -> { });
+        bookStore.addBook(new EBook("ISBN-REV-001", "Dime Novel", "Someone", 2020, 0.10, "EPUB"));
+        long total = 0;
+        for (int i = 0; i < 10; i++) {
+            total += bookStore.buyBook("ISBN-REV-001", 1, "reader@example.com", "");
+        }
+        assertEquals(100, total);
+    }
+
+    @Test
+    @DisplayName("Test Revenue By Type And Day")
+    void testRevenueByTypeAndDay() {
+        RevenueLedger ledger = new RevenueLedger(Clock.fixed(DAY.atStartOfDay(ZoneOffset.UTC).toInstant(), ZoneOffset.UTC));
+        BookStore bookStore = new BookStore((book, quantity, address) -> { }, (book, email) -> { });
+        bookStore.addInventoryListener(ledger);
+        bookStore.addBook(new PaperBook("ISBN-REV-101", "Clean Code", "Robert C. Martin", 2008, 42.99, 10));
+        bookStore.addBook(new EBook("ISBN-REV-102", "Refactoring", "Martin Fowler", 2018, 39.99, "PDF"));
+        bookStore.addBook(new ShowcaseBook("ISBN-REV-103", "Future Book", "Someone", 2025));
+
+        assertEquals(8598, bookStore.buyBook("ISBN-REV-101", 2, "reader@example.com", "12 Main St"));
+        assertEquals(12297, bookStore.checkout(List.of(new OrderLine("ISBN-REV-101", 1), new OrderLine("ISBN-REV-102", 2)),
+                                               "reader@example.com", "12 Main St"));
+        assertThrows(IllegalArgumentException.class,
+                     () -> bookStore.buyBook("ISBN-REV-103", 1, "reader@example.com", "12 Main St"));
+        ledger.record("EBook", DAY.minusDays(1), 500);
+        ledger.record("EBook", DAY.minusDays(30), 700);
+
+        RevenueReport report = ledger.revenueByTypeAndDay(DAY.minusDays(1), DAY);
+        assertArrayEquals(new long[] {0, 12897}, report.getDailyCentsByType().get("Paper Book"));
+        assertArrayEquals(new long[] {500, 7998}, report.getDailyCentsByType().get("EBook"));
+        assertEquals(21395, report.getTotalCents());
+        assertEquals(5, ledger.getSalesCount());
+
+        assertThrows(IllegalArgumentException.class, () -> ledger.revenueByTypeAndDay(DAY, DAY.minusDays(1)));
+    }
+
+    @Test
+    @DisplayName("Test Revenue Aggregation Over Millions Of Sales")
+    void testRevenueAggregationOverMillionsOfSales() {
+        RevenueLedger ledger = new RevenueLedger();
+        String[] types = {"Paper Book", "EBook"};
+        int sales = 5_000_000;
+        long expected = 0;
+        for (int i = 0; i < sales; i++) {
+            long cents = 199 + i % 5000;
+            ledger.record(types[i & 1], DAY.minusDays(i % 365), cents);
+            expected += cents;
+        }
+
+        RevenueReport report = null;
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run < 5; run++) {
+            long started = System.nanoTime();
+            report = ledger.revenueByTypeAndDay(DAY.minusDays(364), DAY);
+            best = Math.min(best, System.nanoTime() - started);
+        }
+        assertEquals(expected, report.getTotalCents());
+        assertEquals(365, report.getDailyCentsByType().get("EBook").length);
+        System.out.println("Quantum book store - Revenue by type and day over " + sales + " sales: "
+                           + best / 1_000_000 + " ms");
+    }
+}
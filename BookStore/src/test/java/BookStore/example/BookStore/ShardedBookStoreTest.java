@@ -0,0 +1,156 @@
+package BookStore.example.BookStore;
+
+import BookStore.example.BookStore.model.*;
+import BookStore.example.BookStore.service.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@DisplayName("Quantum Book Store Sharded Inventory Test")
+public class ShardedBookStoreTest {
+
+    private ShardedBookStore sharded;
+    private BookStore single;
+
+    @BeforeEach
+    void setUp() {
+        sharded = new ShardedBookStore((book, quantity, address) -> { }, (book, email) -> { }, 4, 64);
+        single = new BookStore((book, quantity, address) -> { }, (book, email) -> { });
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            String isbn = String.format("ISBN-SHARD-%03d", i);
+            books.add(i % 3 == 0 ? new EBook(isbn, "Distributed Systems " + i, "Author " + i % 7, 1990 + i % 30, 10.00, "PDF")
+                                 : new PaperBook(isbn, "Data Systems " + i, "Author " + i % 7, 1990 + i % 30, 20.00, 5));
+        }
+        sharded.addBooks(books);
+        single.addBooks(books);
+    }
+
+    @AfterEach
+    void tearDown() {
+        sharded.close();
+    }
+
+    @Test
+    @DisplayName("Test Ring Spreads Keys Evenly And Moves Few On Growth")
+    void testRingSpreadsKeysAndMovesFewOnGrowth() {
+        ShardRing four = new ShardRing(4, 512);
+        ShardRing five = new ShardRing(5, 512);
+        ShardRing fourAgain = new ShardRing(4, 512);
+        int keys = 100_000;
+        int[] counts = new int[4];
+        int moved = 0;
+        for (int i = 0; i < keys; i++) {
+            String isbn = Isbn.canonical(String.format("978%09d", i * 7));
+            int owner = four.shardFor(isbn);
+            counts[owner]++;
+            assertEquals(owner, fourAgain.shardFor(isbn));
+            int newOwner = five.shardFor(isbn);
+            if (newOwner != owner) {
+                // Growing the ring only moves keys to the new shard
+                assertEquals(4, newOwner);
+                moved++;
+            }
+        }
+        for (int count : counts) {
+            assertEquals(keys / 4.0, count, keys / 4.0 * 0.15, "Uneven shards: " + Arrays.toString(counts));
+        }
+        assertEquals(keys / 5.0, moved, keys / 5.0 * 0.25);
+    }
+
+    @Test
+    @DisplayName("Test Books Route To One Shard And Sales Span Shards")
+    void testBooksRouteToOneShardAndSalesSpanShards() {
+        int total = 0;
+        for (BookStore shard : sharded.getShards()) {
+            assertFalse(shard.getAllBooks().isEmpty());
+            total += shard.getAllBooks().size();
+        }
+        assertEquals(200, total);
+        assertSame(sharded.shardFor("ISBN-SHARD-001").getBook("ISBN-SHARD-001"), sharded.getBook("ISBN-SHARD-001"));
+
+        assertEquals(4000, sharded.buyBook("ISBN-SHARD-001", 2, "reader@example.com", "12 Main St"));
+        assertEquals(3, ((PaperBook) sharded.getBook("ISBN-SHARD-001")).getStock());
+
+        // Find two paper books on different shards; an order for both is still all or nothing
+        String other = null;
+        for (int i = 2; other == null; i++) {
+            String isbn = String.format("ISBN-SHARD-%03d", i);
+            if (i % 3 != 0 && sharded.shardFor(isbn) != sharded.shardFor("ISBN-SHARD-001")) {
+                other = isbn;
+            }
+        }
+        String second = other;
+        assertThrows(IllegalArgumentException.class, () -> sharded.checkout(
+                List.of(new OrderLine("ISBN-SHARD-001", 1), new OrderLine(second, 6)), "reader@example.com", "12 Main St"));
+        assertEquals(3, ((PaperBook) sharded.getBook("ISBN-SHARD-001")).getAvailableStock());
+        assertEquals(6000, sharded.checkout(List.of(new OrderLine("ISBN-SHARD-001", 1), new OrderLine(second, 2)),
+                                            "reader@example.com", "12 Main St"));
+        assertEquals(3, ((PaperBook) sharded.getBook(second)).getStock());
+    }
+
+    @Test
+    @DisplayName("Test Scatter Gather Matches A Single Store")
+    void testScatterGatherMatchesSingleStore() {
+        assertEquals(200, sharded.getAllBooks().size());
+
+        List<String> listed = new ArrayList<>();
+        String cursor = null;
+        do {
+            CatalogPage page = sharded.listBooks(cursor, 17);
+            page.getBooks().forEach(book -> listed.add(book.getIsbn()));
+            cursor = page.getNextIsbn();
+        } while (cursor != null);
+        assertEquals(isbns(single.listBooks(null, 1000).getBooks()), listed);
+
+        for (int page = 0; page < 4; page++) {
+            SearchResults expected = single.searchBooks("data syst", null, null, null, page, 25);
+            SearchResults actual = sharded.searchBooks("data syst", null, null, null, page, 25);
+            assertEquals(expected.getTotal(), actual.getTotal());
+            assertEquals(isbns(expected.getResults()), isbns(actual.getResults()));
+        }
+
+        int years = Year.now().getValue() - 2000;
+        List<Book> removed = sharded.removeOutdatedBooks(years);
+        assertEquals(single.removeOutdatedBooks(years).size(), removed.size());
+        assertEquals(200 - removed.size(), sharded.getAllBooks().size());
+    }
+
+    @Test
+    @DisplayName("Test Listeners Hear Each Event Once")
+    void testListenersHearEachEventOnce() {
+        AtomicInteger added = new AtomicInteger();
+        AtomicInteger sold = new AtomicInteger();
+        sharded.addInventoryListener(new InventoryListener() {
+            @Override
+            public void bookAdded(Book book) {
+                added.incrementAndGet();
+            }
+
+            @Override
+            public void stockSold(PaperBook book, int quantity, int remainingStock) {
+                sold.incrementAndGet();
+            }
+        });
+        sharded.addBook(new PaperBook("ISBN-SHARD-NEW", "Fresh", "Someone", 2024, 5.00, 3));
+        sharded.buyBook("ISBN-SHARD-NEW", 1, "reader@example.com", "12 Main St");
+        assertEquals(1, added.get());
+        assertEquals(1, sold.get());
+    }
+
+    private static List<String> isbns(List<Book> books) {
+        List<String> isbns = new ArrayList<>();
+        for (Book book : books) {
+            isbns.add(book.getIsbn());
+        }
+        return isbns;
+    }
+}
@@ -0,0 +1,134 @@
+package BookStore.example.BookStore;
+
+import BookStore.example.BookStore.model.*;
+import BookStore.example.BookStore.service.BookStore;
+import BookStore.example.BookStore.service.FulfilmentPipeline;
+import BookStore.example.BookStore.service.FulfilmentStageMetrics;
+import BookStore.example.BookStore.service.ShipmentConsolidator;
+import BookStore.example.BookStore.service.ShipmentLine;
+import BookStore.example.BookStore.service.ShippingService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@DisplayName("Quantum Book Store Shipment Consolidation Test")
+public class ShipmentConsolidatorTest {
+
+    private final PaperBook cleanCode = new PaperBook("ISBN-SHIP-001", "Clean Code", "Robert C. Martin", 2008, 42.99, 100);
+    private final PaperBook refactoring = new PaperBook("ISBN-SHIP-002", "Refactoring", "Martin Fowler", 2018, 47.99, 100);
+
+    @Test
+    @DisplayName("Test Shipments To The Same Address Are Consolidated")
+    void testShipmentsToSameAddressAreConsolidated() {
+        RecordingCarrier carrier = new RecordingCarrier();
+        try (ShipmentConsolidator consolidator = new ShipmentConsolidator(carrier, Duration.ofSeconds(30), 100)) {
+            consolidator.shipBook(cleanCode, 1, "12 Main St., Springfield");
+            consolidator.shipBook(refactoring, 2, "12 main st springfield");
+            consolidator.shipBook(cleanCode, 3, "  12 MAIN ST,  Springfield ");
+            consolidator.shipBook(cleanCode, 1, "99 Elm Rd");
+        }
+
+        assertEquals(2, carrier.shipments.size());
+        Shipment mainStreet = carrier.shipments.stream()
+                                               .filter(shipment -> shipment.address.startsWith("12"))
+                                               .findFirst().orElseThrow();
+        assertEquals("12 Main St., Springfield", mainStreet.address);
+        assertEquals(2, mainStreet.lines.size());
+        assertEquals("ISBN-SHIP-001", mainStreet.lines.get(0).getBook().getIsbn());
+        assertEquals(4, mainStreet.lines.get(0).getQuantity());
+        assertEquals(2, mainStreet.lines.get(1).getQuantity());
+    }
+
+    @Test
+    @DisplayName("Test Flash Sale Spike Is Consolidated")
+    void testFlashSaleSpikeIsConsolidated() {
+        RecordingCarrier carrier = new RecordingCarrier();
+        ShipmentConsolidator consolidator = new ShipmentConsolidator(carrier, Duration.ofSeconds(30), 50);
+        try (consolidator) {
+            for (int i = 0; i < 1_000; i++) {
+                consolidator.shipBook(i % 2 == 0 ? cleanCode : refactoring, 1, "Warehouse " + (i % 10));
+            }
+            // Every address reached 50 requests twice, so each was dispatched without waiting for the window
+            assertEquals(20, carrier.shipments.size());
+        }
+
+        assertEquals(1_000, consolidator.getRequests());
+        assertEquals(20, consolidator.getShipments());
+        assertEquals(50, consolidator.getLargestBatch());
+        assertEquals(50.0, consolidator.getConsolidationRatio(), 0.001);
+        assertEquals(1_000, carrier.shipments.stream()
+                                             .flatMap(shipment -> shipment.lines.stream())
+                                             .mapToInt(ShipmentLine::getQuantity).sum());
+    }
+
+    @Test
+    @DisplayName("Test Address Normalization")
+    void testAddressNormalization() {
+        RecordingCarrier carrier = new RecordingCarrier();
+        try (ShipmentConsolidator consolidator = new ShipmentConsolidator(carrier, Duration.ofSeconds(30), 100)) {
+            consolidator.shipBook(cleanCode, 1, "Flat 4, 7 Queen's Road");
+            consolidator.shipBook(cleanCode, 1, "flat 4 7 queen s road");
+            consolidator.shipBook(cleanCode, 1, "Flat 5, 7 Queen's Road");
+        }
+        assertEquals(2, carrier.shipments.size());
+    }
+
+    @Test
+    @DisplayName("Test Transient Carrier Failure Is Retried Until Shipped")
+    void testTransientCarrierFailureIsRetried() throws Exception {
+        RecordingCarrier carrier = new RecordingCarrier();
+        carrier.failures.set(1);
+        try (ShipmentConsolidator consolidator = new ShipmentConsolidator(carrier, Duration.ofMillis(20), 100);
+             FulfilmentPipeline pipeline = new FulfilmentPipeline(consolidator, (book, email) -> { },
+                                                                  1, 10, 3, Duration.ofMillis(10))) {
+            BookStore bookStore = new BookStore(pipeline);
+            bookStore.addBook(cleanCode);
+            bookStore.buyBook(cleanCode.getIsbn(), 2, "buyer@example.com", "12 Main St");
+
+            long deadline = System.nanoTime() + 5_000_000_000L;
+            while (pipeline.getMetrics().get("shipping").getCompleted() == 0) {
+                assertTrue(System.nanoTime() < deadline, "Timed out waiting for the shipment");
+                Thread.sleep(5);
+            }
+            FulfilmentStageMetrics shipping = pipeline.getMetrics().get("shipping");
+            assertEquals(1, shipping.getRetried());
+            assertEquals(0, shipping.getFailed());
+            assertEquals(1, consolidator.getFailedShipments());
+            assertEquals(1, carrier.shipments.size());
+            assertEquals(2, carrier.shipments.get(0).lines.get(0).getQuantity());
+        }
+    }
+
+    private static final class Shipment {
+        final List<ShipmentLine> lines;
+        final String address;
+
+        Shipment(List<ShipmentLine> lines, String address) {
+            this.lines = lines;
+            this.address = address;
+        }
+    }
+
+    private static final class RecordingCarrier implements ShippingService {
+        final List<Shipment> shipments = new CopyOnWriteArrayList<>();
+        final AtomicInteger failures = new AtomicInteger();
+
+        @Override
+        public void shipBook(PaperBook book, int quantity, String address) {
+            shipBooks(List.of(new ShipmentLine(book, quantity)), address);
+        }
+
+        @Override
+        public void shipBooks(List<ShipmentLine> lines, String address) {
+            if (failures.getAndUpdate(remaining -> Math.max(0, remaining - 1)) > 0) {
+                throw new IllegalStateException("Carrier unavailable");
+            }
+            shipments.add(new Shipment(lines, address));
+        }
+    }
+}
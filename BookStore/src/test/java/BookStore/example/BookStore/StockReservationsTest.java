@@ -0,0 +1,107 @@
+package BookStore.example.BookStore;
+
+import BookStore.example.BookStore.model.*;
+import BookStore.example.BookStore.service.BookStore;
+import BookStore.example.BookStore.service.PurchaseFailure;
+import BookStore.example.BookStore.service.PurchaseResult;
+import BookStore.example.BookStore.service.Reservation;
+import BookStore.example.BookStore.service.StockReservations;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@DisplayName("Quantum Book Store Stock Reservations Test")
+public class StockReservationsTest {
+
+    private BookStore bookStore;
+    private StockReservations reservations;
+    private PaperBook book;
+
+    @BeforeEach
+    void setUp() {
+        bookStore = new BookStore((b, quantity, address) -> { }, (b, email) -> { });
+        reservations = new StockReservations(bookStore, Duration.ofMinutes(10), Duration.ofHours(1), 1_000_000,
+                                             Duration.ofMillis(10), 64);
+        book = new PaperBook("ISBN-HOLD-001", "Release It!", "Michael Nygard", 2018, 35.00, 10);
+        bookStore.addBook(book);
+    }
+
+    @AfterEach
+    void tearDown() {
+        reservations.close();
+    }
+
+    @Test
+    @DisplayName("Test Held Copies Leave Available Stock Until Confirmed Or Cancelled")
+    void testHeldCopiesLeaveAvailableStock() {
+        Reservation kept = reservations.reserve("ISBN-HOLD-001", 3, null);
+        Reservation dropped = reservations.reserve("ISBN-HOLD-001", 2, Duration.ofMinutes(1));
+        assertEquals("ISBN-HOLD-001", kept.getIsbn());
+        assertEquals(10, book.getStock());
+        assertEquals(5, book.getAvailableStock());
+        assertEquals(2, reservations.getOutstanding());
+        assertThrows(IllegalStateException.class, () -> reservations.reserve("ISBN-HOLD-001", 6, null));
+
+        assertTrue(reservations.cancel(dropped.getToken()));
+        assertFalse(reservations.cancel(dropped.getToken()));
+        assertEquals(7, book.getAvailableStock());
+
+        PurchaseResult confirmed = reservations.confirm(kept.getToken(), "12 Main St");
+        assertTrue(confirmed.isCompleted());
+        assertEquals(10500, confirmed.getAmountCents());
+        assertEquals(7, confirmed.getRemainingStock());
+        assertEquals(7, book.getAvailableStock());
+        assertEquals(PurchaseFailure.RESERVATION_NOT_FOUND, reservations.confirm(kept.getToken(), "12 Main St").getFailure());
+        assertFalse(reservations.cancel(kept.getToken()));
+        assertEquals(0, reservations.getOutstanding());
+    }
+
+    @Test
+    @DisplayName("Test Expired Holds Are Released By The Wheel")
+    void testExpiredHoldsAreReleased() throws InterruptedException {
+        List<Reservation> holds = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            holds.add(reservations.reserve("ISBN-HOLD-001", 1, Duration.ofMillis(500 + 10 * i)));
+        }
+        assertEquals(0, book.getAvailableStock());
+        for (int i = 0; i < 100 && book.getAvailableStock() < 10; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(10, book.getAvailableStock());
+        assertEquals(10, reservations.getExpired());
+        assertEquals(0, reservations.getOutstanding());
+        assertEquals(PurchaseFailure.RESERVATION_NOT_FOUND, reservations.confirm(holds.get(0).getToken(), "12 Main St").getFailure());
+    }
+
+    @Test
+    @DisplayName("Test Holds On A Replaced Book Cannot Be Confirmed")
+    void testHoldsOnReplacedBookCannotBeConfirmed() {
+        Reservation hold = reservations.reserve("ISBN-HOLD-001", 4, null);
+        bookStore.updateBook(new PaperBook("ISBN-HOLD-001", "Release It! (2nd ed.)", "Michael Nygard", 2018, 39.00, 10));
+
+        assertEquals(PurchaseFailure.RESERVATION_NOT_FOUND, reservations.confirm(hold.getToken(), "12 Main St").getFailure());
+        assertEquals(10, ((PaperBook) bookStore.getBook("ISBN-HOLD-001")).getAvailableStock());
+        assertEquals(0, reservations.getOutstanding());
+    }
+
+    @Test
+    @DisplayName("Test Many Outstanding Holds Expire Together")
+    void testManyOutstandingHoldsExpire() throws InterruptedException {
+        bookStore.addBook(new PaperBook("ISBN-HOLD-002", "Bulk Title", "Someone", 2020, 1.00, 200_000));
+        for (int i = 0; i < 200_000; i++) {
+            reservations.reserve("ISBN-HOLD-002", 1, Duration.ofMillis(200 + i % 500));
+        }
+        PaperBook bulk = (PaperBook) bookStore.getBook("ISBN-HOLD-002");
+        for (int i = 0; i < 100 && bulk.getAvailableStock() < 200_000; i++) {
+            Thread.sleep(50);
+        }
+        assertEquals(200_000, bulk.getAvailableStock());
+        assertEquals(200_000, reservations.getExpired());
+    }
+}
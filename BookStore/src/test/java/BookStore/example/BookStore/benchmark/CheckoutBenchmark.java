@@ -0,0 +1,61 @@
+package BookStore.example.BookStore.benchmark;
+
+import BookStore.example.BookStore.model.PaperBook;
+import BookStore.example.BookStore.service.BookStore;
+import BookStore.example.BookStore.service.OrderLine;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One cart checkout of N titles against N sequential single-item buys,
+ * with no-op fulfilment so only the inventory work is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CheckoutBenchmark {
+
+    @Param({"1", "5", "10", "50"})
+    public int lineCount;
+
+    private BookStore bookStore;
+    private List<OrderLine> cart;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        bookStore = new BookStore((book, quantity, address) -> { }, (book, email) -> { });
+        cart = new ArrayList<>(lineCount);
+        for (int i = 0; i < lineCount; i++) {
+            String isbn = String.format("ISBN-BENCH-%05d", i);
+            bookStore.addBook(new PaperBook(isbn, "Benchmark Book " + i, "Bench Author", 2024, 10.00, Integer.MAX_VALUE / 2));
+            cart.add(new OrderLine(isbn, 1));
+        }
+    }
+
+    @Benchmark
+    public long cartCheckout() {
+        return bookStore.checkout(cart, "bench@example.com", "1 Bench St");
+    }
+
+    @Benchmark
+    public long sequentialBuys() {
+        long total = 0;
+        for (OrderLine line : cart) {
+            total += bookStore.buyBook(line.getIsbn(), line.getQuantity(), "bench@example.com", "1 Bench St");
+        }
+        return total;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CheckoutBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,156 @@
+package BookStore.example.BookStore.benchmark;
+
+import BookStore.example.BookStore.model.Book;
+import BookStore.example.BookStore.model.PaperBook;
+import BookStore.example.BookStore.service.BookStore;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+
+import java.time.Year;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Core BookStore operations against inventories of 1k to 10M books, from one thread
+ * and from {@value #CONTENDED_THREADS} threads at once. Lookups and purchases draw
+ * ISBNs either uniformly or from a hot distribution where nine in ten requests hit
+ * the same title. Fulfilment is a no-op and the store logger is set to WARN, so only
+ * inventory work is measured.
+ *
+ * The 10M inventory needs a heap of about 8 GB; narrow the sizes with
+ * {@code -p inventorySize=...} on smaller machines. Run through the {@code benchmark}
+ * Maven profile to get JSON results that can be compared between releases.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InventoryBenchmark {
+
+    static final int CONTENDED_THREADS = 4;
+    // Books added during a run are dated before the catalog so each iteration can purge them again
+    private static final int ADDED_BOOK_YEAR = 1400;
+    private static final int CATALOG_FIRST_YEAR = 2000;
+    private static final int BOOKS_PER_PURGE = 100;
+    // Large enough that no run sells out even the hot title
+    private static final int STOCK = Integer.MAX_VALUE / 2;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int inventorySize;
+
+    @Param({"uniform", "hot"})
+    public String keys;
+
+    private BookStore bookStore;
+    private String[] isbns;
+    private final AtomicLong addedBooks = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ch.qos.logback.classic.Logger storeLogger =
+                (ch.qos.logback.classic.Logger) LoggerFactory.getLogger("BookStore.example.BookStore");
+        storeLogger.setLevel(ch.qos.logback.classic.Level.WARN);
+
+        bookStore = new BookStore((book, quantity, address) -> { }, (book, email) -> { });
+        isbns = new String[inventorySize];
+        for (int i = 0; i < inventorySize; i++) {
+            isbns[i] = String.format("ISBN-BENCH-%08d", i);
+            bookStore.addBook(new PaperBook(isbns[i], "Benchmark Book " + i, "Author " + (i % 1000),
+                                            CATALOG_FIRST_YEAR + i % 25, 10.00, STOCK));
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void purgeAddedBooks() {
+        bookStore.removeOutdatedBooks(Year.now().getValue() - CATALOG_FIRST_YEAR);
+    }
+
+    // Pre-drawn ISBN indexes per thread, so the random source is not part of the measurement
+    @State(Scope.Thread)
+    public static class Keys {
+        private static final int SEQUENCE_LENGTH = 1 << 16;
+
+        private final int[] sequence = new int[SEQUENCE_LENGTH];
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setUp(InventoryBenchmark benchmark) {
+            SplittableRandom random = new SplittableRandom(Thread.currentThread().threadId());
+            boolean hot = "hot".equals(benchmark.keys);
+            for (int i = 0; i < SEQUENCE_LENGTH; i++) {
+                sequence[i] = hot && random.nextInt(10) < 9 ? 0 : random.nextInt(benchmark.inventorySize);
+            }
+        }
+
+        String next(String[] isbns) {
+            return isbns[sequence[next++ & (SEQUENCE_LENGTH - 1)]];
+        }
+    }
+
+    // Outdated books put back before every purge call, outside the measured time
+    @State(Scope.Thread)
+    public static class OutdatedBooks {
+        @Setup(Level.Invocation)
+        public void setUp(InventoryBenchmark benchmark) {
+            for (int i = 0; i < BOOKS_PER_PURGE; i++) {
+                benchmark.addOutdatedBook();
+            }
+        }
+    }
+
+    @Benchmark
+    public Book getBook(Keys keys) {
+        return bookStore.getBook(keys.next(isbns));
+    }
+
+    @Benchmark
+    @Threads(CONTENDED_THREADS)
+    public Book getBookContended(Keys keys) {
+        return bookStore.getBook(keys.next(isbns));
+    }
+
+    @Benchmark
+    public long buyBook(Keys keys) {
+        return bookStore.buyBook(keys.next(isbns), 1, "bench@example.com", "1 Bench St");
+    }
+
+    @Benchmark
+    @Threads(CONTENDED_THREADS)
+    public long buyBookContended(Keys keys) {
+        return bookStore.buyBook(keys.next(isbns), 1, "bench@example.com", "1 Bench St");
+    }
+
+    @Benchmark
+    public void addBook() {
+        addOutdatedBook();
+    }
+
+    @Benchmark
+    @Threads(CONTENDED_THREADS)
+    public void addBookContended() {
+        addOutdatedBook();
+    }
+
+    // Cost should follow the number of books removed, not the inventory size
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public List<Book> removeOutdatedBooks(OutdatedBooks outdatedBooks) {
+        return bookStore.removeOutdatedBooks(Year.now().getValue() - CATALOG_FIRST_YEAR);
+    }
+
+    void addOutdatedBook() {
+        long id = addedBooks.incrementAndGet();
+        bookStore.addBook(new PaperBook("ISBN-ADDED-" + id, "Added Book " + id, "Added Author", ADDED_BOOK_YEAR, 10.00, 1));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(InventoryBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,97 @@
+package BookStore.example.BookStore.benchmark;
+
+import BookStore.example.BookStore.model.Book;
+import BookStore.example.BookStore.model.EBook;
+import BookStore.example.BookStore.model.PaperBook;
+import BookStore.example.BookStore.service.ColumnarInventory;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Retained heap and GC cost of the heap and columnar inventory maps holding the same catalog.
+ * For each mode it loads the books, reports the heap still in use after a full collection and
+ * how long that collection took, then runs random lookups and stock updates and reports the
+ * collections they caused. Only the inventory map is measured, not the search index a
+ * BookStore keeps next to it.
+ *
+ * Run with {@code java -Xmx4g -XX:+UseG1GC ... InventoryFootprint [books] [operations]};
+ * the defaults are 1M books and 20M operations.
+ */
+public class InventoryFootprint {
+
+    private static final int AUTHORS = 50_000;
+
+    public static void main(String[] args) {
+        int books = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        long operations = args.length > 1 ? Long.parseLong(args[1]) : 20_000_000L;
+        System.out.printf("Quantum book store - %,d books, %,d operations, %s%n", books, operations,
+                          ManagementFactory.getRuntimeMXBean().getVmVersion());
+        measure("heap", new ConcurrentHashMap<>(), books, operations);
+        measure("columnar", new ColumnarInventory(), books, operations);
+    }
+
+    private static void measure(String mode, ConcurrentMap<String, Book> inventory, int books, long operations) {
+        long baseline = collectAndMeasure();
+        long loadStarted = System.nanoTime();
+        for (int i = 0; i < books; i++) {
+            inventory.put(isbn(i), book(i));
+        }
+        long loadMillis = (System.nanoTime() - loadStarted) / 1_000_000;
+
+        long fullGcStarted = System.nanoTime();
+        long retained = collectAndMeasure() - baseline;
+        long fullGcMillis = (System.nanoTime() - fullGcStarted) / 1_000_000;
+
+        // Three lookups to one stock update, the rough mix of a browsing-heavy storefront
+        SplittableRandom random = new SplittableRandom(42);
+        long[] churnBefore = gcTotals();
+        long churnStarted = System.nanoTime();
+        long checksum = 0;
+        for (long op = 0; op < operations; op++) {
+            Book book = inventory.get(isbn(random.nextInt(books)));
+            if (book instanceof PaperBook paperBook && (op & 3) == 0) {
+                paperBook.setStock(paperBook.getStock() + 1);
+            }
+            checksum += book.getYearPublished();
+        }
+        long churnMillis = (System.nanoTime() - churnStarted) / 1_000_000;
+        long[] churnAfter = gcTotals();
+
+        System.out.printf("Quantum book store - %-8s load %,6d ms | retained %,7.1f MB (%,d B/book) | full GC %,5d ms"
+                          + " | churn %,6d ms, %,4d GCs, %,6d ms in GC (%d)%n",
+                          mode, loadMillis, retained / 1048576.0, retained / books, fullGcMillis,
+                          churnMillis, churnAfter[0] - churnBefore[0], churnAfter[1] - churnBefore[1],
+                          checksum & 1);
+    }
+
+    private static String isbn(int i) {
+        return String.format("978-%010d", i);
+    }
+
+    private static Book book(int i) {
+        String author = "Author " + (i % AUTHORS);
+        if (i % 4 == 3) {
+            return new EBook(isbn(i), "Title number " + i, author, 1950 + i % 75, 9.99 + i % 50, "EPUB");
+        }
+        return new PaperBook(isbn(i), "Title number " + i, author, 1950 + i % 75, 19.99 + i % 80, i % 500);
+    }
+
+    private static long collectAndMeasure() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long[] gcTotals() {
+        long count = 0;
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += gc.getCollectionCount();
+            millis += gc.getCollectionTime();
+        }
+        return new long[] {count, millis};
+    }
+}
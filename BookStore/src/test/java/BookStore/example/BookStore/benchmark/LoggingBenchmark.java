@@ -0,0 +1,52 @@
+package BookStore.example.BookStore.benchmark;
+
+import BookStore.example.BookStore.model.PaperBook;
+import BookStore.example.BookStore.service.BookStore;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * buyBook throughput from several threads with the store's event log switched on
+ * (INFO, every purchase and shipment logged through the async appender) and off.
+ * Uses the default shipping and mail services so their log lines are included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class LoggingBenchmark {
+
+    private static final String ISBN = "ISBN-BENCH-LOG";
+
+    @Param({"OFF", "INFO"})
+    public String logLevel;
+
+    private BookStore bookStore;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        ch.qos.logback.classic.Logger storeLogger =
+                (ch.qos.logback.classic.Logger) LoggerFactory.getLogger("BookStore.example.BookStore");
+        storeLogger.setLevel(ch.qos.logback.classic.Level.toLevel(logLevel));
+
+        bookStore = new BookStore();
+        bookStore.addBook(new PaperBook(ISBN, "Benchmark Book", "Bench Author", 2024, 10.00, Integer.MAX_VALUE / 2));
+    }
+
+    @Benchmark
+    public long buyBook() {
+        return bookStore.buyBook(ISBN, 1, "bench@example.com", "1 Bench St");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(LoggingBenchmark.class.getSimpleName()).build()).run();
+    }
+}
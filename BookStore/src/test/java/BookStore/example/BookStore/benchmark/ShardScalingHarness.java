@@ -0,0 +1,200 @@
+package BookStore.example.BookStore.benchmark;
+
+import BookStore.example.BookStore.model.Book;
+import BookStore.example.BookStore.model.EBook;
+import BookStore.example.BookStore.model.Isbn;
+import BookStore.example.BookStore.model.PaperBook;
+import BookStore.example.BookStore.service.BookStore;
+import BookStore.example.BookStore.service.MailService;
+import BookStore.example.BookStore.service.ShardRing;
+import BookStore.example.BookStore.service.ShardedBookStore;
+import BookStore.example.BookStore.service.ShippingService;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Throughput of a sharded catalog as shards are added. For each shard count N the catalog
+ * is split by a {@link ShardRing} and the same closed-loop load (nine getBook calls to one
+ * buyBook, on keys picked at random) runs twice:
+ * <ul>
+ *   <li>processes: N child JVMs, each loading only the ISBNs the ring gives its shard into a
+ *       plain BookStore and driving its own keys with one client thread, as a router in front
+ *       of N nodes would;</li>
+ *   <li>in-process: one ShardedBookStore with N shards and N client threads.</li>
+ * </ul>
+ * The children load first and start together, so start-up and catalog loading are not timed.
+ * Reports operations per second and the speedup over one shard. Scaling stays near linear only
+ * while every shard gets a core of its own.
+ *
+ * Run with {@code java ... ShardScalingHarness [shard counts] [seconds] [books] [virtual nodes]};
+ * the defaults are 1,2,4 shards, 10 s, 100,000 books and 512 virtual nodes.
+ */
+public class ShardScalingHarness {
+
+    private static final ShippingService SHIPPING = (book, quantity, address) -> { };
+    private static final MailService MAIL = (book, email) -> { };
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("node")) {
+            node(Integer.parseInt(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]),
+                 Integer.parseInt(args[4]), Integer.parseInt(args[5]));
+            return;
+        }
+        String[] counts = (args.length > 0 ? args[0] : "1,2,4").split(",");
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int books = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+        int virtualNodes = args.length > 3 ? Integer.parseInt(args[3]) : 512;
+        System.out.printf("Quantum book store - %,d books, %d s per run, %d virtual nodes, %d cores, %s%n",
+                          books, seconds, virtualNodes, Runtime.getRuntime().availableProcessors(),
+                          ManagementFactory.getRuntimeMXBean().getVmVersion());
+        quiet();
+
+        double processBase = 0;
+        double inProcessBase = 0;
+        for (String count : counts) {
+            int shards = Integer.parseInt(count.trim());
+            double processes = processes(shards, virtualNodes, books, seconds);
+            double inProcess = inProcess(shards, virtualNodes, books, seconds);
+            if (processBase == 0) {
+                processBase = processes / shards;
+                inProcessBase = inProcess / shards;
+            }
+            System.out.printf("Quantum book store - %d shard(s): processes %,12.0f ops/s (x%.2f) | in-process %,12.0f ops/s (x%.2f)%n",
+                              shards, processes, processes / processBase, inProcess, inProcess / inProcessBase);
+        }
+    }
+
+    // Starts one JVM per shard, waits until all have loaded, then lets them run together
+    private static double processes(int shards, int virtualNodes, int books, int seconds) throws Exception {
+        String java = ProcessHandle.current().info().command().orElse("java");
+        List<Process> nodes = new ArrayList<>();
+        List<BufferedReader> outputs = new ArrayList<>();
+        try {
+            for (int shard = 0; shard < shards; shard++) {
+                Process node = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                                                  ShardScalingHarness.class.getName(), "node", String.valueOf(shard),
+                                                  String.valueOf(shards), String.valueOf(virtualNodes),
+                                                  String.valueOf(books), String.valueOf(seconds))
+                        .redirectError(ProcessBuilder.Redirect.INHERIT)
+                        .start();
+                nodes.add(node);
+                outputs.add(new BufferedReader(new InputStreamReader(node.getInputStream(), StandardCharsets.UTF_8)));
+            }
+            for (BufferedReader output : outputs) {
+                expect(output, "READY");
+            }
+            for (Process node : nodes) {
+                PrintWriter input = new PrintWriter(node.getOutputStream(), true, StandardCharsets.UTF_8);
+                input.println("GO");
+            }
+            long operations = 0;
+            for (BufferedReader output : outputs) {
+                operations += Long.parseLong(expect(output, "OPS "));
+            }
+            for (Process node : nodes) {
+                node.waitFor(30, TimeUnit.SECONDS);
+            }
+            return operations / (double) seconds;
+        } finally {
+            nodes.forEach(Process::destroy);
+        }
+    }
+
+    // Returns the rest of the first line starting with prefix; anything else a node prints is skipped
+    private static String expect(BufferedReader output, String prefix) throws Exception {
+        for (String line = output.readLine(); line != null; line = output.readLine()) {
+            if (line.startsWith(prefix)) {
+                return line.substring(prefix.length());
+            }
+        }
+        throw new IllegalStateException("Quantum book store - Shard node exited before " + prefix.trim());
+    }
+
+    // Child process: serves one shard of the catalog
+    private static void node(int shard, int shards, int virtualNodes, int books, int seconds) throws Exception {
+        quiet();
+        ShardRing ring = new ShardRing(shards, virtualNodes);
+        List<Book> owned = new ArrayList<>();
+        for (Book book : catalog(books)) {
+            if (ring.shardFor(book.getIsbn()) == shard) {
+                owned.add(book);
+            }
+        }
+        BookStore bookStore = new BookStore(SHIPPING, MAIL);
+        bookStore.addBooks(owned);
+        String[] isbns = owned.stream().map(Book::getIsbn).toArray(String[]::new);
+        warmUp(bookStore, isbns);
+
+        System.out.println("READY");
+        System.out.flush();
+        new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)).readLine();
+        LongAdder operations = new LongAdder();
+        drive(bookStore, isbns, System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds), operations);
+        System.out.println("OPS " + operations.sum());
+        System.out.flush();
+    }
+
+    private static double inProcess(int shards, int virtualNodes, int books, int seconds) throws Exception {
+        try (ShardedBookStore bookStore = new ShardedBookStore(SHIPPING, MAIL, shards, virtualNodes)) {
+            bookStore.addBooks(catalog(books));
+            String[] isbns = bookStore.getAllBooks().stream().map(Book::getIsbn).toArray(String[]::new);
+            warmUp(bookStore, isbns);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+            LongAdder operations = new LongAdder();
+            List<Thread> clients = new ArrayList<>();
+            for (int i = 0; i < shards; i++) {
+                clients.add(Thread.ofPlatform().name("shard-client-" + i).start(() -> drive(bookStore, isbns, deadline, operations)));
+            }
+            for (Thread client : clients) {
+                client.join();
+            }
+            return operations.sum() / (double) seconds;
+        }
+    }
+
+    // Paper books get stock that no run can exhaust; every tenth book is an EBook
+    private static List<Book> catalog(int books) {
+        List<Book> catalog = new ArrayList<>(books);
+        for (int i = 0; i < books; i++) {
+            String isbn = Isbn.canonical(String.format("978%09d", i * 7));
+            catalog.add(i % 10 == 0 ? new EBook(isbn, "Scaling EBook " + i, "Author " + i % 100, 2024, 5.00, "PDF")
+                                    : new PaperBook(isbn, "Scaling Book " + i, "Author " + i % 100, 2024, 10.00, Integer.MAX_VALUE / 2));
+        }
+        return catalog;
+    }
+
+    private static void warmUp(BookStore bookStore, String[] isbns) {
+        drive(bookStore, isbns, System.nanoTime() + TimeUnit.SECONDS.toNanos(2), new LongAdder());
+    }
+
+    private static void drive(BookStore bookStore, String[] isbns, long deadline, LongAdder operations) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long count = 0;
+        while ((count & 255) != 0 || System.nanoTime() < deadline) {
+            String isbn = isbns[random.nextInt(isbns.length)];
+            if (random.nextInt(10) == 0) {
+                bookStore.buyBook(isbn, 1, "load@example.com", "1 Load St");
+            } else if (bookStore.getBook(isbn) == null) {
+                throw new IllegalStateException("Quantum book store - Book with ISBN " + isbn + " not found");
+            }
+            count++;
+        }
+        operations.add(count);
+    }
+
+    // Per-purchase log lines would measure the appender rather than the shards
+    private static void quiet() {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger("BookStore.example.BookStore"))
+                .setLevel(ch.qos.logback.classic.Level.WARN);
+    }
+}
@@ -0,0 +1,120 @@
+package BookStore.example.BookStore.benchmark;
+
+import BookStore.example.BookStore.model.PaperBook;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Compares three ways of taking one copy of a single hot ISBN:
+ * a synchronized counter, the CAS-based {@link PaperBook} reservation,
+ * and a LongAdder-style striped counter that spreads stock over cells.
+ *
+ * Run {@link #main} from the test classpath; it repeats the suite at 1 to 64 threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StockReservationBenchmark {
+
+    // Large enough that no iteration sells out
+    private static final int HOT_STOCK = Integer.MAX_VALUE / 2;
+
+    private SynchronizedStock synchronizedStock;
+    private PaperBook casStock;
+    private StripedStock stripedStock;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        synchronizedStock = new SynchronizedStock(HOT_STOCK);
+        casStock = new PaperBook("ISBN-HOT", "Bestseller", "Popular Author", 2024, 19.99, HOT_STOCK);
+        stripedStock = new StripedStock(HOT_STOCK, Runtime.getRuntime().availableProcessors());
+    }
+
+    @Benchmark
+    public boolean synchronizedReserve() {
+        return synchronizedStock.tryTake(1);
+    }
+
+    @Benchmark
+    public boolean casReserve() {
+        if (casStock.tryReserve(1)) {
+            casStock.commit(1);
+            return true;
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean stripedReserve() {
+        return stripedStock.tryTake(1);
+    }
+
+    static final class SynchronizedStock {
+        private int stock;
+
+        SynchronizedStock(int stock) {
+            this.stock = stock;
+        }
+
+        synchronized boolean tryTake(int quantity) {
+            if (quantity > stock) {
+                return false;
+            }
+            stock -= quantity;
+            return true;
+        }
+    }
+
+    // Stock split across cells; a thread drains its home cell first and only
+    // walks the others once it is empty, like LongAdder spreads increments
+    static final class StripedStock {
+        // Cells padded to separate cache lines (8 longs = 64 bytes)
+        private static final int PAD = 8;
+        private final AtomicLongArray cells;
+        private final int cellCount;
+
+        StripedStock(int stock, int cellCount) {
+            this.cellCount = Integer.highestOneBit(Math.max(1, cellCount) * 2 - 1);
+            this.cells = new AtomicLongArray(this.cellCount * PAD);
+            for (int i = 0; i < this.cellCount; i++) {
+                cells.set(i * PAD, stock / this.cellCount + (i < stock % this.cellCount ? 1 : 0));
+            }
+        }
+
+        boolean tryTake(int quantity) {
+            int home = (int) Thread.currentThread().threadId() & (cellCount - 1);
+            for (int probe = 0; probe < cellCount; probe++) {
+                int index = ((home + probe) & (cellCount - 1)) * PAD;
+                while (true) {
+                    long current = cells.get(index);
+                    if (current < quantity) {
+                        break;
+                    }
+                    if (cells.compareAndSet(index, current, current - quantity)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads = 1; threads <= 64; threads *= 2) {
+            Options options = new OptionsBuilder()
+                    .include(StockReservationBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package BookStore.example.BookStore.benchmark;
+
+import BookStore.example.BookStore.model.EBook;
+import BookStore.example.BookStore.model.PaperBook;
+import BookStore.example.BookStore.service.BookStore;
+import BookStore.example.BookStore.service.MailService;
+import BookStore.example.BookStore.service.OrderLine;
+import BookStore.example.BookStore.service.ShippingService;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checkout load with fulfilment as blocking I/O on the request thread, the case virtual
+ * threads are for. Each checkout ships through a carrier call that sleeps for the given
+ * latency. Requests run either on a fixed pool of platform threads, sized like Tomcat's
+ * default of 200, or on one virtual thread each, which is what
+ * {@code spring.threads.virtual.enabled=true} gives the REST layer. Closed-loop clients keep
+ * the load constant. Reports throughput, the most checkouts inside a carrier call at once,
+ * and client-observed latency percentiles, queueing included.
+ *
+ * Run with {@code java ... VirtualThreadLoadTest [clients] [carrier ms] [seconds] [platform threads]};
+ * the defaults are 2000 clients, 50 ms, 10 s and 200 threads.
+ */
+public class VirtualThreadLoadTest {
+
+    private static final String[] ISBNS = {"ISBN-LOAD-001", "ISBN-LOAD-002", "ISBN-LOAD-003", "ISBN-LOAD-004"};
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        long carrierMillis = args.length > 1 ? Long.parseLong(args[1]) : 50;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int platformThreads = args.length > 3 ? Integer.parseInt(args[3]) : 200;
+        System.out.printf("Quantum book store - %,d clients, %d ms carrier calls, %d s per mode, %s%n",
+                          clients, carrierMillis, seconds, ManagementFactory.getRuntimeMXBean().getVmVersion());
+        // Per-purchase log lines would measure the appender rather than the threads
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger("BookStore.example.BookStore"))
+                .setLevel(ch.qos.logback.classic.Level.WARN);
+
+        ExecutorService platform = Executors.newFixedThreadPool(platformThreads);
+        run("platform-" + platformThreads, platform, clients, carrierMillis, seconds);
+        platform.shutdown();
+
+        ExecutorService virtual = Executors.newVirtualThreadPerTaskExecutor();
+        run("virtual", virtual, clients, carrierMillis, seconds);
+        virtual.shutdown();
+    }
+
+    private static void run(String mode, ExecutorService requests, int clients, long carrierMillis, int seconds)
+            throws InterruptedException {
+        AtomicInteger inCarrier = new AtomicInteger();
+        AtomicInteger maxInCarrier = new AtomicInteger();
+        ShippingService carrier = (book, quantity, address) -> {
+            maxInCarrier.accumulateAndGet(inCarrier.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(carrierMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inCarrier.decrementAndGet();
+            }
+        };
+        MailService mail = (book, email) -> { };
+        BookStore bookStore = new BookStore(carrier, mail);
+        for (String isbn : ISBNS) {
+            bookStore.addBook(new PaperBook(isbn, "Load Book " + isbn, "Load Author", 2024, 10.00, Integer.MAX_VALUE / 2));
+        }
+        bookStore.addBook(new EBook("ISBN-LOAD-EBOOK", "Load EBook", "Load Author", 2024, 5.00, "PDF"));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<long[]> latencies = new CopyOnWriteArrayList<>();
+        AtomicInteger failures = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(clients);
+        try (ExecutorService clientThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                String isbn = ISBNS[c % ISBNS.length];
+                clientThreads.execute(() -> {
+                    long[] samples = new long[1024];
+                    int count = 0;
+                    List<OrderLine> order = List.of(new OrderLine(isbn, 1), new OrderLine("ISBN-LOAD-EBOOK", 1));
+                    try {
+                        while (System.nanoTime() < deadline) {
+                            long started = System.nanoTime();
+                            Future<Long> checkout = requests.submit(() -> bookStore.checkout(order, "load@example.com", "1 Load St"));
+                            try {
+                                checkout.get();
+                            } catch (ExecutionException e) {
+                                failures.incrementAndGet();
+                            }
+                            if (count == samples.length) {
+                                samples = Arrays.copyOf(samples, count * 2);
+                            }
+                            samples[count++] = System.nanoTime() - started;
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        latencies.add(Arrays.copyOf(samples, count));
+                        done.countDown();
+                    }
+                });
+            }
+            done.await();
+        }
+
+        long[] all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.printf("Quantum book store - %-13s %,8d checkouts (%,7.0f/s) | max concurrent %,5d | "
+                          + "p50 %,6.1f ms  p99 %,7.1f ms  max %,7.1f ms | %d failed%n",
+                          mode, all.length, all.length / (double) seconds, maxInCarrier.get(),
+                          percentile(all, 0.50), percentile(all, 0.99), percentile(all, 1.0), failures.get());
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+}